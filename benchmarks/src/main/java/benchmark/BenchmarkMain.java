@@ -0,0 +1,44 @@
+package benchmark;
+
+import java.io.IOException;
+
+import org.openjdk.jmh.profile.GCProfiler;
+import org.openjdk.jmh.runner.Runner;
+import org.openjdk.jmh.runner.RunnerException;
+import org.openjdk.jmh.runner.options.CommandLineOptionException;
+import org.openjdk.jmh.runner.options.CommandLineOptions;
+import org.openjdk.jmh.runner.options.Options;
+import org.openjdk.jmh.runner.options.OptionsBuilder;
+
+/**
+ * Entry point of the benchmark jar.
+ * Accepts the normal JMH command line and always attaches the GC profiler
+ * so every run reports allocation rate next to throughput and latency.
+ * 
+ * Example: java -jar benchmarks/target/benchmarks.jar MusicList -p size=1000,10000
+ * 
+ * @author Josiah Loomis
+ * @version 1.0
+ */
+public class BenchmarkMain {
+
+	public static void main(String[] args) throws CommandLineOptionException, RunnerException, IOException {
+		CommandLineOptions commandLine = new CommandLineOptions(args);
+		
+		if (commandLine.shouldHelp()) {
+			commandLine.showHelp();
+			return;
+		}
+		
+		if (commandLine.shouldList()) {
+			new Runner(commandLine).list();
+			return;
+		}
+		
+		Options options = new OptionsBuilder()
+				.parent(commandLine)
+				.addProfiler(GCProfiler.class)
+				.build();
+		new Runner(options).run();
+	}
+}
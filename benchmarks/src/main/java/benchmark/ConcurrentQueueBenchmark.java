@@ -0,0 +1,126 @@
+package benchmark;
+
+import java.util.ArrayList;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.TimeUnit;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+
+import data.ConcurrentMusicQueue;
+import data.MusicQueue;
+import data.Song;
+
+/**
+ * Measures how enqueue throughput scales with the number of producer threads.
+ * Each invocation has every producer enqueue SONGS_PER_PRODUCER songs while the
+ * benchmark thread dequeues them all, so the score is the time to move
+ * producers * SONGS_PER_PRODUCER songs through the queue.
+ * The "locked" queue is a MusicQueue behind one lock, as callers had to do before.
+ *
+ * @author Josiah Loomis
+ * @version 1.0
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+public class ConcurrentQueueBenchmark {
+
+	/** Songs each producer enqueues per invocation */
+	public static final int SONGS_PER_PRODUCER = 10_000;
+
+	@Param({"1", "2", "4", "8"})
+	public int producers;
+
+	@Param({"concurrent", "locked"})
+	public String queue;
+
+	private ArrayList<Song> songs;
+	private ExecutorService pool;
+
+	@Setup(Level.Trial)
+	public void setUp() {
+		songs = SongFixtures.songs(SONGS_PER_PRODUCER, 42);
+		pool = Executors.newFixedThreadPool(producers);
+	}
+
+	@TearDown(Level.Trial)
+	public void tearDown() {
+		pool.shutdownNow();
+	}
+
+	@Benchmark
+	public int produceAndDrain() throws InterruptedException {
+		int total = producers * SONGS_PER_PRODUCER;
+		CountDownLatch start = new CountDownLatch(1);
+		int received = 0;
+		if (queue.equals("concurrent")) {
+			ConcurrentMusicQueue musicQueue = new ConcurrentMusicQueue();
+			for (int p = 0; p < producers; p++) {
+				pool.execute(() -> {
+					await(start);
+					for (int i = 0; i < SONGS_PER_PRODUCER; i++) {
+						musicQueue.enqueue(songs.get(i), i % 4 == 0);
+					}
+				});
+			}
+			start.countDown();
+			while (received < total) {
+				if (musicQueue.dequeue() != null) {
+					received++;
+				} else {
+					Thread.onSpinWait();
+				}
+			}
+		} else {
+			MusicQueue musicQueue = new MusicQueue();
+			for (int p = 0; p < producers; p++) {
+				pool.execute(() -> {
+					await(start);
+					for (int i = 0; i < SONGS_PER_PRODUCER; i++) {
+						synchronized (musicQueue) {
+							musicQueue.enqueue(songs.get(i), i % 4 == 0);
+						}
+					}
+				});
+			}
+			start.countDown();
+			while (received < total) {
+				Song song;
+				synchronized (musicQueue) {
+					song = musicQueue.dequeue();
+				}
+				if (song != null) {
+					received++;
+				} else {
+					Thread.onSpinWait();
+				}
+			}
+		}
+		return received;
+	}
+
+	private static void await(CountDownLatch latch) {
+		try {
+			latch.await();
+		} catch (InterruptedException e) {
+			Thread.currentThread().interrupt();
+		}
+	}
+}
@@ -0,0 +1,101 @@
+package benchmark;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import data.MusicList;
+import data.MusicQueue;
+import data.Song;
+
+/**
+ * Compares importing a playlist one song at a time with the bulk methods.
+ * A listener counts change events, standing in for a view that refreshes
+ * on every event.
+ *
+ * @author Josiah Loomis
+ * @version 1.0
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+public class ImportBenchmark {
+	
+	@Param({"1000", "10000", "100000"})
+	public int size;
+	
+	private ArrayList<Song> songs;
+	private int events;
+	
+	@Setup(Level.Trial)
+	public void setUp() {
+		songs = SongFixtures.songs(size, 42);
+	}
+	
+	@Benchmark
+	public MusicList listOneByOne() {
+		MusicList list = newList();
+		for (Song song : songs) {
+			list.addSong(song);
+		}
+		return list;
+	}
+	
+	@Benchmark
+	public MusicList listAddAll() {
+		MusicList list = newList();
+		list.addAll(songs);
+		return list;
+	}
+	
+	@Benchmark
+	public MusicQueue queueOneByOne() {
+		MusicQueue queue = newQueue();
+		for (Song song : songs) {
+			queue.enqueue(song, MusicQueue.NORMAL);
+		}
+		return queue;
+	}
+	
+	@Benchmark
+	public MusicQueue queueEnqueueAll() {
+		MusicQueue queue = newQueue();
+		queue.enqueueAll(songs, MusicQueue.NORMAL);
+		return queue;
+	}
+	
+	@Benchmark
+	public List<Song> queueDequeueBatch() {
+		MusicQueue queue = newQueue();
+		queue.enqueueAll(songs, MusicQueue.NORMAL);
+		return queue.dequeueBatch(size);
+	}
+	
+	private MusicList newList() {
+		MusicList list = new MusicList();
+		list.addChangeListener(event -> events++);
+		return list;
+	}
+	
+	private MusicQueue newQueue() {
+		MusicQueue queue = new MusicQueue();
+		queue.addChangeListener(event -> events++);
+		return queue;
+	}
+}
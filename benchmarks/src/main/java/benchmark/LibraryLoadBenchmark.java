@@ -0,0 +1,101 @@
+package benchmark;
+
+import java.io.BufferedReader;
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.concurrent.TimeUnit;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+
+import data.MusicList;
+import data.Song;
+import data.SongFile;
+
+/**
+ * Compares reading a library from the text save format and from the binary SongFile.
+ * Opening a SongFile only reads its header, but loading still decodes every song,
+ * so loadBinary and loadMusicList grow with the library. loadMusicList is a whole
+ * MusicList load, which leaves the search indexes for the first search.
+ *
+ * @author Josiah Loomis
+ * @version 1.0
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+public class LibraryLoadBenchmark {
+	
+	@Param({"1000", "10000", "100000", "1000000"})
+	public int size;
+	
+	private Path directory;
+	private Path textFile;
+	private Path binaryFile;
+	
+	@Setup(Level.Trial)
+	public void setUp() throws IOException {
+		directory = Files.createTempDirectory("library-load");
+		textFile = directory.resolve("musiclist_data.txt");
+		binaryFile = directory.resolve("musiclist_data.bin");
+		Files.write(textFile, Arrays.asList(SongFixtures.saveLines(size, 42)));
+		SongFile.write(binaryFile, SongFixtures.songs(size, 42));
+	}
+	
+	@TearDown(Level.Trial)
+	public void tearDown() throws IOException {
+		Files.deleteIfExists(textFile);
+		Files.deleteIfExists(binaryFile);
+		Files.deleteIfExists(directory);
+	}
+	
+	@Benchmark
+	public ArrayList<Song> loadText() throws IOException {
+		ArrayList<Song> songs = new ArrayList<>();
+		try (BufferedReader reader = Files.newBufferedReader(textFile)) {
+			String line;
+			while ((line = reader.readLine()) != null) {
+				songs.add(new Song(line));
+			}
+		}
+		return songs;
+	}
+	
+	@Benchmark
+	public ArrayList<Song> loadBinary() throws IOException {
+		try (SongFile file = SongFile.open(binaryFile)) {
+			return file.getSongs();
+		}
+	}
+	
+	@Benchmark
+	public MusicList loadMusicList() {
+		MusicList list = new MusicList();
+		list.loadFromFile(binaryFile.toFile(), textFile.toFile());
+		return list;
+	}
+	
+	@Benchmark
+	public long openBinary() throws IOException {
+		try (SongFile file = SongFile.open(binaryFile)) {
+			return file.getId(file.size() - 1);
+		}
+	}
+}
@@ -0,0 +1,119 @@
+package benchmark;
+
+import java.util.ArrayList;
+import java.util.Random;
+import java.util.concurrent.TimeUnit;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import data.MusicList;
+import data.Song;
+
+/**
+ * Benchmarks the MusicList operations that the GUI hits on every click.
+ * 
+ * @author Josiah Loomis
+ * @version 1.0
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode({Mode.Throughput, Mode.AverageTime})
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+public class MusicListBenchmark {
+
+	@Param({"1000", "10000", "100000", "1000000"})
+	public int size;
+	
+	private MusicList musicList;
+	private String query;
+	private String selectiveQuery;
+	private Random random;
+	
+	@Setup(Level.Trial)
+	public void setUp() {
+		musicList = new MusicList();
+		for (Song song : SongFixtures.songs(size, 42)) {
+			musicList.addSong(song);
+		}
+		random = new Random(7);
+	}
+	
+	@Setup(Level.Iteration)
+	public void pickQuery() {
+		query = SongFixtures.searchTerm(random);
+		selectiveQuery = musicList.getSong(random.nextInt(size)).getTitle();
+	}
+	
+	@Benchmark
+	public ArrayList<Song> getSongsAlphabetically() {
+		return musicList.getSongsAlphabetically();
+	}
+	
+	@Benchmark
+	public ArrayList<Song> getSongsByDateAdded() {
+		return musicList.getSongsByDateAdded();
+	}
+	
+	@Benchmark
+	public ArrayList<Song> getSongsByDateAddedPage() {
+		// First page of the server's sort=added listing
+		return musicList.getSongsByDateAdded(0, 20);
+	}
+	
+	@Benchmark
+	public long sortByDateAddedAndWriteBack() {
+		// What the GUI's sort button used to do
+		musicList.updateList(musicList.getSongsByDateAdded());
+		return musicList.getModCount();
+	}
+	
+	@Benchmark
+	public long sortByDateAdded() {
+		// What the GUI's sort button does
+		musicList.sortByDateAdded();
+		return musicList.getModCount();
+	}
+	
+	@Benchmark
+	public Song getSongRandom() {
+		return musicList.getSong(random.nextInt(size));
+	}
+	
+	@Benchmark
+	public Song addAndRemoveNearCursor() {
+		// Insert and delete in the middle of the list, the GUI's typical edit pattern
+		int index = size / 2;
+		musicList.addAt(index, musicList.getSong(index));
+		return musicList.removeAt(index);
+	}
+	
+	@Benchmark
+	public ArrayList<Song> searchSongs() {
+		return musicList.searchSongs(query);
+	}
+	
+	@Benchmark
+	public ArrayList<Song> searchByPrefix() {
+		// What the search box asks for after two keystrokes
+		return musicList.searchByPrefix(query.substring(0, 2), 50);
+	}
+	
+	@Benchmark
+	public ArrayList<Song> searchSongsSelective() {
+		// The full title of one song, the typical "find that song" query
+		return musicList.searchSongs(selectiveQuery);
+	}
+}
@@ -0,0 +1,99 @@
+package benchmark;
+
+import java.util.ArrayList;
+import java.util.concurrent.TimeUnit;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+import org.openjdk.jmh.infra.Blackhole;
+
+import data.MusicQueue;
+import data.Song;
+
+/**
+ * Benchmarks MusicQueue with a steady number of queued songs.
+ * Every enqueue is paired with a dequeue so the queue keeps its size.
+ * 
+ * @author Josiah Loomis
+ * @version 1.0
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode({Mode.Throughput, Mode.AverageTime})
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+public class MusicQueueBenchmark {
+
+	@Param({"1000", "10000", "100000", "1000000"})
+	public int size;
+	
+	private MusicQueue musicQueue;
+	private ArrayList<Song> songs;
+	private MusicQueue.Handle[] handles;
+	private int next;
+	
+	@Setup(Level.Trial)
+	public void setUp() {
+		songs = SongFixtures.songs(size, 42);
+		musicQueue = new MusicQueue();
+		handles = new MusicQueue.Handle[size];
+		for (int i = 0; i < size; i++) {
+			handles[i] = musicQueue.enqueue(songs.get(i), i % 4 == 0);
+		}
+	}
+	
+	@Benchmark
+	public Song enqueueDequeue() {
+		Song song = songs.get(next);
+		next = (next + 1) % size;
+		musicQueue.enqueue(song, next % 4 == 0);
+		return musicQueue.dequeue();
+	}
+	
+	@Benchmark
+	public Song enqueueDequeueLevels() {
+		Song song = songs.get(next);
+		next = (next + 1) % size;
+		musicQueue.enqueue(song, next % 4);
+		return musicQueue.dequeue();
+	}
+	
+	@Benchmark
+	public MusicQueue.Handle removeAndRequeue() {
+		int index = next;
+		next = (next + 1) % size;
+		musicQueue.remove(handles[index]);
+		handles[index] = musicQueue.enqueue(songs.get(index), index % 4);
+		return handles[index];
+	}
+	
+	@Benchmark
+	public boolean promoteDemote() {
+		MusicQueue.Handle handle = handles[next];
+		next = (next + 1) % size;
+		return handle.getPriority() < MusicQueue.URGENT ? musicQueue.promote(handle) : musicQueue.demote(handle);
+	}
+	
+	@Benchmark
+	public ArrayList<Song> getAllSongs() {
+		return musicQueue.getAllSongs();
+	}
+	
+	@Benchmark
+	public void iterate(Blackhole blackhole) {
+		for (Song song : musicQueue) {
+			blackhole.consume(song);
+		}
+	}
+}
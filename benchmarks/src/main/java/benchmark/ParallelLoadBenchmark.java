@@ -0,0 +1,69 @@
+package benchmark;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.TimeUnit;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+
+import data.ParallelSongLoader;
+import data.Song;
+import data.SongParser;
+
+/**
+ * Measures how ParallelSongLoader scales with the number of pool threads.
+ *
+ * @author Josiah Loomis
+ * @version 1.0
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+public class ParallelLoadBenchmark {
+	
+	@Param({"100000", "1000000"})
+	public int size;
+	
+	@Param({"1", "2", "4", "8"})
+	public int threads;
+	
+	private Path textFile;
+	private ForkJoinPool pool;
+	
+	@Setup(Level.Trial)
+	public void setUp() throws IOException {
+		textFile = Files.createTempFile("parallel-load", ".txt");
+		Files.write(textFile, Arrays.asList(SongFixtures.saveLines(size, 42)));
+		pool = new ForkJoinPool(threads);
+	}
+	
+	@TearDown(Level.Trial)
+	public void tearDown() throws IOException {
+		pool.shutdown();
+		Files.deleteIfExists(textFile);
+	}
+	
+	@Benchmark
+	public ArrayList<Song> loadText() throws IOException {
+		return ParallelSongLoader.load(textFile, pool, ParallelSongLoader.DEFAULT_CHUNK_SIZE, new SongParser());
+	}
+}
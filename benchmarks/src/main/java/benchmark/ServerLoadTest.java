@@ -0,0 +1,192 @@
+package benchmark;
+
+import java.io.IOException;
+import java.net.URI;
+import java.net.URLEncoder;
+import java.net.http.HttpClient;
+import java.net.http.HttpRequest;
+import java.net.http.HttpResponse;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.Random;
+import java.util.concurrent.atomic.AtomicLong;
+
+import data.MusicList;
+import data.MusicQueue;
+import data.Song;
+import server.MusicServer;
+
+/**
+ * Load-tests the HTTP server with a mix of requests from several client
+ * threads and prints requests per second and latency percentiles.
+ *
+ * Without --url it starts a server in this process on a library of fixture
+ * songs. The mix is 50% search, 15% add, 15% enqueue, 10% dequeue,
+ * 5% list queue and 5% sorted page.
+ *
+ * Run with: java -cp benchmarks/target/benchmarks.jar benchmark.ServerLoadTest
+ *           [--url=http://127.0.0.1:8642] [--songs=100000] [--clients=16] [--seconds=10]
+ *
+ * @author Josiah Loomis
+ * @version 1.0
+ */
+public class ServerLoadTest {
+
+	private static final String[] OPERATIONS = {"search", "add", "enqueue", "dequeue", "queue", "sort"};
+	private static final int[] WEIGHTS = {50, 15, 15, 10, 5, 5};
+
+	public static void main(String[] args) throws Exception {
+		String url = option(args, "url", null);
+		int songCount = Integer.parseInt(option(args, "songs", "100000"));
+		int clients = Integer.parseInt(option(args, "clients", "16"));
+		int seconds = Integer.parseInt(option(args, "seconds", "10"));
+
+		MusicServer server = null;
+		List<Song> songs = SongFixtures.songs(songCount, 42);
+		if (url == null) {
+			MusicList list = new MusicList(true);
+			for (Song song : songs) {
+				list.addSong(song);
+			}
+			server = new MusicServer(list, new MusicQueue());
+			server.start(0);
+			url = "http://127.0.0.1:" + server.getPort();
+		}
+		System.out.printf("Target %s, %,d songs, %d clients, %d s%n", url, songCount, clients, seconds);
+
+		HttpClient client = HttpClient.newHttpClient();
+		String base = url;
+		long[] counts = new long[OPERATIONS.length];
+		AtomicLong errors = new AtomicLong();
+		List<long[]> latencies = new ArrayList<>();
+		List<Thread> threads = new ArrayList<>();
+		long warmupEnd = System.nanoTime() + 2_000_000_000L;
+		long end = warmupEnd + seconds * 1_000_000_000L;
+		for (int c = 0; c < clients; c++) {
+			Random random = new Random(c);
+			Recorder recorder = new Recorder();
+			Thread thread = new Thread(() -> {
+				while (true) {
+					long start = System.nanoTime();
+					if (start >= end) {
+						break;
+					}
+					int operation = pick(random);
+					try {
+						HttpResponse<String> response = client.send(request(base, operation, songs, random),
+								HttpResponse.BodyHandlers.ofString());
+						if (response.statusCode() >= 400) {
+							errors.incrementAndGet();
+						}
+					} catch (IOException e) {
+						errors.incrementAndGet();
+					} catch (InterruptedException e) {
+						return;
+					}
+					if (start >= warmupEnd) {
+						recorder.record(operation, System.nanoTime() - start);
+					}
+				}
+				synchronized (latencies) {
+					latencies.add(Arrays.copyOf(recorder.nanos, recorder.size));
+					for (int i = 0; i < counts.length; i++) {
+						counts[i] += recorder.counts[i];
+					}
+				}
+			});
+			threads.add(thread);
+			thread.start();
+		}
+		for (Thread thread : threads) {
+			thread.join();
+		}
+		if (server != null) {
+			server.stop();
+		}
+
+		long[] all = latencies.stream().flatMapToLong(Arrays::stream).sorted().toArray();
+		System.out.printf("Requests:     %,d (%,d errors)%n", all.length, errors.get());
+		System.out.printf("Requests/sec: %,.0f%n", all.length / (double) seconds);
+		System.out.printf("Latency p50:  %.2f ms%n", percentile(all, 50) / 1e6);
+		System.out.printf("Latency p99:  %.2f ms%n", percentile(all, 99) / 1e6);
+		System.out.printf("Latency max:  %.2f ms%n", all.length == 0 ? 0 : all[all.length - 1] / 1e6);
+		for (int i = 0; i < OPERATIONS.length; i++) {
+			System.out.printf("  %-8s %,d%n", OPERATIONS[i], counts[i]);
+		}
+	}
+
+	/**
+	 * Latencies measured by one client thread.
+	 */
+	private static final class Recorder {
+		long[] nanos = new long[1 << 16];
+		int size;
+		final long[] counts = new long[OPERATIONS.length];
+
+		void record(int operation, long latency) {
+			if (size == nanos.length) {
+				nanos = Arrays.copyOf(nanos, size * 2);
+			}
+			nanos[size++] = latency;
+			counts[operation]++;
+		}
+	}
+
+	private static HttpRequest request(String base, int operation, List<Song> songs, Random random) {
+		Song song = songs.get(random.nextInt(songs.size()));
+		String id = Long.toHexString(song.getId());
+		switch (OPERATIONS[operation]) {
+			case "search":
+				return get(base + "/songs?limit=20&q="
+						+ URLEncoder.encode(SongFixtures.searchTerm(random), StandardCharsets.UTF_8));
+			case "add":
+				return post(base + "/songs", "{\"title\":\"Load " + random.nextInt() + "\",\"artist\":\"Load Test\","
+						+ "\"platform\":\"Spotify\",\"link\":\"https://example.com\",\"releaseDate\":\"2024-01-01\"}");
+			case "enqueue":
+				return post(base + "/queue", "{\"id\":\"" + id + "\",\"priority\":" + random.nextInt(4) + "}");
+			case "dequeue":
+				return post(base + "/queue/dequeue", "");
+			case "queue":
+				return get(base + "/queue?limit=20");
+			default:
+				return get(base + "/songs?sort=title&limit=20");
+		}
+	}
+
+	private static HttpRequest get(String url) {
+		return HttpRequest.newBuilder(URI.create(url)).GET().build();
+	}
+
+	private static HttpRequest post(String url, String body) {
+		return HttpRequest.newBuilder(URI.create(url)).POST(HttpRequest.BodyPublishers.ofString(body)).build();
+	}
+
+	private static int pick(Random random) {
+		int roll = random.nextInt(100);
+		for (int i = 0; i < WEIGHTS.length; i++) {
+			roll -= WEIGHTS[i];
+			if (roll < 0) {
+				return i;
+			}
+		}
+		return WEIGHTS.length - 1;
+	}
+
+	private static long percentile(long[] sorted, int percent) {
+		if (sorted.length == 0) {
+			return 0;
+		}
+		return sorted[(int) Math.min(sorted.length - 1, (long) sorted.length * percent / 100)];
+	}
+
+	private static String option(String[] args, String name, String defaultValue) {
+		for (String arg : args) {
+			if (arg.startsWith("--" + name + "=")) {
+				return arg.substring(name.length() + 3);
+			}
+		}
+		return defaultValue;
+	}
+}
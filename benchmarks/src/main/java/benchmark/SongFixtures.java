@@ -0,0 +1,86 @@
+package benchmark;
+
+import java.time.LocalDate;
+import java.util.ArrayList;
+import java.util.Random;
+
+import data.Song;
+
+/**
+ * Generates deterministic song data for the benchmarks.
+ * The same seed always produces the same library, so runs are comparable.
+ * 
+ * @author Josiah Loomis
+ * @version 1.0
+ */
+public final class SongFixtures {
+
+	private static final String[] PLATFORMS = {"YouTube", "Spotify", "Apple Music", "SoundCloud"};
+	private static final String[] WORDS = {
+			"love", "night", "heart", "fire", "dream", "city", "blue", "rain", "gold", "summer",
+			"light", "road", "ghost", "river", "wild", "stone", "echo", "home", "star", "storm"
+	};
+	private static final int ARTIST_COUNT = 5_000;
+	private static final LocalDate FIRST_RELEASE = LocalDate.of(1960, 1, 1);
+	private static final LocalDate FIRST_ADDED = LocalDate.of(2015, 1, 1);
+	
+	private SongFixtures() {
+	}
+	
+	/**
+	 * Creates the given number of songs with random titles, artists, platforms and dates.
+	 * 
+	 * @param count the number of songs to create
+	 * @param seed the random seed
+	 * @return the generated songs
+	 */
+	public static ArrayList<Song> songs(int count, long seed) {
+		Random random = new Random(seed);
+		ArrayList<Song> songs = new ArrayList<>(count);
+		for (int i = 0; i < count; i++) {
+			songs.add(song(random, i));
+		}
+		return songs;
+	}
+	
+	/**
+	 * Creates the save-file lines of the given number of songs.
+	 * 
+	 * @param count the number of lines to create
+	 * @param seed the random seed
+	 * @return the generated save strings
+	 */
+	public static String[] saveLines(int count, long seed) {
+		Random random = new Random(seed);
+		String[] lines = new String[count];
+		for (int i = 0; i < count; i++) {
+			lines[i] = song(random, i).getAsSaveString();
+		}
+		return lines;
+	}
+	
+	/**
+	 * Picks a search term that matches a realistic share of the generated library.
+	 * 
+	 * @param random the random source
+	 * @return a word used in titles
+	 */
+	public static String searchTerm(Random random) {
+		return WORDS[random.nextInt(WORDS.length)];
+	}
+	
+	private static Song song(Random random, int index) {
+		String title = capitalize(WORDS[random.nextInt(WORDS.length)]) + " "
+				+ WORDS[random.nextInt(WORDS.length)] + " " + index;
+		String artist = "Artist " + random.nextInt(ARTIST_COUNT);
+		String platform = PLATFORMS[random.nextInt(PLATFORMS.length)];
+		String link = "https://example.com/watch?v=" + Long.toHexString(random.nextLong());
+		LocalDate releaseDate = FIRST_RELEASE.plusDays(random.nextInt(23_000));
+		LocalDate dateAdded = FIRST_ADDED.plusDays(random.nextInt(4_000));
+		return new Song(title, artist, platform, link, releaseDate, dateAdded);
+	}
+	
+	private static String capitalize(String word) {
+		return Character.toUpperCase(word.charAt(0)) + word.substring(1);
+	}
+}
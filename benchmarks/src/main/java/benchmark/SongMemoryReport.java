@@ -0,0 +1,240 @@
+package benchmark;
+
+import java.io.IOException;
+import java.lang.management.ManagementFactory;
+import java.lang.reflect.Array;
+import java.lang.reflect.Field;
+import java.lang.reflect.Modifier;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.time.LocalDate;
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.IdentityHashMap;
+import java.util.List;
+import java.util.Set;
+
+import data.Song;
+import data.StringDictionary;
+
+/**
+ * Prints the heap retained per song when a library is loaded from save lines.
+ * 
+ * Both figures come from the same accounting over the same loaded songs: a
+ * walk of the object graph that adds up the shallow size of every object
+ * reachable from the songs, JOL-style (64-bit JVM with compressed oops and
+ * class pointers: 12-byte object headers, 16-byte array headers, 4-byte
+ * references, 8-byte alignment).
+ * "after" counts every object once, so a dictionary string shared by many
+ * songs is counted once. "before" counts the strings in the fields that go
+ * through StringDictionary (artist, platform and their normalized forms) once
+ * per song, which is what every song held before the dictionary.
+ * The heap growth measured by the JVM is printed next to them as a check.
+ * 
+ * Run with: java -cp benchmarks/target/benchmarks.jar benchmark.SongMemoryReport [songs | save file]
+ * 
+ * @author Josiah Loomis
+ * @version 1.0
+ */
+public class SongMemoryReport {
+	
+	private static final int HEADER = 12;
+	private static final int ARRAY_HEADER = 16;
+	private static final int REFERENCE = 4;
+	
+	/** Song fields whose strings were private to each song before the dictionary */
+	private static final Set<String> DICTIONARY_FIELDS =
+			Set.of("artist", "platform", "normalizedArtist", "normalizedPlatform");
+	
+	private static final HashMap<Class<?>, ArrayList<Field>> FIELDS = new HashMap<>();
+	private static final HashMap<Class<?>, Long> SIZES = new HashMap<>();
+	
+	public static void main(String[] args) throws IOException, IllegalAccessException {
+		String[] lines;
+		if (args.length > 0 && !args[0].chars().allMatch(Character::isDigit)) {
+			lines = Files.readAllLines(Path.of(args[0])).toArray(new String[0]);
+		} else {
+			lines = SongFixtures.saveLines(args.length > 0 ? Integer.parseInt(args[0]) : 1_000_000, 42);
+		}
+		int count = lines.length;
+		
+		long baseline = usedHeap();
+		ArrayList<Song> songs = new ArrayList<>(count);
+		for (String line : lines) {
+			Song song = new Song(line);
+			// Fill the search caches, as indexing the list does
+			song.getNormalizedTitle();
+			song.getNormalizedArtist();
+			song.getNormalizedPlatform();
+			songs.add(song);
+		}
+		long measured = usedHeap() - baseline;
+		
+		long after = retained(songs, false);
+		long before = retained(songs, true);
+		
+		System.out.printf("Songs loaded:             %,d%n", count);
+		System.out.printf("Distinct artists:         %,d%n", StringDictionary.ARTISTS.size());
+		System.out.printf("Distinct platforms:       %,d%n", StringDictionary.PLATFORMS.size());
+		System.out.printf("Retained per song before: %,d bytes%n", before / count);
+		System.out.printf("Retained per song after:  %,d bytes%n", after / count);
+		System.out.printf("Saved at %,d songs:       %,d MB%n", count, (before - after) / (1024 * 1024));
+		if (measured > 0) {
+			// Too small a library gets lost in GC noise
+			System.out.printf("Heap growth per song (JVM): %,d bytes%n", measured / count);
+		}
+	}
+	
+	/**
+	 * Adds up the shallow sizes of the objects reachable from the songs.
+	 *
+	 * @param songs the loaded songs
+	 * @param privateDictionaryFields true to count the dictionary fields' strings once per song
+	 * @return the retained size in bytes
+	 */
+	private static long retained(List<Song> songs, boolean privateDictionaryFields) throws IllegalAccessException {
+		Set<Object> seen = Collections.newSetFromMap(new IdentityHashMap<>());
+		ArrayDeque<Object> pending = new ArrayDeque<>();
+		long total = 0;
+		pending.push(songs);
+		while (!pending.isEmpty()) {
+			Object object = pending.pop();
+			if (!seen.add(object)) {
+				continue;
+			}
+			total += shallowSize(object);
+			if (!(object instanceof Song && privateDictionaryFields)) {
+				pushReferences(object, pending);
+				continue;
+			}
+			
+			// A normalized form equal to its field was the same instance, so dedupe per song
+			Set<Object> ownCopies = Collections.newSetFromMap(new IdentityHashMap<>());
+			for (Field field : fields(Song.class)) {
+				Object value = field.get(object);
+				if (value == null) {
+					continue;
+				}
+				if (!DICTIONARY_FIELDS.contains(field.getName())) {
+					pending.push(value);
+				} else if (ownCopies.add(value)) {
+					total += shallowSize(value);
+				}
+			}
+		}
+		return total;
+	}
+	
+	private static void pushReferences(Object object, ArrayDeque<Object> pending) throws IllegalAccessException {
+		Class<?> type = object.getClass();
+		if (type.isArray()) {
+			if (!type.getComponentType().isPrimitive()) {
+				for (Object element : (Object[]) object) {
+					if (element != null) {
+						pending.push(element);
+					}
+				}
+			}
+		} else if (object instanceof List) {
+			// JDK collections cannot be read by reflection, walk their elements instead
+			for (Object element : (List<?>) object) {
+				if (element != null) {
+					pending.push(element);
+				}
+			}
+		} else if (type.getName().startsWith("data.")) {
+			for (Field field : fields(type)) {
+				Object value = field.get(object);
+				if (value != null) {
+					pending.push(value);
+				}
+			}
+		} else if (!(object instanceof String || object instanceof LocalDate || object instanceof Boolean
+				|| object instanceof Number)) {
+			throw new IllegalStateException("No size for " + type.getName());
+		}
+	}
+	
+	/**
+	 * Gets the size of the object alone. A String includes its byte array,
+	 * Latin-1 when every char fits (compact strings) or two bytes per char.
+	 * Lists are counted as an ArrayList with an exactly sized element array.
+	 */
+	private static long shallowSize(Object object) {
+		Class<?> type = object.getClass();
+		if (type.isArray()) {
+			int length = Array.getLength(object);
+			return align(ARRAY_HEADER + (long) length * elementSize(type.getComponentType()));
+		}
+		if (object instanceof String) {
+			String string = (String) object;
+			boolean latin1 = string.chars().allMatch(c -> c < 256);
+			return instanceSize(String.class) + align(ARRAY_HEADER + (long) string.length() * (latin1 ? 1 : 2));
+		}
+		if (object instanceof List) {
+			return instanceSize(ArrayList.class) + align(ARRAY_HEADER + (long) ((List<?>) object).size() * REFERENCE);
+		}
+		return instanceSize(type);
+	}
+	
+	private static long instanceSize(Class<?> type) {
+		return SIZES.computeIfAbsent(type, t -> {
+			long size = HEADER;
+			for (Class<?> c = t; c != null; c = c.getSuperclass()) {
+				for (Field field : c.getDeclaredFields()) {
+					if (!Modifier.isStatic(field.getModifiers())) {
+						size += elementSize(field.getType());
+					}
+				}
+			}
+			return align(size);
+		});
+	}
+	
+	private static int elementSize(Class<?> type) {
+		if (type == long.class || type == double.class) {
+			return 8;
+		}
+		if (type == int.class || type == float.class) {
+			return 4;
+		}
+		if (type == short.class || type == char.class) {
+			return 2;
+		}
+		if (type == byte.class || type == boolean.class) {
+			return 1;
+		}
+		return REFERENCE;
+	}
+	
+	private static long align(long size) {
+		return (size + 7) & ~7L;
+	}
+	
+	/**
+	 * Gets the instance fields holding references, made readable.
+	 */
+	private static ArrayList<Field> fields(Class<?> type) {
+		return FIELDS.computeIfAbsent(type, t -> {
+			ArrayList<Field> fields = new ArrayList<>();
+			for (Class<?> c = t; c != Object.class; c = c.getSuperclass()) {
+				for (Field field : c.getDeclaredFields()) {
+					if (!Modifier.isStatic(field.getModifiers()) && !field.getType().isPrimitive()) {
+						field.setAccessible(true);
+						fields.add(field);
+					}
+				}
+			}
+			return fields;
+		});
+	}
+	
+	private static long usedHeap() {
+		for (int i = 0; i < 5; i++) {
+			System.gc();
+		}
+		return ManagementFactory.getMemoryMXBean().getHeapMemoryUsage().getUsed();
+	}
+}
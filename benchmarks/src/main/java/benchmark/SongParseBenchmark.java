@@ -0,0 +1,92 @@
+package benchmark;
+
+import java.nio.charset.StandardCharsets;
+import java.time.LocalDate;
+import java.util.concurrent.TimeUnit;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+import org.openjdk.jmh.infra.Blackhole;
+
+import data.Song;
+import data.SongParser;
+
+/**
+ * Benchmarks parsing a whole save file worth of lines, with the Song(String)
+ * constructor and with a SongParser over Strings and over UTF-8 bytes.
+ * parseSaveLinesWithSplit repeats the split and LocalDate.parse approach the
+ * constructor used before SongParser, as the baseline.
+ * 
+ * @author Josiah Loomis
+ * @version 1.0
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode({Mode.Throughput, Mode.AverageTime})
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+public class SongParseBenchmark {
+
+	@Param({"1000", "10000", "100000", "1000000"})
+	public int size;
+	
+	private String[] lines;
+	private byte[][] lineBytes;
+	
+	@Setup(Level.Trial)
+	public void setUp() {
+		lines = SongFixtures.saveLines(size, 42);
+		lineBytes = new byte[lines.length][];
+		for (int i = 0; i < lines.length; i++) {
+			lineBytes[i] = lines[i].getBytes(StandardCharsets.UTF_8);
+		}
+	}
+	
+	@Benchmark
+	public void parseSaveLines(Blackhole blackhole) {
+		for (String line : lines) {
+			blackhole.consume(new Song(line));
+		}
+	}
+	
+	@Benchmark
+	public void parseSaveLinesWithParser(Blackhole blackhole) {
+		SongParser parser = new SongParser();
+		for (String line : lines) {
+			blackhole.consume(parser.parse(line));
+		}
+	}
+	
+	@Benchmark
+	public void parseSaveLineBytesWithParser(Blackhole blackhole) {
+		SongParser parser = new SongParser();
+		for (byte[] line : lineBytes) {
+			blackhole.consume(parser.parse(line, 0, line.length));
+		}
+	}
+	
+	@Benchmark
+	public void parseSaveLinesWithSplit(Blackhole blackhole) {
+		for (String line : lines) {
+			String[] parts = line.split("\\|");
+			Song song = new Song(parts[0], parts[1], parts[2], parts[3], LocalDate.parse(parts[4]), LocalDate.parse(parts[5]));
+			for (int i = 6; i < parts.length; i++) {
+				if (parts[i].startsWith("id=")) {
+					blackhole.consume(Long.parseUnsignedLong(parts[i].substring(3), 16));
+				}
+			}
+			blackhole.consume(song);
+		}
+	}
+}
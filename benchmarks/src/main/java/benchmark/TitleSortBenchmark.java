@@ -0,0 +1,76 @@
+package benchmark;
+
+import java.util.ArrayList;
+import java.util.concurrent.TimeUnit;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import data.SelectionSort;
+import data.Song;
+import data.SongSorter;
+import data.TitleKeySort;
+import data.TitleRadixSort;
+
+/**
+ * Compares the title sorters on the same shuffled library.
+ * SelectionSort is quadratic, so only run it with small sizes, e.g.
+ * -p sorter=selection -p size=1000,10000,100000
+ * 
+ * @author Josiah Loomis
+ * @version 1.0
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode({Mode.Throughput, Mode.AverageTime})
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+public class TitleSortBenchmark {
+
+	@Param({"1000", "10000", "100000", "1000000"})
+	public int size;
+	
+	@Param({"keyed", "radix"})
+	public String sorter;
+	
+	private ArrayList<Song> songs;
+	private SongSorter songSorter;
+	private ArrayList<Song> working;
+	
+	@Setup(Level.Trial)
+	public void setUp() {
+		songs = SongFixtures.songs(size, 42);
+		switch (sorter) {
+			case "selection":
+				songSorter = new SelectionSort();
+				break;
+			case "radix":
+				songSorter = new TitleRadixSort();
+				break;
+			default:
+				songSorter = new TitleKeySort();
+		}
+	}
+	
+	@Setup(Level.Invocation)
+	public void copy() {
+		working = new ArrayList<>(songs);
+	}
+	
+	@Benchmark
+	public ArrayList<Song> sortByTitle() {
+		songSorter.sort(working);
+		return working;
+	}
+}
@@ -0,0 +1,80 @@
+package data;
+
+import java.io.BufferedOutputStream;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.nio.channels.FileChannel;
+import java.nio.file.AtomicMoveNotSupportedException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.nio.file.StandardOpenOption;
+
+/**
+ * Replaces files without ever leaving a half-written one behind.
+ * 
+ * The new contents go to a temporary file next to the target, are synced to
+ * disk and then moved over the target in one step, and the directory is
+ * synced so the move is on disk too. A crash leaves either the old file or
+ * the new one. Every write gets its own temporary file, so two writers of
+ * the same target never share one; the last move wins.
+ * 
+ * @author Josiah Loomis
+ * @version 1.0
+ */
+final class AtomicFiles {
+	
+	/**
+	 * Writes the contents of a file.
+	 */
+	interface Content {
+		void writeTo(OutputStream out) throws IOException;
+	}
+	
+	private AtomicFiles() {
+	}
+	
+	/**
+	 * Replaces the file at path with the given contents.
+	 * 
+	 * @param path the file to replace or create
+	 * @param content writes the new contents, buffered
+	 * @return the number of bytes written
+	 * @throws IOException if the file cannot be written; the old file is left as it was
+	 */
+	static long write(Path path, Content content) throws IOException {
+		Path directory = path.toAbsolutePath().getParent();
+		Path temp = Files.createTempFile(directory, path.getFileName() + ".", ".tmp");
+		try {
+			try (OutputStream out = new BufferedOutputStream(Files.newOutputStream(temp), 1 << 16)) {
+				content.writeTo(out);
+			}
+			long size;
+			try (FileChannel channel = FileChannel.open(temp, StandardOpenOption.WRITE)) {
+				channel.force(true);
+				size = channel.size();
+			}
+			try {
+				Files.move(temp, path, StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+			} catch (AtomicMoveNotSupportedException e) {
+				Files.move(temp, path, StandardCopyOption.REPLACE_EXISTING);
+			}
+			syncDirectory(directory);
+			return size;
+		} finally {
+			Files.deleteIfExists(temp);
+		}
+	}
+	
+	/**
+	 * Syncs a directory's entries to disk. Some systems, such as Windows,
+	 * cannot open a directory; their moves are left to the file system.
+	 */
+	private static void syncDirectory(Path directory) {
+		try (FileChannel channel = FileChannel.open(directory, StandardOpenOption.READ)) {
+			channel.force(true);
+		} catch (IOException e) {
+			// Not supported here
+		}
+	}
+}
@@ -0,0 +1,131 @@
+package data;
+
+/**
+ * Counters kept by CheckpointScheduler for one registered target.
+ * All times are in nanoseconds. Safe to read from any thread.
+ * 
+ * @author Josiah Loomis
+ * @version 1.0
+ */
+public final class CheckpointMetrics {
+	
+	private final String name;
+	private long checkpoints;
+	private long skipped;
+	private long failures;
+	private long bytesWritten;
+	private long lastBytes;
+	private long lastCaptureNanos;
+	private long lastLatencyNanos;
+	private long maxLatencyNanos;
+	
+	CheckpointMetrics(String name) {
+		this.name = name;
+	}
+	
+	synchronized void recordCheckpoint(long captureNanos, long latencyNanos, long bytes) {
+		checkpoints++;
+		bytesWritten += bytes;
+		lastBytes = bytes;
+		lastCaptureNanos = captureNanos;
+		lastLatencyNanos = latencyNanos;
+		maxLatencyNanos = Math.max(maxLatencyNanos, latencyNanos);
+	}
+	
+	synchronized void recordSkipped() {
+		skipped++;
+	}
+	
+	synchronized void recordFailure() {
+		failures++;
+	}
+	
+	/**
+	 * Gets the name the target was registered under.
+	 * 
+	 * @return the name
+	 */
+	public String getName() {
+		return name;
+	}
+	
+	/**
+	 * Gets the number of checkpoints written.
+	 * 
+	 * @return the checkpoint count
+	 */
+	public synchronized long getCheckpoints() {
+		return checkpoints;
+	}
+	
+	/**
+	 * Gets the number of checkpoints skipped because nothing had changed.
+	 * 
+	 * @return the skipped count
+	 */
+	public synchronized long getSkipped() {
+		return skipped;
+	}
+	
+	/**
+	 * Gets the number of checkpoints that failed.
+	 * 
+	 * @return the failure count
+	 */
+	public synchronized long getFailures() {
+		return failures;
+	}
+	
+	/**
+	 * Gets the total bytes written by all checkpoints.
+	 * 
+	 * @return the bytes written
+	 */
+	public synchronized long getBytesWritten() {
+		return bytesWritten;
+	}
+	
+	/**
+	 * Gets the bytes written by the last checkpoint.
+	 * 
+	 * @return the size of the last checkpoint
+	 */
+	public synchronized long getLastBytes() {
+		return lastBytes;
+	}
+	
+	/**
+	 * Gets how long the last checkpoint held the capturing thread.
+	 * 
+	 * @return the capture time of the last checkpoint
+	 */
+	public synchronized long getLastCaptureNanos() {
+		return lastCaptureNanos;
+	}
+	
+	/**
+	 * Gets how long the last checkpoint took from capture to the file being in place.
+	 * 
+	 * @return the latency of the last checkpoint
+	 */
+	public synchronized long getLastLatencyNanos() {
+		return lastLatencyNanos;
+	}
+	
+	/**
+	 * Gets the longest checkpoint latency so far.
+	 * 
+	 * @return the maximum latency
+	 */
+	public synchronized long getMaxLatencyNanos() {
+		return maxLatencyNanos;
+	}
+	
+	@Override
+	public synchronized String toString() {
+		return String.format("%s: %d checkpoints, %d skipped, %d failed, %d bytes (last %d), "
+				+ "latency last %.1f ms max %.1f ms, capture %.2f ms",
+				name, checkpoints, skipped, failures, bytesWritten, lastBytes,
+				lastLatencyNanos / 1e6, maxLatencyNanos / 1e6, lastCaptureNanos / 1e6);
+	}
+}
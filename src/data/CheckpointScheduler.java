@@ -0,0 +1,187 @@
+package data;
+
+import java.io.IOException;
+import java.util.List;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.Executor;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Periodically saves registered Checkpointables on a background thread.
+ *
+ * Each round, every target's state is captured on the capture executor (the
+ * Swing event thread in the app, so the copy is consistent with GUI changes)
+ * and then written on the scheduler's own thread. Targets whose modification
+ * count has not changed since their last checkpoint are skipped.
+ * Latency and bytes written are kept per target in a CheckpointMetrics.
+ *
+ * @author Josiah Loomis
+ * @version 1.0
+ */
+public final class CheckpointScheduler implements AutoCloseable {
+	
+	/** Default time between checkpoints */
+	public static final long DEFAULT_INTERVAL_MS = 30_000;
+	
+	/** Longest close waits for a checkpoint being written */
+	static final long CLOSE_TIMEOUT_MS = 5_000;
+	
+	private final Executor captureExecutor;
+	private final long intervalMillis;
+	private final List<Target> targets = new CopyOnWriteArrayList<>();
+	private final ScheduledExecutorService worker = Executors.newSingleThreadScheduledExecutor(task -> {
+		Thread thread = new Thread(task, "checkpoint-scheduler");
+		thread.setDaemon(true);
+		return thread;
+	});
+	
+	/**
+	 * A registered target and the modification count it was last saved at.
+	 */
+	private static final class Target {
+		final Checkpointable source;
+		final Executor captureExecutor;
+		final CheckpointMetrics metrics;
+		volatile long savedModCount;
+	
+		Target(Checkpointable source, Executor captureExecutor, CheckpointMetrics metrics) {
+			this.source = source;
+			this.captureExecutor = captureExecutor;
+			this.metrics = metrics;
+		}
+	}
+	
+	/**
+	 * A captured state waiting to be written.
+	 */
+	private static final class Capture {
+		final long modCount;
+		final long captureNanos;
+		final Checkpointable.Writer writer;
+	
+		Capture(long modCount, long captureNanos, Checkpointable.Writer writer) {
+			this.modCount = modCount;
+			this.captureNanos = captureNanos;
+			this.writer = writer;
+		}
+	}
+	
+	/**
+	 * Creates a scheduler. Nothing runs until start is called.
+	 *
+	 * @param captureExecutor runs the captures, on the thread that changes the targets
+	 * @param intervalMillis the time between checkpoints
+	 */
+	public CheckpointScheduler(Executor captureExecutor, long intervalMillis) {
+		this.captureExecutor = captureExecutor;
+		this.intervalMillis = intervalMillis;
+	}
+	
+	/**
+	 * Adds a target. Its current state counts as saved, so it is first written
+	 * after it changes. Must be called on the thread that changes the target.
+	 *
+	 * @param name the name shown in the metrics
+	 * @param source the target to checkpoint
+	 * @return the target's metrics
+	 */
+	public CheckpointMetrics register(String name, Checkpointable source) {
+		return register(name, source, captureExecutor);
+	}
+	
+	/**
+	 * Adds a target that is changed on another thread than the other targets.
+	 * Its state is captured on the given executor instead.
+	 *
+	 * @param name the name shown in the metrics
+	 * @param source the target to checkpoint
+	 * @param captureExecutor runs this target's captures, on the thread that changes it
+	 * @return the target's metrics
+	 */
+	public CheckpointMetrics register(String name, Checkpointable source, Executor captureExecutor) {
+		Target target = new Target(source, captureExecutor, new CheckpointMetrics(name));
+		target.savedModCount = source.getModCount();
+		targets.add(target);
+		return target.metrics;
+	}
+	
+	/**
+	 * Starts checkpointing every interval.
+	 */
+	public void start() {
+		worker.scheduleWithFixedDelay(this::checkpointNow, intervalMillis, intervalMillis, TimeUnit.MILLISECONDS);
+	}
+	
+	/**
+	 * Checkpoints every changed target now and waits for it to finish.
+	 * Must not be called on the capture executor's thread.
+	 */
+	public synchronized void checkpointNow() {
+		for (Target target : targets) {
+			long start = System.nanoTime();
+			try {
+				Capture capture = CompletableFuture.supplyAsync(() -> capture(target), target.captureExecutor).get();
+				if (capture == null) {
+					target.metrics.recordSkipped();
+					continue;
+				}
+				long bytes = capture.writer.write();
+				target.savedModCount = capture.modCount;
+				target.metrics.recordCheckpoint(capture.captureNanos, System.nanoTime() - start, bytes);
+			} catch (InterruptedException e) {
+				Thread.currentThread().interrupt();
+				return;
+			} catch (ExecutionException | IOException | RuntimeException e) {
+				target.metrics.recordFailure();
+				Throwable cause = e instanceof ExecutionException ? e.getCause() : e;
+				System.err.println("Error checkpointing " + target.metrics.getName() + ": " + cause);
+			}
+		}
+	}
+	
+	/**
+	 * Gets the metrics of every target in registration order.
+	 *
+	 * @return the metrics
+	 */
+	public List<CheckpointMetrics> getMetrics() {
+		return targets.stream().map(target -> target.metrics).toList();
+	}
+	
+	/**
+	 * Stops checkpointing and waits for a checkpoint already being written to
+	 * finish, so a save made after close is never overwritten by an older one.
+	 * After CLOSE_TIMEOUT_MS, for example while a capture waits for a capture
+	 * executor that is itself shutting down, the checkpoint is interrupted.
+	 */
+	@Override
+	public void close() {
+		worker.shutdown();
+		try {
+			if (!worker.awaitTermination(CLOSE_TIMEOUT_MS, TimeUnit.MILLISECONDS)) {
+				worker.shutdownNow();
+				worker.awaitTermination(CLOSE_TIMEOUT_MS, TimeUnit.MILLISECONDS);
+			}
+		} catch (InterruptedException e) {
+			worker.shutdownNow();
+			Thread.currentThread().interrupt();
+		}
+	}
+	
+	/**
+	 * Runs on the capture executor. Returns null when the target has not changed.
+	 */
+	private static Capture capture(Target target) {
+		long start = System.nanoTime();
+		long modCount = target.source.getModCount();
+		if (modCount == target.savedModCount) {
+			return null;
+		}
+		Checkpointable.Writer writer = target.source.captureCheckpoint();
+		return new Capture(modCount, System.nanoTime() - start, writer);
+	}
+}
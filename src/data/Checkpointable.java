@@ -0,0 +1,41 @@
+package data;
+
+import java.io.IOException;
+
+/**
+ * Something whose state CheckpointScheduler can save in the background.
+ * 
+ * Saving happens in two steps. captureCheckpoint runs on the thread that
+ * changes the state and takes a consistent copy of it, as cheaply as it can.
+ * The Writer it returns then writes that copy on a background thread.
+ * 
+ * @author Josiah Loomis
+ * @version 1.0
+ */
+public interface Checkpointable {
+	
+	/**
+	 * Writes a captured state to disk.
+	 */
+	interface Writer {
+		/**
+		 * @return the number of bytes written
+		 * @throws IOException if the state cannot be written
+		 */
+		long write() throws IOException;
+	}
+	
+	/**
+	 * Gets a counter that changes whenever the state changes.
+	 * 
+	 * @return the modification count
+	 */
+	long getModCount();
+	
+	/**
+	 * Takes a copy of the current state.
+	 * 
+	 * @return the writer that saves the copy
+	 */
+	Writer captureCheckpoint();
+}
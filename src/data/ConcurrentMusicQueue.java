@@ -0,0 +1,197 @@
+package data;
+
+import java.util.ArrayList;
+import java.util.Iterator;
+import java.util.NoSuchElementException;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * A music queue that any number of threads can enqueue to without locking,
+ * drained by a single consumer thread.
+ *
+ * Uses the priority levels of MusicQueue: higher levels are dequeued first,
+ * and songs of the same level come out in the order their enqueue calls
+ * took effect. Each level is a lock-free ConcurrentLinkedQueue, and an
+ * atomic bit mask marks the levels that may have songs so the consumer
+ * does not poll empty levels. Producers set a level's bit after adding to
+ * it; the consumer clears the bit when it finds the level empty and checks
+ * again, so a song added at the same moment is never missed.
+ *
+ * Unlike MusicQueue there are no handles, since entries cannot be removed
+ * from the middle while producers are adding.
+ *
+ * @author Josiah Loomis
+ * @version 1.0
+ */
+public final class ConcurrentMusicQueue implements Iterable<Song> {
+	
+	@SuppressWarnings({"unchecked", "rawtypes"})
+	private final ConcurrentLinkedQueue<Song>[] levels = new ConcurrentLinkedQueue[MusicQueue.MAX_PRIORITY + 1];
+	private final AtomicInteger occupied = new AtomicInteger(); // bit n is set when level n may have songs
+	private final AtomicLong sequenceCounter = new AtomicLong();
+	private final LongAdder size = new LongAdder();
+	
+	/**
+	 * Creates an empty queue.
+	 */
+	public ConcurrentMusicQueue() {
+		for (int i = 0; i < levels.length; i++) {
+			levels[i] = new ConcurrentLinkedQueue<>();
+		}
+	}
+	
+	/**
+	 * Adds a song with the specified priority status. Safe to call from any thread.
+	 * Priority songs are queued at HIGH and the rest at NORMAL.
+	 *
+	 * @param song the song to add to the queue
+	 * @param priorityQueue true if the song should have priority, false otherwise
+	 */
+	public void enqueue(Song song, Boolean priorityQueue) {
+		enqueue(song, Boolean.TRUE.equals(priorityQueue) ? MusicQueue.HIGH : MusicQueue.NORMAL);
+	}
+	
+	/**
+	 * Adds a song at the given priority level. Safe to call from any thread.
+	 *
+	 * @param song the song to add to the queue
+	 * @param priority the level, from MusicQueue.BACKGROUND (0) to MusicQueue.MAX_PRIORITY
+	 * @throws IllegalArgumentException if the level is out of range
+	 */
+	public void enqueue(Song song, int priority) {
+		if (priority < 0 || priority > MusicQueue.MAX_PRIORITY) {
+			throw new IllegalArgumentException("Priority must be from 0 to " + MusicQueue.MAX_PRIORITY + ": " + priority);
+		}
+		Song queuedSong = song.clone();
+		queuedSong.setQueuePriority(priority);
+		queuedSong.setPriorityQueued(priority > MusicQueue.NORMAL);
+		queuedSong.setQueueSequence(sequenceCounter.getAndIncrement());
+		levels[priority].offer(queuedSong);
+		size.increment();
+		int bit = 1 << priority;
+		if ((occupied.get() & bit) == 0) {
+			occupied.getAndUpdate(mask -> mask | bit);
+		}
+	}
+	
+	/**
+	 * Removes and returns the highest priority song.
+	 * Must only be called from the consumer thread.
+	 *
+	 * @return the highest priority song, or null if the queue is empty
+	 */
+	public Song dequeue() {
+		int level = topLevel();
+		if (level < 0) {
+			return null;
+		}
+		// Only the consumer removes, so the level is still non-empty
+		Song song = levels[level].poll();
+		size.decrement();
+		return song;
+	}
+	
+	/**
+	 * Returns the highest priority song without removing it.
+	 * Must only be called from the consumer thread.
+	 *
+	 * @return the highest priority song, or null if the queue is empty
+	 */
+	public Song peek() {
+		int level = topLevel();
+		return level < 0 ? null : levels[level].peek();
+	}
+	
+	/**
+	 * Checks if the queue is empty. Songs being added by other threads may
+	 * not be seen yet.
+	 *
+	 * @return true if the queue contains no songs, false otherwise
+	 */
+	public boolean isEmpty() {
+		return size() == 0;
+	}
+	
+	/**
+	 * Gets the number of songs in the queue. Songs being added or removed
+	 * by other threads may not be counted yet.
+	 *
+	 * @return the size of the queue
+	 */
+	public int size() {
+		return (int) Math.max(0, size.sum());
+	}
+	
+	/**
+	 * Returns the songs in the order they will be dequeued, as far as they can
+	 * be seen while other threads add to the queue.
+	 *
+	 * @return an ArrayList of songs in priority order
+	 */
+	public ArrayList<Song> getAllSongs() {
+		ArrayList<Song> songs = new ArrayList<>(size());
+		for (Song song : this) {
+			songs.add(song);
+		}
+		return songs;
+	}
+	
+	/**
+	 * Iterates over the songs in priority order. The iterator is weakly
+	 * consistent: it never fails, and may or may not show songs added
+	 * after it was created.
+	 *
+	 * @return an iterator over the queued songs
+	 */
+	@Override
+	public Iterator<Song> iterator() {
+		return new Iterator<Song>() {
+			private int level = MusicQueue.MAX_PRIORITY;
+			private Iterator<Song> current = levels[level].iterator();
+			
+			@Override
+			public boolean hasNext() {
+				while (!current.hasNext() && level > 0) {
+					current = levels[--level].iterator();
+				}
+				return current.hasNext();
+			}
+			
+			@Override
+			public Song next() {
+				if (!hasNext()) {
+					throw new NoSuchElementException();
+				}
+				return current.next();
+			}
+		};
+	}
+	
+	/**
+	 * Finds the highest non-empty level, clearing the bits of levels that
+	 * turn out to be empty.
+	 *
+	 * @return the level, or -1 if every level is empty
+	 */
+	private int topLevel() {
+		int mask = occupied.get();
+		while (mask != 0) {
+			int level = 31 - Integer.numberOfLeadingZeros(mask);
+			if (!levels[level].isEmpty()) {
+				return level;
+			}
+			int bit = 1 << level;
+			occupied.getAndUpdate(bits -> bits & ~bit);
+			if (!levels[level].isEmpty()) {
+				// A producer added after the check and may have seen the bit still set
+				occupied.getAndUpdate(bits -> bits | bit);
+				return level;
+			}
+			mask &= ~bit;
+		}
+		return -1;
+	}
+}
@@ -0,0 +1,374 @@
+package data;
+
+import java.time.LocalDate;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Comparator;
+import java.util.function.Function;
+
+/**
+ * Songs kept sorted by one of their dates, for the sort-by-date views of MusicList.
+ *
+ * A B+ tree keyed by the date as an epoch day, then the song id, so every
+ * song has its own place and no two keys tie. Keys are kept in primitive
+ * arrays of up to CAPACITY entries per node and the leaves are linked in
+ * order, which keeps the index small and its walks fast. Adding or removing
+ * a song is O(log n), and the sorted order is read by walking the leaves:
+ * O(n) for all songs and O(offset + limit) for a page, with no sorting.
+ *
+ * Songs without the date sort first. A song listed more than once is counted,
+ * and appears that many times in a row. Removing does not merge nodes; once
+ * most of the leaf space is empty the tree is rebuilt packed, in O(n).
+ *
+ * The date of a song must not change while it is indexed.
+ *
+ * @author Josiah Loomis
+ * @version 1.0
+ */
+class DateIndex {
+	
+	/** Entries per node */
+	static final int CAPACITY = 64;
+	
+	/**
+	 * Keys shared by both kinds of node. In an inner node, key i is the
+	 * smallest key that goes to child i, and key 0 is not used for searching.
+	 */
+	private abstract static class Node {
+		final long[] days = new long[CAPACITY];
+		final long[] ids = new long[CAPACITY];
+		int size;
+	}
+	
+	private static final class Leaf extends Node {
+		final Song[] songs = new Song[CAPACITY];
+		final int[] counts = new int[CAPACITY];
+		Leaf next;
+		
+		/**
+		 * Finds the first position whose key is not less than the given key.
+		 */
+		int lowerBound(long day, long id) {
+			int lo = 0;
+			int hi = size;
+			while (lo < hi) {
+				int mid = (lo + hi) >>> 1;
+				if (compare(days[mid], ids[mid], day, id) < 0) {
+					lo = mid + 1;
+				} else {
+					hi = mid;
+				}
+			}
+			return lo;
+		}
+		
+		boolean holds(int position, long day, long id) {
+			return position < size && days[position] == day && ids[position] == id;
+		}
+	}
+	
+	private static final class Inner extends Node {
+		final Node[] children = new Node[CAPACITY];
+		
+		/**
+		 * Finds the child whose range holds the key.
+		 */
+		int childIndex(long day, long id) {
+			int lo = 1;
+			int hi = size;
+			while (lo < hi) {
+				int mid = (lo + hi) >>> 1;
+				if (compare(days[mid], ids[mid], day, id) <= 0) {
+					lo = mid + 1;
+				} else {
+					hi = mid;
+				}
+			}
+			return lo - 1;
+		}
+	}
+	
+	private final Function<Song, LocalDate> date;
+	private Node root;
+	private Leaf first;
+	private int leafCount;
+	private int keyCount; // Distinct songs
+	private int size; // Listings, counting repeats
+	
+	/**
+	 * Creates an empty index.
+	 *
+	 * @param date gets the date to sort a song by, or null if it has none
+	 */
+	DateIndex(Function<Song, LocalDate> date) {
+		this.date = date;
+		clear();
+	}
+	
+	/**
+	 * Gets the order the index keeps, for sorting songs the same way without it.
+	 *
+	 * @return the comparator
+	 */
+	Comparator<Song> order() {
+		Comparator<Song> byDay = Comparator.comparingLong(song -> epochDay(date.apply(song)));
+		return byDay.thenComparingLong(Song::getId);
+	}
+	
+	/**
+	 * Records one listing of the song.
+	 *
+	 * @param song the song
+	 */
+	void add(Song song) {
+		Node split = insert(root, epochDay(date.apply(song)), song.getId(), song);
+		if (split != null) {
+			// The root split, the tree grows by one level
+			Inner newRoot = new Inner();
+			newRoot.children[0] = root;
+			newRoot.children[1] = split;
+			newRoot.days[1] = split.days[0];
+			newRoot.ids[1] = split.ids[0];
+			newRoot.size = 2;
+			root = newRoot;
+		}
+		size++;
+	}
+	
+	/**
+	 * Removes one listing of the song, if it is indexed.
+	 *
+	 * @param song the song
+	 */
+	void remove(Song song) {
+		long day = epochDay(date.apply(song));
+		long id = song.getId();
+		Node node = root;
+		while (node instanceof Inner) {
+			Inner inner = (Inner) node;
+			node = inner.children[inner.childIndex(day, id)];
+		}
+		Leaf leaf = (Leaf) node;
+		int position = leaf.lowerBound(day, id);
+		if (!leaf.holds(position, day, id)) {
+			return;
+		}
+		size--;
+		if (--leaf.counts[position] > 0) {
+			return;
+		}
+		removeAt(leaf, position);
+		keyCount--;
+		if (leafCount > 4 && keyCount < leafCount * (CAPACITY / 8)) {
+			rebuild();
+		}
+	}
+	
+	/**
+	 * Drops everything from the index.
+	 */
+	void clear() {
+		first = new Leaf();
+		root = first;
+		leafCount = 1;
+		keyCount = 0;
+		size = 0;
+	}
+	
+	/**
+	 * Gets the number of listings indexed.
+	 *
+	 * @return the size
+	 */
+	int size() {
+		return size;
+	}
+	
+	/**
+	 * Gets a range of the listings in date order, walking only as far as the range.
+	 *
+	 * @param offset the number of listings to skip
+	 * @param limit the most listings to return
+	 * @return the songs, earliest first
+	 */
+	ArrayList<Song> page(int offset, int limit) {
+		ArrayList<Song> songs = new ArrayList<>(Math.max(0, Math.min(limit, size - offset)));
+		int skip = offset;
+		for (Leaf leaf = first; leaf != null && songs.size() < limit; leaf = leaf.next) {
+			for (int i = 0; i < leaf.size && songs.size() < limit; i++) {
+				int count = leaf.counts[i];
+				if (skip >= count) {
+					skip -= count;
+					continue;
+				}
+				for (int c = skip; c < count && songs.size() < limit; c++) {
+					songs.add(leaf.songs[i]);
+				}
+				skip = 0;
+			}
+		}
+		return songs;
+	}
+	
+	/**
+	 * Adds a listing below the node.
+	 *
+	 * @return the node's new right sibling if it split, otherwise null
+	 */
+	private Node insert(Node node, long day, long id, Song song) {
+		if (node instanceof Leaf) {
+			Leaf leaf = (Leaf) node;
+			int position = leaf.lowerBound(day, id);
+			if (leaf.holds(position, day, id)) {
+				leaf.counts[position]++;
+				return null;
+			}
+			keyCount++;
+			Leaf right = null;
+			if (leaf.size == CAPACITY) {
+				right = splitLeaf(leaf);
+				if (position > leaf.size) {
+					position -= leaf.size;
+					leaf = right;
+				}
+			}
+			insertAt(leaf, position, day, id, song);
+			return right;
+		}
+		
+		Inner inner = (Inner) node;
+		int index = inner.childIndex(day, id);
+		Node child = insert(inner.children[index], day, id, song);
+		if (child == null) {
+			return null;
+		}
+		Inner right = null;
+		int position = index + 1;
+		if (inner.size == CAPACITY) {
+			right = splitInner(inner);
+			if (position > inner.size) {
+				position -= inner.size;
+				inner = right;
+			}
+		}
+		int after = inner.size - position;
+		System.arraycopy(inner.days, position, inner.days, position + 1, after);
+		System.arraycopy(inner.ids, position, inner.ids, position + 1, after);
+		System.arraycopy(inner.children, position, inner.children, position + 1, after);
+		inner.days[position] = child.days[0];
+		inner.ids[position] = child.ids[0];
+		inner.children[position] = child;
+		inner.size++;
+		return right;
+	}
+	
+	/**
+	 * Moves the upper half of a full leaf to a new leaf linked after it.
+	 */
+	private Leaf splitLeaf(Leaf leaf) {
+		Leaf right = new Leaf();
+		int half = CAPACITY / 2;
+		int moved = leaf.size - half;
+		System.arraycopy(leaf.days, half, right.days, 0, moved);
+		System.arraycopy(leaf.ids, half, right.ids, 0, moved);
+		System.arraycopy(leaf.songs, half, right.songs, 0, moved);
+		System.arraycopy(leaf.counts, half, right.counts, 0, moved);
+		Arrays.fill(leaf.songs, half, leaf.size, null);
+		right.size = moved;
+		leaf.size = half;
+		right.next = leaf.next;
+		leaf.next = right;
+		leafCount++;
+		return right;
+	}
+	
+	/**
+	 * Moves the upper half of a full inner node to a new node.
+	 */
+	private static Inner splitInner(Inner inner) {
+		Inner right = new Inner();
+		int half = CAPACITY / 2;
+		int moved = inner.size - half;
+		System.arraycopy(inner.days, half, right.days, 0, moved);
+		System.arraycopy(inner.ids, half, right.ids, 0, moved);
+		System.arraycopy(inner.children, half, right.children, 0, moved);
+		Arrays.fill(inner.children, half, inner.size, null);
+		right.size = moved;
+		inner.size = half;
+		return right;
+	}
+	
+	private static void insertAt(Leaf leaf, int position, long day, long id, Song song) {
+		int after = leaf.size - position;
+		System.arraycopy(leaf.days, position, leaf.days, position + 1, after);
+		System.arraycopy(leaf.ids, position, leaf.ids, position + 1, after);
+		System.arraycopy(leaf.songs, position, leaf.songs, position + 1, after);
+		System.arraycopy(leaf.counts, position, leaf.counts, position + 1, after);
+		leaf.days[position] = day;
+		leaf.ids[position] = id;
+		leaf.songs[position] = song;
+		leaf.counts[position] = 1;
+		leaf.size++;
+	}
+	
+	private static void removeAt(Leaf leaf, int position) {
+		int after = leaf.size - position - 1;
+		System.arraycopy(leaf.days, position + 1, leaf.days, position, after);
+		System.arraycopy(leaf.ids, position + 1, leaf.ids, position, after);
+		System.arraycopy(leaf.songs, position + 1, leaf.songs, position, after);
+		System.arraycopy(leaf.counts, position + 1, leaf.counts, position, after);
+		leaf.size--;
+		leaf.songs[leaf.size] = null;
+	}
+	
+	/**
+	 * Rebuilds the tree from its leaves with every node full.
+	 */
+	private void rebuild() {
+		ArrayList<Node> level = new ArrayList<>();
+		Leaf packed = new Leaf();
+		level.add(packed);
+		for (Leaf leaf = first; leaf != null; leaf = leaf.next) {
+			for (int i = 0; i < leaf.size; i++) {
+				if (packed.size == CAPACITY) {
+					packed.next = new Leaf();
+					packed = packed.next;
+					level.add(packed);
+				}
+				int p = packed.size++;
+				packed.days[p] = leaf.days[i];
+				packed.ids[p] = leaf.ids[i];
+				packed.songs[p] = leaf.songs[i];
+				packed.counts[p] = leaf.counts[i];
+			}
+		}
+		first = (Leaf) level.get(0);
+		leafCount = level.size();
+		
+		while (level.size() > 1) {
+			ArrayList<Node> parents = new ArrayList<>();
+			Inner parent = null;
+			for (Node child : level) {
+				if (parent == null || parent.size == CAPACITY) {
+					parent = new Inner();
+					parents.add(parent);
+				}
+				int p = parent.size++;
+				parent.days[p] = child.days[0];
+				parent.ids[p] = child.ids[0];
+				parent.children[p] = child;
+			}
+			level = parents;
+		}
+		root = level.get(0);
+	}
+	
+	private static int compare(long day, long id, long otherDay, long otherId) {
+		int byDay = Long.compare(day, otherDay);
+		return byDay != 0 ? byDay : Long.compare(id, otherId);
+	}
+	
+	private static long epochDay(LocalDate date) {
+		return date == null ? Long.MIN_VALUE : date.toEpochDay();
+	}
+}
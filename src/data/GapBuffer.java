@@ -0,0 +1,245 @@
+package data;
+
+import java.util.AbstractList;
+import java.util.Arrays;
+import java.util.Collection;
+import java.util.RandomAccess;
+
+/**
+ * A list stored in one contiguous array with a movable gap.
+ * Indexed reads are O(1). Inserting or removing at index i moves the gap to i,
+ * which costs O(distance from the last edit), so runs of edits in the same
+ * area (the "cursor") are O(1) each instead of a LinkedList pointer walk.
+ * 
+ * @author Josiah Loomis
+ * @version 1.0
+ * @param <E> the type of elements in the buffer
+ */
+public class GapBuffer<E> extends AbstractList<E> implements RandomAccess {
+
+	private static final int DEFAULT_CAPACITY = 16;
+	
+	private Object[] elements;
+	
+	/** First slot of the gap */
+	private int gapStart;
+	
+	/** First slot after the gap */
+	private int gapEnd;
+	
+	/**
+	 * Creates an empty buffer with the default capacity.
+	 */
+	public GapBuffer() {
+		this(DEFAULT_CAPACITY);
+	}
+	
+	/**
+	 * Creates an empty buffer able to hold the given number of elements without growing.
+	 * 
+	 * @param capacity the initial capacity
+	 */
+	public GapBuffer(int capacity) {
+		elements = new Object[Math.max(capacity, 1)];
+		gapStart = 0;
+		gapEnd = elements.length;
+	}
+	
+	@Override
+	public int size() {
+		return elements.length - (gapEnd - gapStart);
+	}
+	
+	@Override
+	@SuppressWarnings("unchecked")
+	public E get(int index) {
+		checkIndex(index);
+		return (E) elements[slot(index)];
+	}
+	
+	@Override
+	@SuppressWarnings("unchecked")
+	public E set(int index, E element) {
+		checkIndex(index);
+		int slot = slot(index);
+		E old = (E) elements[slot];
+		elements[slot] = element;
+		return old;
+	}
+	
+	@Override
+	public boolean add(E element) {
+		add(size(), element);
+		return true;
+	}
+	
+	@Override
+	public void add(int index, E element) {
+		if (index < 0 || index > size()) {
+			throw new IndexOutOfBoundsException("Index: " + index + ", Size: " + size());
+		}
+		ensureGap(1);
+		moveGap(index);
+		elements[gapStart++] = element;
+		modCount++;
+	}
+	
+	@Override
+	public boolean addAll(Collection<? extends E> collection) {
+		Object[] added = collection.toArray();
+		if (added.length == 0) {
+			return false;
+		}
+		ensureGap(added.length);
+		moveGap(size());
+		System.arraycopy(added, 0, elements, gapStart, added.length);
+		gapStart += added.length;
+		modCount++;
+		return true;
+	}
+	
+	@Override
+	@SuppressWarnings("unchecked")
+	public E remove(int index) {
+		checkIndex(index);
+		moveGap(index);
+		E removed = (E) elements[gapEnd];
+		elements[gapEnd++] = null;
+		modCount++;
+		return removed;
+	}
+	
+	@Override
+	public void clear() {
+		Arrays.fill(elements, null);
+		gapStart = 0;
+		gapEnd = elements.length;
+		modCount++;
+	}
+	
+	@Override
+	public int indexOf(Object o) {
+		// Scan both halves directly instead of going through slot() per element
+		for (int i = 0; i < gapStart; i++) {
+			if (o == null ? elements[i] == null : o.equals(elements[i])) {
+				return i;
+			}
+		}
+		for (int i = gapEnd; i < elements.length; i++) {
+			if (o == null ? elements[i] == null : o.equals(elements[i])) {
+				return i - (gapEnd - gapStart);
+			}
+		}
+		return -1;
+	}
+	
+	@Override
+	public boolean contains(Object o) {
+		return indexOf(o) >= 0;
+	}
+	
+	@Override
+	public boolean remove(Object o) {
+		int index = indexOf(o);
+		if (index < 0) {
+			return false;
+		}
+		remove(index);
+		return true;
+	}
+	
+	@Override
+	public Object[] toArray() {
+		Object[] copy = new Object[size()];
+		copyTo(copy);
+		return copy;
+	}
+	
+	@Override
+	@SuppressWarnings("unchecked")
+	public <T> T[] toArray(T[] a) {
+		int size = size();
+		if (a.length < size) {
+			a = (T[]) Arrays.copyOf(a, size, a.getClass());
+		}
+		copyTo(a);
+		if (a.length > size) {
+			a[size] = null;
+		}
+		return a;
+	}
+	
+	/**
+	 * Copies a range of the buffer into an array, skipping the gap.
+	 * 
+	 * @param fromIndex the index of the first element to copy
+	 * @param target the array to copy into
+	 * @param targetIndex the position in target of the first element
+	 * @param length the number of elements to copy
+	 */
+	public void copyTo(int fromIndex, Object[] target, int targetIndex, int length) {
+		if (fromIndex < 0 || length < 0 || fromIndex + length > size()) {
+			throw new IndexOutOfBoundsException("Range: " + fromIndex + "+" + length + ", Size: " + size());
+		}
+		int beforeGap = Math.max(0, Math.min(length, gapStart - fromIndex));
+		System.arraycopy(elements, fromIndex, target, targetIndex, beforeGap);
+		System.arraycopy(elements, slot(fromIndex + beforeGap), target, targetIndex + beforeGap, length - beforeGap);
+	}
+	
+	private void copyTo(Object[] target) {
+		int tailLength = elements.length - gapEnd;
+		System.arraycopy(elements, 0, target, 0, gapStart);
+		System.arraycopy(elements, gapEnd, target, gapStart, tailLength);
+	}
+	
+	/**
+	 * Maps a list index to its slot in the backing array.
+	 */
+	private int slot(int index) {
+		return index < gapStart ? index : index + (gapEnd - gapStart);
+	}
+	
+	/**
+	 * Moves the gap so that it starts at the given list index.
+	 */
+	private void moveGap(int index) {
+		if (index < gapStart) {
+			int count = gapStart - index;
+			System.arraycopy(elements, index, elements, gapEnd - count, count);
+			Arrays.fill(elements, index, Math.min(gapStart, gapEnd - count), null);
+			gapStart = index;
+			gapEnd -= count;
+		} else if (index > gapStart) {
+			int count = index - gapStart;
+			System.arraycopy(elements, gapEnd, elements, gapStart, count);
+			Arrays.fill(elements, Math.max(gapEnd, gapStart + count), gapEnd + count, null);
+			gapStart += count;
+			gapEnd += count;
+		}
+	}
+	
+	/**
+	 * Grows the backing array so the gap can hold at least the given number of elements.
+	 */
+	private void ensureGap(int needed) {
+		int gapLength = gapEnd - gapStart;
+		if (gapLength >= needed) {
+			return;
+		}
+		
+		int size = size();
+		int capacity = Math.max(elements.length + (elements.length >> 1), size + needed);
+		Object[] grown = new Object[capacity];
+		int tailLength = elements.length - gapEnd;
+		System.arraycopy(elements, 0, grown, 0, gapStart);
+		System.arraycopy(elements, gapEnd, grown, capacity - tailLength, tailLength);
+		elements = grown;
+		gapEnd = capacity - tailLength;
+	}
+	
+	private void checkIndex(int index) {
+		if (index < 0 || index >= size()) {
+			throw new IndexOutOfBoundsException("Index: " + index + ", Size: " + size());
+		}
+	}
+}
@@ -1,25 +1,190 @@
 package data;
 
-import java.io.BufferedReader;
 import java.io.File;
-import java.io.FileReader;
-import java.io.FileWriter;
 import java.io.IOException;
-import java.io.PrintWriter;
+import java.io.UncheckedIOException;
+import java.nio.file.Path;
+import java.time.LocalDate;
+import java.util.AbstractList;
 import java.util.ArrayList;
-import java.util.LinkedList;
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.Collection;
+import java.util.IdentityHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Objects;
+import java.util.RandomAccess;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.locks.ReentrantLock;
+import java.util.function.Consumer;
+import java.util.function.Predicate;
+import java.util.stream.IntStream;
 
 /**
- * Manages a collection of songs using a LinkedList structure.
+ * Manages a collection of songs stored in a GapBuffer.
+ * Indexed reads are O(1) and edits near the last edited position are cheap.
+ * A hash index by song id makes contains and getSongById O(1), and sorted
+ * indexes by date added and release date (see DateIndex) make the sort-by-date
+ * views a walk of the songs in order instead of a sort.
+ * The search indexes are the costly ones to build, so after a load they are
+ * built by the first search or lookup by prefix rather than at startup.
+ * When a journal is open, every change is appended to it (see MusicListJournal).
+ * 
+ * A list created in concurrent mode can be shared between threads. Writers
+ * take a lock and publish a new immutable Snapshot as they release it, so a
+ * snapshot always holds every finished write and nothing of one in progress.
+ * Snapshots are split into chunks and a write only copies the chunks from
+ * its first changed index on, so appending costs O(n / SNAPSHOT_CHUNK).
+ * Reads (size, getSong, getSongs, the sort methods, searchSongs, saving,
+ * display) work on the latest snapshot and never wait, so background saves
+ * and searches never race or block the GUI. Lookups by id and prefix take
+ * the lock briefly. A thread that holds the lock, such as the journal during
+ * a write, reads the live list instead.
+ * 
+ * Every change is reported to the SongChangeListeners, one event per call,
+ * so the bulk methods addAll and removeAll notify once for many songs.
+ * In concurrent mode listeners run with the writer lock held.
  * Provides functionality for adding, removing, sorting, saving, and loading songs.
  * 
  * @author Josiah Loomis
  * @version 1.0
  */
-public class MusicList {
+public class MusicList implements Checkpointable {
 
-	private LinkedList<Song> songList = new LinkedList<>();
-	private static final String SAVE_FILE = "musiclist_data.txt";
+	private GapBuffer<Song> songList = new GapBuffer<>();
+	private static final String SAVE_FILE = "musiclist_data.bin";
+	private static final String LEGACY_SAVE_FILE = "musiclist_data.txt";
+	
+	/** Songs per snapshot chunk, a power of two */
+	static final int SNAPSHOT_CHUNK = 1024;
+	private static final int CHUNK_SHIFT = Integer.numberOfTrailingZeros(SNAPSHOT_CHUNK);
+	
+	private SongSorter titleSorter = new TitleKeySort();
+	private TrigramIndex searchIndex = new TrigramIndex();
+	private PrefixTrie prefixIndex = new PrefixTrie();
+	// Whether searchIndex and prefixIndex hold the list. A load leaves them
+	// empty and the first search builds them (see ensureSearchIndex)
+	private boolean searchIndexed = true;
+	private HashMap<Long, IdEntry> songsById = new HashMap<>();
+	private DateIndex byDateAdded = new DateIndex(Song::getDateAdded);
+	private DateIndex byReleaseDate = new DateIndex(Song::getReleaseDate);
+	
+	// Journal of changes since the snapshot, null when not journaling.
+	// Volatile so saveToFile can sync it from a shutdown hook
+	private volatile MusicListJournal journal;
+	private int snapshotGeneration;
+	private File saveFile = new File(SAVE_FILE);
+	
+	/** Counts changes, so checkpoints can skip an unchanged list */
+	private long modCount;
+	
+	// Writer lock, null unless the list is in concurrent mode
+	private final ReentrantLock writeLock;
+	// The latest published songs, whether the list has changed since,
+	// and the first index changed since
+	private volatile Snapshot snapshot = new Snapshot(0, new Song[0][], 0);
+	private volatile boolean snapshotStale;
+	private int dirtyFrom = Integer.MAX_VALUE;
+	
+	private final List<SongChangeListener> listeners = new CopyOnWriteArrayList<>();
+	
+	/**
+	 * An immutable copy of the songs at one version of the list.
+	 * Chunks no write has touched are shared with the previous snapshot.
+	 */
+	public static final class Snapshot {
+		private final long version;
+		private final Song[][] chunks;
+		private final List<Song> songs;
+		
+		private Snapshot(long version, Song[][] chunks, int size) {
+			this.version = version;
+			this.chunks = chunks;
+			this.songs = new ChunkList(chunks, size);
+		}
+		
+		/**
+		 * Gets the version of the list the snapshot was taken at.
+		 * Versions only grow, and every change makes a new one.
+		 * 
+		 * @return the modification count at the time of the snapshot
+		 */
+		public long getVersion() {
+			return version;
+		}
+		
+		/**
+		 * Gets the songs in list order.
+		 * 
+		 * @return an unmodifiable list of the songs
+		 */
+		public List<Song> getSongs() {
+			return songs;
+		}
+		
+		/**
+		 * Gets the number of songs.
+		 * 
+		 * @return the size of the snapshot
+		 */
+		public int size() {
+			return songs.size();
+		}
+	}
+	
+	/**
+	 * Read-only list over the chunks of a snapshot.
+	 */
+	private static final class ChunkList extends AbstractList<Song> implements RandomAccess {
+		private final Song[][] chunks;
+		private final int size;
+		
+		ChunkList(Song[][] chunks, int size) {
+			this.chunks = chunks;
+			this.size = size;
+		}
+		
+		@Override
+		public Song get(int index) {
+			Objects.checkIndex(index, size);
+			return chunks[index >>> CHUNK_SHIFT][index & (SNAPSHOT_CHUNK - 1)];
+		}
+		
+		@Override
+		public int size() {
+			return size;
+		}
+	}
+	
+	/**
+	 * A song in the id index and how many times it is listed.
+	 */
+	private static final class IdEntry {
+		final Song song;
+		int count;
+		
+		IdEntry(Song song) {
+			this.song = song;
+		}
+	}
+	
+	/**
+	 * Creates an empty list for use by a single thread.
+	 */
+	public MusicList() {
+		this(false);
+	}
+	
+	/**
+	 * Creates an empty list.
+	 * 
+	 * @param concurrent true to lock writers and give readers snapshots,
+	 *        so the list can be shared between threads
+	 */
+	public MusicList(boolean concurrent) {
+		writeLock = concurrent ? new ReentrantLock() : null;
+	}
 	
 	/**
 	 * Adds a song to the end of the list.
@@ -27,7 +192,19 @@ public class MusicList {
 	 * @param song the song to add
 	 */
 	public void addSong(Song song) {
-		songList.add(song);
+		lockWrites();
+		try {
+			songList.add(song);
+			indexSong(song, -1);
+			changed(songList.size() - 1);
+			if (journal != null) {
+				journal.logAdd(songList.size() - 1, song);
+				journal.maybeCompact();
+			}
+			fire(SongChangeEvent.Type.ADDED, songList.size() - 1, songList.size());
+		} finally {
+			unlockWrites();
+		}
 	}
 	
 	/**
@@ -36,7 +213,7 @@ public class MusicList {
 	 * @param song the song to add at the front
 	 */
 	public void addFirst(Song song) {
-		songList.addFirst(song);
+		addAt(0, song);
 	}
 	
 	/**
@@ -46,17 +223,181 @@ public class MusicList {
 	 * @param song the song to add
 	 */
 	public void addAt(int index, Song song) {
-		songList.add(index, song);
+		lockWrites();
+		try {
+			songList.add(index, song);
+			indexSong(song, index);
+			changed(index);
+			if (journal != null) {
+				journal.logAdd(index, song);
+				journal.maybeCompact();
+			}
+			fire(SongChangeEvent.Type.ADDED, index, index + 1);
+		} finally {
+			unlockWrites();
+		}
 	}
 	
 	/**
-	 * Removes the specified song from the list.
+	 * Adds songs to the end of the list in one change: the gap buffer grows
+	 * once, the journal gets one record for the batch and listeners get a
+	 * single ADDED event. The indexes are still updated one song at a time; at 100k
+	 * songs the trigram and prefix indexes take most of a second of an import.
+	 * 
+	 * @param songs the songs to add, in order
+	 * @return the number of songs added
+	 */
+	public int addAll(Collection<Song> songs) {
+		if (songs.isEmpty()) {
+			return 0;
+		}
+		lockWrites();
+		try {
+			int start = songList.size();
+			songList.addAll(songs);
+			for (Song song : songs) {
+				indexSong(song, -1);
+			}
+			changed(start);
+			if (journal != null) {
+				journal.logAddAll(start, songs);
+				journal.maybeCompact();
+			}
+			fire(SongChangeEvent.Type.ADDED, start, songList.size());
+			return songList.size() - start;
+		} finally {
+			unlockWrites();
+		}
+	}
+	
+	/**
+	 * Removes every song matching the filter in one pass over the list.
+	 * The other songs keep their order, and listeners get a single REPLACED event.
+	 * The journal records only the removed positions.
+	 * 
+	 * @param filter returns true for the songs to remove
+	 * @return the number of songs removed
+	 */
+	public int removeAll(Predicate<Song> filter) {
+		lockWrites();
+		try {
+			int[] indexes = new int[16];
+			int count = 0;
+			for (int i = 0; i < songList.size(); i++) {
+				if (filter.test(songList.get(i))) {
+					if (count == indexes.length) {
+						indexes = Arrays.copyOf(indexes, count * 2);
+					}
+					indexes[count++] = i;
+				}
+			}
+			return removeIndexes(Arrays.copyOf(indexes, count));
+		} finally {
+			unlockWrites();
+		}
+	}
+	
+	/**
+	 * Removes the songs at the given positions in one change.
+	 * Used by removeAll and to replay its journal records.
+	 * 
+	 * @param indexes the positions to remove, in ascending order
+	 * @return the number of songs removed
+	 * @throws IllegalArgumentException if the positions are out of order or out of range
+	 */
+	int removeIndexes(int[] indexes) {
+		if (indexes.length == 0) {
+			return 0;
+		}
+		lockWrites();
+		try {
+			for (int i = 0; i < indexes.length; i++) {
+				if (indexes[i] >= songList.size() || indexes[i] < (i == 0 ? 0 : indexes[i - 1] + 1)) {
+					throw new IllegalArgumentException("Bad position to remove: " + indexes[i]);
+				}
+			}
+			ArrayList<Song> kept = new ArrayList<>(songList.size() - indexes.length);
+			int next = 0;
+			for (int i = 0; i < songList.size(); i++) {
+				Song song = songList.get(i);
+				if (next < indexes.length && indexes[next] == i) {
+					unindexSong(song);
+					next++;
+				} else {
+					kept.add(song);
+				}
+			}
+			songList.clear();
+			songList.addAll(kept);
+			changed(indexes[0]);
+			if (journal != null) {
+				journal.logRemoveAll(indexes);
+				journal.maybeCompact();
+			}
+			fire(SongChangeEvent.Type.REPLACED, 0, songList.size());
+			return indexes.length;
+		} finally {
+			unlockWrites();
+		}
+	}
+	
+	/**
+	 * Registers a listener for every later change.
+	 * 
+	 * @param listener the listener to add
+	 */
+	public void addChangeListener(SongChangeListener listener) {
+		listeners.add(listener);
+	}
+	
+	/**
+	 * Stops sending changes to a listener.
+	 * 
+	 * @param listener the listener to remove
+	 */
+	public void removeChangeListener(SongChangeListener listener) {
+		listeners.remove(listener);
+	}
+	
+	/**
+	 * Removes the specified song (or a song with the same id) from the list.
+	 * Whether it is listed is checked in O(1) through the id index, but the
+	 * list keeps its order and does not index positions, so finding a listed
+	 * song is an O(n) scan. Callers that know where the song is shown should
+	 * pass the position to removeSong(Song, int).
 	 * 
 	 * @param song the song to remove
 	 * @return true if the song was found and removed, false otherwise
 	 */
 	public boolean removeSong(Song song) {
-		return songList.remove(song);
+		return removeSong(song, -1);
+	}
+	
+	/**
+	 * Removes the specified song (or a song with the same id), looking at the
+	 * given position first. When the song is still there it is removed without
+	 * a scan, otherwise this falls back to removeSong(Song).
+	 * 
+	 * @param song the song to remove
+	 * @param indexHint where the song is expected to be, or -1 if unknown
+	 * @return true if the song was found and removed, false otherwise
+	 */
+	public boolean removeSong(Song song, int indexHint) {
+		lockWrites();
+		try {
+			if (!contains(song)) {
+				return false;
+			}
+			int index = indexHint >= 0 && indexHint < songList.size() && song.equals(songList.get(indexHint))
+					? indexHint : songList.indexOf(song);
+			if (index < 0) {
+				return false;
+			}
+			removeAt(index);
+			return true;
+		} finally {
+			unlockWrites();
+		}
 	}
 	
 	/**
@@ -66,7 +407,20 @@ public class MusicList {
 	 * @return the removed song
 	 */
 	public Song removeAt(int index) {
-		return songList.remove(index);
+		lockWrites();
+		try {
+			Song removed = songList.remove(index);
+			unindexSong(removed);
+			changed(index);
+			if (journal != null) {
+				journal.logRemove(index);
+				journal.maybeCompact();
+			}
+			fire(SongChangeEvent.Type.REMOVED, index, index + 1);
+			return removed;
+		} finally {
+			unlockWrites();
+		}
 	}
 	
 	/**
@@ -76,7 +430,23 @@ public class MusicList {
 	 * @return the song at the specified index
 	 */
 	public Song getSong(int index) {
-		return songList.get(index);
+		return readView().get(index);
+	}
+	
+	/**
+	 * Gets the song with the given id in O(1).
+	 * 
+	 * @param id the id of the song
+	 * @return the song, or null if no listed song has that id
+	 */
+	public Song getSongById(long id) {
+		lockWrites();
+		try {
+			IdEntry entry = songsById.get(id);
+			return entry == null ? null : entry.song;
+		} finally {
+			unlockWrites();
+		}
 	}
 	
 	/**
@@ -85,40 +455,145 @@ public class MusicList {
 	 * @return an ArrayList containing all songs
 	 */
 	public ArrayList<Song> getSongs() {
-		return new ArrayList<>(songList);
+		return new ArrayList<>(readView());
+	}
+	
+	/**
+	 * Gets an immutable copy of the songs and the version it was taken at.
+	 * Never blocks: in concurrent mode, while another thread is writing, this
+	 * is the snapshot published when the write before it finished.
+	 * 
+	 * @return the current snapshot
+	 */
+	public Snapshot getSnapshot() {
+		if (snapshotStale && (writeLock == null || writeLock.isHeldByCurrentThread())) {
+			return publishSnapshot();
+		}
+		return snapshot;
 	}
 	
 	/**
-	 * Gets all songs sorted alphabetically by title using selection sort.
+	 * Gets all songs sorted alphabetically by title (case-insensitive)
+	 * using the current title sorter.
 	 * 
 	 * @return an ArrayList of songs sorted alphabetically
 	 */
 	public ArrayList<Song> getSongsAlphabetically() {
-		ArrayList<Song> sortedList = new ArrayList<>(songList);
-		SelectionSort.selectionSort(sortedList);
+		ArrayList<Song> sortedList = new ArrayList<>(readView());
+		titleSorter.sort(sortedList);
 	    return sortedList;
 	}
 	
+	/**
+	 * Sets the algorithm used by getSongsAlphabetically.
+	 * Defaults to TitleKeySort, TitleRadixSort is faster for very large lists.
+	 * 
+	 * @param titleSorter the sorter to use
+	 */
+	public void setTitleSorter(SongSorter titleSorter) {
+		this.titleSorter = titleSorter;
+	}
+	
 	/**
 	 * Gets all songs sorted by the date they were added to the collection.
+	 * Songs added the same day are ordered by id.
 	 * 
 	 * @return an ArrayList of songs sorted by date added (earliest first)
 	 */
 	public ArrayList<Song> getSongsByDateAdded() {
-		ArrayList<Song> sortedList = new ArrayList<>(songList);
-	    sortedList.sort((s1, s2) -> s1.getDateAdded().compareTo(s2.getDateAdded()));
-	    return sortedList;
+		return sortedByDate(byDateAdded, 0, Integer.MAX_VALUE);
+	}
+	
+	/**
+	 * Gets a page of the songs sorted by date added, in O(offset + limit).
+	 * 
+	 * @param offset the number of songs to skip
+	 * @param limit the most songs to return
+	 * @return up to limit songs sorted by date added (earliest first)
+	 */
+	public ArrayList<Song> getSongsByDateAdded(int offset, int limit) {
+		return sortedByDate(byDateAdded, offset, limit);
 	}
 	
 	/**
 	 * Gets all songs sorted by their release date.
+	 * Songs released the same day are ordered by id.
 	 * 
 	 * @return an ArrayList of songs sorted by release date (earliest first)
 	 */
 	public ArrayList<Song> getSongsByDateCreated() {
-	    ArrayList<Song> sortedList = new ArrayList<>(songList);
-	    sortedList.sort((s1, s2) -> s1.getReleaseDate().compareTo(s2.getReleaseDate()));
-	    return sortedList;
+		return sortedByDate(byReleaseDate, 0, Integer.MAX_VALUE);
+	}
+	
+	/**
+	 * Gets a page of the songs sorted by release date, in O(offset + limit).
+	 * 
+	 * @param offset the number of songs to skip
+	 * @param limit the most songs to return
+	 * @return up to limit songs sorted by release date (earliest first)
+	 */
+	public ArrayList<Song> getSongsByDateCreated(int offset, int limit) {
+		return sortedByDate(byReleaseDate, offset, limit);
+	}
+	
+	/**
+	 * Puts the list in date added order, straight from the date index.
+	 * The songs are the same, so unlike updateList nothing is compared or reindexed.
+	 */
+	public void sortByDateAdded() {
+		sortByDate(byDateAdded);
+	}
+	
+	/**
+	 * Puts the list in release date order, straight from the date index.
+	 * The songs are the same, so unlike updateList nothing is compared or reindexed.
+	 */
+	public void sortByDateCreated() {
+		sortByDate(byReleaseDate);
+	}
+	
+	private void sortByDate(DateIndex index) {
+		lockWrites();
+		try {
+			ArrayList<Song> sorted = index.page(0, index.size());
+			songList.clear();
+			songList.addAll(sorted);
+			if (searchIndexed) {
+				searchIndex.orderChanged(songList);
+			}
+			changed(0);
+			if (journal != null) {
+				journal.logReplace(sorted, null); // Every song was already listed
+				journal.maybeCompact();
+			}
+			fire(SongChangeEvent.Type.REPLACED, 0, songList.size());
+		} finally {
+			unlockWrites();
+		}
+	}
+	
+	/**
+	 * Walks a date index. In concurrent mode, while another thread is writing,
+	 * the snapshot is sorted instead, in the same order, rather than wait.
+	 */
+	private ArrayList<Song> sortedByDate(DateIndex index, int offset, int limit) {
+		if (offset < 0 || limit < 0) {
+			throw new IllegalArgumentException("offset and limit must not be negative");
+		}
+		if (writeLock == null) {
+			return index.page(offset, limit);
+		}
+		if (writeLock.tryLock()) {
+			try {
+				return index.page(offset, limit);
+			} finally {
+				writeLock.unlock();
+			}
+		}
+		ArrayList<Song> sorted = new ArrayList<>(getSnapshot().getSongs());
+		sorted.sort(index.order());
+		int from = Math.min(offset, sorted.size());
+		return new ArrayList<>(sorted.subList(from, (int) Math.min(sorted.size(), (long) from + limit)));
 	}
 	
 	/**
@@ -127,7 +602,7 @@ public class MusicList {
 	 * @return the size of the music list
 	 */
 	public int size() {
-		return songList.size();
+		return readView().size();
 	}
 	
 	/**
@@ -136,24 +611,102 @@ public class MusicList {
 	 * @return true if the list contains no songs, false otherwise
 	 */
 	public boolean isEmpty() {
-		return songList.isEmpty();
+		return readView().isEmpty();
 	}
 	
 	/**
 	 * Removes all songs from the list.
 	 */
 	public void clear() {
-		songList.clear();
+		lockWrites();
+		try {
+			int removed = songList.size();
+			songList.clear();
+			searchIndex.clear();
+			prefixIndex.clear();
+			songsById.clear();
+			byDateAdded.clear();
+			byReleaseDate.clear();
+			changed(0);
+			if (journal != null) {
+				journal.logClear();
+				journal.maybeCompact();
+			}
+			if (removed > 0) {
+				fire(SongChangeEvent.Type.REMOVED, 0, removed);
+			}
+		} finally {
+			unlockWrites();
+		}
 	}
 	
 	/**
-	 * Checks if the list contains the specified song.
+	 * Checks in O(1) if the list contains the specified song (or a song with the same id).
 	 * 
 	 * @param song the song to search for
 	 * @return true if the song is in the list, false otherwise
 	 */
 	public boolean contains(Song song) {
-		return songList.contains(song);
+		if (song == null) {
+			return false;
+		}
+		lockWrites();
+		try {
+			return songsById.containsKey(song.getId());
+		} finally {
+			unlockWrites();
+		}
+	}
+	
+	/**
+	 * Edits the song at the given index in place. The indexes find a song by
+	 * its text and dates, so edit a listed song here rather than through its
+	 * setters: it is taken out of the prefix and date indexes before the edit
+	 * and put back after, and the search index indexes its new text. Every listing
+	 * of the song changes, and the edit is journaled as one record.
+	 * 
+	 * @param index the position of the song to edit
+	 * @param edit applies the changes, such as song -> song.setTitle("New title")
+	 * @return the edited song
+	 */
+	public Song editSong(int index, Consumer<Song> edit) {
+		lockWrites();
+		try {
+			Song song = songList.get(index);
+			// Usually listed once, only a song listed more than once costs a scan
+			int[] positions = {index};
+			if (songsById.get(song.getId()).count > 1) {
+				positions = IntStream.range(0, songList.size()).filter(i -> songList.get(i) == song).toArray();
+			}
+			for (int i = 0; i < positions.length; i++) {
+				if (searchIndexed) {
+					prefixIndex.remove(song);
+				}
+				byDateAdded.remove(song);
+				byReleaseDate.remove(song);
+			}
+			edit.accept(song);
+			for (int i = 0; i < positions.length; i++) {
+				if (searchIndexed) {
+					prefixIndex.add(song);
+				}
+				byDateAdded.add(song);
+				byReleaseDate.add(song);
+			}
+			if (searchIndexed) {
+				searchIndex.update(song);
+			}
+			
+			changed(positions[0]);
+			if (journal != null) {
+				journal.logEdit(positions, song);
+				journal.maybeCompact();
+			}
+			fire(SongChangeEvent.Type.REPLACED, 0, songList.size());
+			return song;
+		} finally {
+			unlockWrites();
+		}
 	}
 	
 	/**
@@ -162,84 +715,445 @@ public class MusicList {
 	 * @param songs the new collection of songs to use
 	 */
 	public void updateList(ArrayList<Song> songs) {
-		songList.clear();
-		songList.addAll(songs);
+		lockWrites();
+		try {
+			// The journal refers to songs that were already listed by id
+			boolean[] listed = null;
+			if (journal != null) {
+				listed = new boolean[songs.size()];
+				for (int i = 0; i < listed.length; i++) {
+					IdEntry entry = songsById.get(songs.get(i).getId());
+					listed[i] = entry != null && entry.song == songs.get(i);
+				}
+			}
+			
+			// Only index what was added or removed, a reorder (the sort buttons)
+			// only renumbers the search index's ranks
+			IdentityHashMap<Song, Integer> delta = new IdentityHashMap<>();
+			for (Song song : songs) {
+				delta.merge(song, 1, Integer::sum);
+			}
+			for (Song song : songList) {
+				delta.merge(song, -1, Integer::sum);
+			}
+			for (Map.Entry<Song, Integer> change : delta.entrySet()) {
+				for (int i = 0; i < change.getValue(); i++) {
+					indexSong(change.getKey(), -1);
+				}
+				for (int i = 0; i > change.getValue(); i--) {
+					unindexSong(change.getKey());
+				}
+			}
+			
+			songList.clear();
+			songList.addAll(songs);
+			if (searchIndexed) {
+				searchIndex.orderChanged(songList);
+			}
+			changed(0);
+			if (journal != null) {
+				journal.logReplace(songs, listed);
+				journal.maybeCompact();
+			}
+			fire(SongChangeEvent.Type.REPLACED, 0, songList.size());
+		} finally {
+			unlockWrites();
+		}
+	}
+	
+	@Override
+	public long getModCount() {
+		return modCount;
+	}
+	
+	/**
+	 * Copies the list for a background save to the file it was loaded from.
+	 * With a journal open, this starts a new journal generation instead and
+	 * the writer saves the matching snapshot.
+	 */
+	@Override
+	public Checkpointable.Writer captureCheckpoint() {
+		if (journal != null) {
+			// Holding the lock keeps writes from landing between the copy and the new log
+			lockWrites();
+			try {
+				return journal.captureCheckpoint();
+			} catch (IOException e) {
+				throw new UncheckedIOException(e);
+			} finally {
+				unlockWrites();
+			}
+		}
+		List<Song> songs = getSnapshot().getSongs();
+		Path path = saveFile.toPath();
+		int generation = snapshotGeneration;
+		return () -> SongFile.write(path, songs, generation);
+	}
+	
+	private void fire(SongChangeEvent.Type type, int fromIndex, int toIndex) {
+		if (listeners.isEmpty()) {
+			return;
+		}
+		SongChangeEvent event = new SongChangeEvent(this, type, fromIndex, toIndex);
+		for (SongChangeListener listener : listeners) {
+			listener.songsChanged(event);
+		}
+	}
+	
+	/**
+	 * Marks a change. Called with the writer lock held.
+	 * 
+	 * @param fromIndex the first index whose song may have changed, moved or gone;
+	 *        the songs before it are as they were
+	 */
+	private void changed(int fromIndex) {
+		modCount++;
+		snapshotStale = true;
+		dirtyFrom = Math.min(dirtyFrom, fromIndex);
+	}
+	
+	private void lockWrites() {
+		if (writeLock != null) {
+			writeLock.lock();
+		}
+	}
+	
+	/**
+	 * Releases the writer lock, publishing the write as the outermost hold ends.
+	 */
+	private void unlockWrites() {
+		if (writeLock != null) {
+			if (snapshotStale && writeLock.getHoldCount() == 1) {
+				publishSnapshot();
+			}
+			writeLock.unlock();
+		}
+	}
+	
+	/**
+	 * Makes a new snapshot of the live list, copying the chunks from the
+	 * first changed index on. Called with the writer lock held.
+	 */
+	private Snapshot publishSnapshot() {
+		Song[][] previous = snapshot.chunks;
+		int size = songList.size();
+		Song[][] chunks = new Song[(size + SNAPSHOT_CHUNK - 1) >>> CHUNK_SHIFT][];
+		// Chunks wholly before the first change are full and unchanged
+		int shared = Math.min(dirtyFrom >>> CHUNK_SHIFT, Math.min(previous.length, chunks.length));
+		System.arraycopy(previous, 0, chunks, 0, shared);
+		for (int i = shared; i < chunks.length; i++) {
+			int from = i << CHUNK_SHIFT;
+			chunks[i] = new Song[Math.min(SNAPSHOT_CHUNK, size - from)];
+			songList.copyTo(from, chunks[i], 0, chunks[i].length);
+		}
+		
+		Snapshot published = new Snapshot(modCount, chunks, size);
+		snapshot = published;
+		snapshotStale = false;
+		dirtyFrom = Integer.MAX_VALUE;
+		return published;
+	}
+	
+	/**
+	 * Gets the songs to read. Threads other than a writer get a snapshot.
+	 */
+	private List<Song> readView() {
+		if (writeLock == null || writeLock.isHeldByCurrentThread()) {
+			return songList;
+		}
+		return getSnapshot().getSongs();
+	}
+	
+	/**
+	 * Adds one listing of the song to every index.
+	 * 
+	 * @param index where the song now is in the list, or -1 if it was appended
+	 *        or the list is about to be reordered
+	 */
+	private void indexSong(Song song, int index) {
+		if (searchIndexed) {
+			Song before = index > 0 ? songList.get(index - 1) : null;
+			Song after = index >= 0 && index < songList.size() - 1 ? songList.get(index + 1) : null;
+			searchIndex.add(song, before, after);
+			prefixIndex.add(song);
+		}
+		songsById.computeIfAbsent(song.getId(), id -> new IdEntry(song)).count++;
+		byDateAdded.add(song);
+		byReleaseDate.add(song);
+	}
+	
+	/**
+	 * Removes one listing of the song from every index.
+	 */
+	private void unindexSong(Song song) {
+		if (searchIndexed) {
+			searchIndex.remove(song);
+			prefixIndex.remove(song);
+		}
+		IdEntry entry = songsById.get(song.getId());
+		if (entry != null && --entry.count == 0) {
+			songsById.remove(song.getId());
+		}
+		byDateAdded.remove(song);
+		byReleaseDate.remove(song);
+	}
+	
+	/**
+	 * Empties the search indexes until the next search needs them,
+	 * so a bulk load does not pay for them.
+	 */
+	private void deferSearchIndex() {
+		searchIndex.clear();
+		prefixIndex.clear();
+		searchIndexed = false;
+	}
+	
+	/**
+	 * Builds the search indexes from the list if a load deferred them.
+	 * Callers hold the writer lock in concurrent mode.
+	 */
+	private void ensureSearchIndex() {
+		if (searchIndexed) {
+			return;
+		}
+		searchIndex.rebuild(songList);
+		for (Song song : songList) {
+			prefixIndex.add(song);
+		}
+		searchIndexed = true;
 	}
 	
 	/**
 	 * Prints all songs in the list to the console.
 	 */
 	public void display() {
-		for (Song song : songList) {
+		for (Song song : readView()) {
 			System.out.println(song);
 		}
 	}
 	
 	@Override
 	public String toString() {
-		return songList.toString();
+		return readView().toString();
 	}
 	
 	/**
-	 * Saves the music list to a text file.
-	 * Each song is saved as a line.
-	 * The file is saved to musiclist_data.txt in the current directory.
+	 * Saves the music list to musiclist_data.bin in the current directory.
+	 * While a journal is open every change is already in it, so this only
+	 * syncs the journal instead of rewriting the whole list.
 	 */
 	public void saveToFile() {
-		try (PrintWriter writer = new PrintWriter(new FileWriter(SAVE_FILE))) {
-			for (Song song : songList) {
-				// Save each song's data separated by a delimiter
-				// Format: title|artist|album|releaseDate|dateAdded|priorityQueued
-				writer.println(song.getAsSaveString()); // You'll need to add this method to Song class
-			}
+		MusicListJournal current = journal;
+		if (current == null) {
+			saveToFile(new File(SAVE_FILE));
+			return;
+		}
+		try {
+			current.sync();
+		} catch (IOException e) {
+			System.err.println("Error saving music list: " + e.getMessage());
+		}
+	}
+	
+	/**
+	 * Saves the list to the given file in the binary SongFile format.
+	 * This writes a standalone snapshot; do not point it at the snapshot of
+	 * an open journal.
+	 * 
+	 * @param file the file to write
+	 */
+	public void saveToFile(File file) {
+		try {
+			SongFile.write(file.toPath(), readView());
 		} catch (IOException e) {
 			System.err.println("Error saving music list: " + e.getMessage());
 		}
 	}
 	
 	/**
-	 * Loads the music list from a text file.
-	 * Reads from musiclist_data.txt and parses each line as a song.
-	 * If the file doesn't exist, the list remains empty.
+	 * Loads the list from the binary save file, migrating the old text save
+	 * file if there is no binary one yet, then replays and opens its journal.
 	 */
 	public void loadFromFile() {
 		File file = new File(SAVE_FILE);
-		if (!file.exists()) {
-			return; // No saved data, start with empty list
+		loadFromFile(file, new File(LEGACY_SAVE_FILE));
+		openJournal(file, MusicListJournal.DEFAULT_COMPACT_BYTES);
+	}
+	
+	/**
+	 * Replays the journal of a snapshot onto the list, which must have just
+	 * been loaded from that snapshot, and journals every later change.
+	 * 
+	 * @param file the binary save file the journal belongs to
+	 * @param compactBytes the journal size at which a new snapshot is written
+	 */
+	public void openJournal(File file, long compactBytes) {
+		lockWrites();
+		try {
+			closeJournal();
+			journal = MusicListJournal.open(file.toPath(), snapshotGeneration, this, compactBytes);
+		} catch (IOException e) {
+			System.err.println("Error opening music list journal: " + e.getMessage());
+		} finally {
+			unlockWrites();
 		}
-		
-		try (BufferedReader reader = new BufferedReader(new FileReader(SAVE_FILE))) {
-			String line;
-			while ((line = reader.readLine()) != null) {
-				Song song = new Song(line);
-				if (song != null) {
-					songList.add(song);
+	}
+	
+	/**
+	 * Syncs and closes the journal, if one is open. Later changes are not journaled.
+	 */
+	public void closeJournal() {
+		lockWrites();
+		try {
+			if (journal == null) {
+				return;
+			}
+			journal.close();
+		} catch (IOException e) {
+			System.err.println("Error closing music list journal: " + e.getMessage());
+		} finally {
+			journal = null;
+			unlockWrites();
+		}
+	}
+	
+	/**
+	 * Loads the list from a binary file. If it does not exist but the text file
+	 * does, the text file is loaded and the binary file is written from it.
+	 * The text file is left in place.
+	 * Checkpoints (see captureCheckpoint) are written back to the binary file.
+	 * Every song is decoded, so loading is O(n), but the search indexes are
+	 * left for the first search to build.
+	 * 
+	 * @param file the binary save file
+	 * @param legacyFile the pipe-delimited text save file
+	 */
+	public void loadFromFile(File file, File legacyFile) {
+		lockWrites();
+		try {
+			saveFile = file;
+			deferSearchIndex();
+			if (!file.exists()) {
+				if (legacyFile.exists() && loadFromTextFile(legacyFile)) {
+					saveToFile(file);
 				}
+				return; // No saved data, start with empty list
+			}
+			
+			try (SongFile songFile = SongFile.open(file.toPath())) {
+				snapshotGeneration = songFile.getGeneration();
+				addAll(songFile.getSongs());
+			} catch (IOException e) {
+				System.err.println("Error loading music list: " + e.getMessage());
 			}
+		} finally {
+			unlockWrites();
+		}
+	}
+	
+	/**
+	 * Prints the malformed lines a parser skipped.
+	 * 
+	 * @param file the file that was parsed
+	 * @param parser the parser that read it
+	 */
+	static void reportMalformed(File file, SongParser parser) {
+		if (parser.getMalformedCount() == 0) {
+			return;
+		}
+		System.err.println("Skipped " + parser.getMalformedCount() + " malformed lines in " + file.getName());
+		for (String problem : parser.getProblems()) {
+			System.err.println("  " + problem);
+		}
+	}
+	
+	private boolean loadFromTextFile(File file) {
+		try {
+			// Lines are parsed in parallel; indexing stays on this thread
+			SongParser parser = new SongParser();
+			addAll(ParallelSongLoader.load(file.toPath(), parser));
+			reportMalformed(file, parser);
+			return true;
 		} catch (IOException e) {
 			System.err.println("Error loading music list: " + e.getMessage());
+			return false;
 		}
 	}
 	
 	/**
 	 * Searches for songs matching the query in title, artist, or platform.
-	 * Case-insensitive search.
+	 * Case, accent and extra whitespace insensitive (see TextNormalizer).
+	 * Queries of three or more characters are answered by the trigram index,
+	 * shorter ones scan the cached normalized fields of every song.
+	 * The first such search after a load builds the index.
+	 * In concurrent mode the index is only used when no write is in progress;
+	 * otherwise the search scans the snapshot rather than wait for the writer.
 	 * 
 	 * @param query the search term
 	 * @return an ArrayList of songs matching the query
 	 */
 	public ArrayList<Song> searchSongs(String query) {
-	    ArrayList<Song> results = new ArrayList<>();
-	    String lowerQuery = query.toLowerCase();
+	    String normalizedQuery = TextNormalizer.normalize(query);
+	    if (normalizedQuery.length() >= TrigramIndex.MIN_QUERY_LENGTH) {
+	    	if (writeLock == null) {
+	    		ensureSearchIndex();
+	    		return searchIndex.search(normalizedQuery, songList);
+	    	}
+	    	if (writeLock.tryLock()) {
+	    		try {
+	    			ensureSearchIndex();
+	    			return searchIndex.search(normalizedQuery, songList);
+	    		} finally {
+	    			writeLock.unlock();
+	    		}
+	    	}
+	    }
 	    
-	    for (Song song : songList) {
-	        if (song.getTitle().toLowerCase().contains(lowerQuery) ||
-	            song.getArtist().toLowerCase().contains(lowerQuery) ||
-	            song.getPlatform().toLowerCase().contains(lowerQuery)) {
+	    ArrayList<Song> results = new ArrayList<>();
+	    for (Song song : readView()) {
+	        if (TrigramIndex.matches(song, normalizedQuery)) {
 	            results.add(song);
 	        }
 	    }
 	    
 	    return results;
 	}
+	
+	/**
+	 * Suggests words from song titles and artists that start with the prefix.
+	 * Runs in time proportional to the prefix length, for search-as-you-type.
+	 * 
+	 * @param prefix the start of a word, case-insensitive
+	 * @param limit the maximum number of suggestions (at most 10)
+	 * @return the suggested words, the ones found in the most songs first
+	 */
+	public ArrayList<String> getCompletions(String prefix, int limit) {
+		String normalizedPrefix = TextNormalizer.normalize(prefix);
+		lockWrites();
+		try {
+			ensureSearchIndex();
+			return prefixIndex.completions(normalizedPrefix, limit);
+		} finally {
+			unlockWrites();
+		}
+	}
+	
+	/**
+	 * Finds songs with a title or artist word starting with the prefix.
+	 * Songs holding the most common matching words come first.
+	 * 
+	 * @param prefix the start of a word, case-insensitive
+	 * @param limit the maximum number of songs to return
+	 * @return the matching songs
+	 */
+	public ArrayList<Song> searchByPrefix(String prefix, int limit) {
+		String normalizedPrefix = TextNormalizer.normalize(prefix);
+		lockWrites();
+		try {
+			ensureSearchIndex();
+			return prefixIndex.matches(normalizedPrefix, limit);
+		} finally {
+			unlockWrites();
+		}
+	}
 }
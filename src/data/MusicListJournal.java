@@ -0,0 +1,650 @@
+package data;
+
+import java.io.ByteArrayOutputStream;
+import java.io.DataOutputStream;
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.DirectoryStream;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.time.LocalDate;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.List;
+import java.util.Map;
+import java.util.TreeMap;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+import java.util.zip.CRC32;
+
+/**
+ * Append-only journal of MusicList changes, kept next to a SongFile snapshot.
+ *
+ * Every change is appended as a small checksummed record to a log file named
+ * after the snapshot and its generation, for example musiclist_data.3.log.
+ * Records are buffered in memory and a background thread writes and fsyncs
+ * them in one batch every FLUSH_INTERVAL_MS, so a crash loses at most the last
+ * batch. On startup the logs of the snapshot's generation and later are
+ * replayed on top of the snapshot.
+ *
+ * When the current log grows past the compaction size, the list calls
+ * maybeCompact once the change it logged is fully applied. Appends then move
+ * to a new log of the next generation and a copy of the list is written in
+ * the background as the snapshot of that generation. Older logs are deleted once
+ * the snapshot is in place. A crash at any point leaves a snapshot and a chain
+ * of logs that replay to the same list.
+ *
+ * Record layout: payload length (int), CRC32 of the payload (int), payload.
+ * The payload starts with the operation: add (index, song), remove (index),
+ * replace (count, then each song as a reference to a listed song's id or in
+ * full), clear, remove all (count, then each removed index in ascending
+ * order), add all (index, count, then each song), or edit (count, then each
+ * index the edited song is listed at, then the song). A batch is one record,
+ * so replay applies all of it or none of it. Replay stops at the first torn
+ * or corrupt record; the log is cut there and appending continues from that
+ * point.
+ *
+ * @author Josiah Loomis
+ * @version 1.0
+ */
+public final class MusicListJournal implements AutoCloseable {
+	
+	/** Log size that triggers compaction, unless another size is given */
+	public static final long DEFAULT_COMPACT_BYTES = 8L << 20;
+	
+	/** How often buffered records are written and synced */
+	public static final long FLUSH_INTERVAL_MS = 50;
+	
+	/** "MLJL", followed by the generation */
+	private static final int MAGIC = 0x4D4C4A4C;
+	private static final int HEADER_SIZE = 8;
+	private static final int RECORD_HEADER_SIZE = 8;
+	
+	/** Buffered records past this size are written without waiting for the timer */
+	private static final int MAX_PENDING_BYTES = 1 << 20;
+	
+	private static final byte ADD = 1;
+	private static final byte REMOVE = 2;
+	private static final byte REPLACE = 3;
+	private static final byte CLEAR = 4;
+	private static final byte REMOVE_ALL = 5;
+	private static final byte ADD_ALL = 6;
+	private static final byte EDIT = 7;
+	
+	private static final byte LISTED_SONG = 0;
+	private static final byte FULL_SONG = 1;
+	
+	private static final int NO_DATE = Integer.MIN_VALUE;
+	
+	private final Path snapshot;
+	private final MusicList list;
+	private final long compactBytes;
+	private final ScheduledExecutorService worker;
+	
+	// Records not yet written, and the record being built
+	private final ByteArrayOutputStream pending = new ByteArrayOutputStream();
+	private final ByteArrayOutputStream recordBytes = new ByteArrayOutputStream();
+	private final DataOutputStream record = new DataOutputStream(recordBytes);
+	private final CRC32 crc = new CRC32();
+	
+	private FileChannel channel;
+	private int generation;
+	private long logSize;
+	private Future<?> compaction;
+	private boolean compactionDue;
+	private boolean closed;
+	
+	// Snapshots may be written by the journal's thread and by a CheckpointScheduler
+	private final Object snapshotLock = new Object();
+	private int writtenGeneration;
+	
+	private MusicListJournal(Path snapshot, MusicList list, long compactBytes) {
+		this.snapshot = snapshot;
+		this.list = list;
+		this.compactBytes = compactBytes;
+		this.worker = Executors.newSingleThreadScheduledExecutor(task -> {
+			Thread thread = new Thread(task, "music-list-journal");
+			thread.setDaemon(true);
+			return thread;
+		});
+	}
+	
+	/**
+	 * Replays the journal of a snapshot onto the list and opens it for appending.
+	 * The list must hold exactly the snapshot's songs.
+	 *
+	 * @param snapshot the SongFile snapshot the logs belong to
+	 * @param snapshotGeneration the generation of the loaded snapshot, 0 if there was none
+	 * @param list the list to replay onto and to compact
+	 * @param compactBytes the log size that triggers compaction
+	 * @return the open journal
+	 * @throws IOException if a log cannot be read or created
+	 */
+	public static MusicListJournal open(Path snapshot, int snapshotGeneration, MusicList list, long compactBytes)
+			throws IOException {
+		MusicListJournal journal = new MusicListJournal(snapshot, list, compactBytes);
+		TreeMap<Integer, Path> logs = journal.findLogs();
+	
+		long validEnd = 0;
+		int generation = snapshotGeneration;
+		boolean damaged = false;
+		for (Map.Entry<Integer, Path> log : logs.entrySet()) {
+			if (log.getKey() < snapshotGeneration || damaged) {
+				// Already in the snapshot, or written after changes that were lost
+				Files.deleteIfExists(log.getValue());
+				continue;
+			}
+			generation = log.getKey();
+			validEnd = journal.replay(log.getValue(), generation);
+			damaged = validEnd < Files.size(log.getValue());
+		}
+		
+		// Appending resumes after the last record that was applied
+		journal.openLog(generation, validEnd);
+		journal.writtenGeneration = snapshotGeneration;
+		journal.worker.scheduleWithFixedDelay(journal::flushQuietly, FLUSH_INTERVAL_MS, FLUSH_INTERVAL_MS,
+				TimeUnit.MILLISECONDS);
+		return journal;
+	}
+	
+	/**
+	 * Records that a song was inserted at the given index.
+	 *
+	 * @param index the index of the new song
+	 * @param song the song
+	 */
+	public synchronized void logAdd(int index, Song song) {
+		try {
+			record.writeByte(ADD);
+			record.writeInt(index);
+			writeSong(song);
+		} catch (IOException e) {
+			throw new UncheckedIOException(e); // not thrown by in-memory streams
+		}
+		endRecord();
+	}
+	
+	/**
+	 * Records that songs were appended in one change.
+	 *
+	 * @param index the index of the first new song
+	 * @param songs the songs, in order
+	 */
+	public synchronized void logAddAll(int index, Collection<Song> songs) {
+		try {
+			record.writeByte(ADD_ALL);
+			record.writeInt(index);
+			record.writeInt(songs.size());
+			for (Song song : songs) {
+				writeSong(song);
+			}
+		} catch (IOException e) {
+			throw new UncheckedIOException(e);
+		}
+		endRecord();
+	}
+	
+	/**
+	 * Records that the song at the given index was removed.
+	 *
+	 * @param index the index of the removed song
+	 */
+	public synchronized void logRemove(int index) {
+		try {
+			record.writeByte(REMOVE);
+			record.writeInt(index);
+		} catch (IOException e) {
+			throw new UncheckedIOException(e);
+		}
+		endRecord();
+	}
+	
+	/**
+	 * Records that the list was replaced. Songs that were listed before the
+	 * change are written as id references, the others in full.
+	 *
+	 * @param songs the new contents of the list
+	 * @param listed whether each song was listed before the change, or null if all were
+	 */
+	public synchronized void logReplace(List<Song> songs, boolean[] listed) {
+		try {
+			record.writeByte(REPLACE);
+			record.writeInt(songs.size());
+			for (int i = 0; i < songs.size(); i++) {
+				Song song = songs.get(i);
+				if (listed == null || listed[i]) {
+					record.writeByte(LISTED_SONG);
+					record.writeLong(song.getId());
+				} else {
+					record.writeByte(FULL_SONG);
+					writeSong(song);
+				}
+			}
+		} catch (IOException e) {
+			throw new UncheckedIOException(e);
+		}
+		endRecord();
+	}
+	
+	/**
+	 * Records that a listed song was edited in place.
+	 *
+	 * @param indexes every index the song is listed at, in ascending order
+	 * @param song the song as edited
+	 */
+	public synchronized void logEdit(int[] indexes, Song song) {
+		try {
+			record.writeByte(EDIT);
+			record.writeInt(indexes.length);
+			for (int index : indexes) {
+				record.writeInt(index);
+			}
+			writeSong(song);
+		} catch (IOException e) {
+			throw new UncheckedIOException(e);
+		}
+		endRecord();
+	}
+	
+	/**
+	 * Records that the songs at the given indexes were removed in one change.
+	 * Positions rather than ids, since a song can be listed more than once.
+	 *
+	 * @param indexes the removed indexes in ascending order, as they were before the removal
+	 */
+	public synchronized void logRemoveAll(int[] indexes) {
+		try {
+			record.writeByte(REMOVE_ALL);
+			record.writeInt(indexes.length);
+			for (int index : indexes) {
+				record.writeInt(index);
+			}
+		} catch (IOException e) {
+			throw new UncheckedIOException(e);
+		}
+		endRecord();
+	}
+	
+	/**
+	 * Records that the list was cleared.
+	 */
+	public synchronized void logClear() {
+		try {
+			record.writeByte(CLEAR);
+		} catch (IOException e) {
+			throw new UncheckedIOException(e);
+		}
+		endRecord();
+	}
+	
+	/**
+	 * Writes and fsyncs every buffered record now.
+	 *
+	 * @throws IOException if the log cannot be written
+	 */
+	public synchronized void sync() throws IOException {
+		if (pending.size() == 0 || closed) {
+			return;
+		}
+		ByteBuffer bytes = ByteBuffer.wrap(pending.toByteArray());
+		while (bytes.hasRemaining()) {
+			channel.write(bytes);
+		}
+		channel.force(false);
+		logSize += pending.size();
+		pending.reset();
+	}
+	
+	/**
+	 * Gets the generation of the log being appended to.
+	 *
+	 * @return the current generation
+	 */
+	public synchronized int getGeneration() {
+		return generation;
+	}
+	
+	/**
+	 * Syncs the log, waits for a running compaction and closes the journal.
+	 *
+	 * @throws IOException if the log cannot be written
+	 */
+	@Override
+	public void close() throws IOException {
+		Future<?> running;
+		synchronized (this) {
+			if (closed) {
+				return;
+			}
+			sync();
+			running = compaction;
+		}
+		if (running != null) {
+			try {
+				running.get();
+			} catch (Exception e) {
+				// Already reported by the compaction itself
+			}
+		}
+		synchronized (this) {
+			worker.shutdown();
+			channel.close();
+			closed = true;
+		}
+	}
+	
+	/**
+	 * Compacts if the log has grown past the compaction size. The list calls
+	 * this after applying each change it logged, with the change's writer lock
+	 * still held, so a snapshot never holds half of a change.
+	 */
+	public synchronized void maybeCompact() {
+		if (!compactionDue || closed || (compaction != null && !compaction.isDone())) {
+			return;
+		}
+		compactionDue = false;
+		try {
+			startCompaction();
+		} catch (IOException e) {
+			System.err.println("Error compacting music list journal: " + e.getMessage());
+		}
+	}
+	
+	/**
+	 * Adds the finished record to the pending batch and notes whether the log
+	 * is due for compaction. Compacting here could split a change in progress.
+	 */
+	private void endRecord() {
+		if (closed) {
+			recordBytes.reset();
+			throw new IllegalStateException("Journal is closed");
+		}
+		crc.reset();
+		crc.update(recordBytes.toByteArray());
+		int length = recordBytes.size();
+		pending.write(length >>> 24);
+		pending.write(length >>> 16);
+		pending.write(length >>> 8);
+		pending.write(length);
+		int checksum = (int) crc.getValue();
+		pending.write(checksum >>> 24);
+		pending.write(checksum >>> 16);
+		pending.write(checksum >>> 8);
+		pending.write(checksum);
+		pending.write(recordBytes.toByteArray(), 0, length);
+		recordBytes.reset();
+	
+		try {
+			if (pending.size() > MAX_PENDING_BYTES) {
+				sync();
+			}
+			if (logSize + pending.size() > compactBytes) {
+				compactionDue = true;
+			}
+		} catch (IOException e) {
+			System.err.println("Error writing music list journal: " + e.getMessage());
+		}
+	}
+	
+	/**
+	 * Moves appends to a log of the next generation and returns the writer of
+	 * the snapshot of that generation. Call on the thread that changes the list.
+	 * 
+	 * @return writes the snapshot and deletes the logs it replaces
+	 * @throws IOException if the new log cannot be created
+	 */
+	public synchronized Checkpointable.Writer captureCheckpoint() throws IOException {
+		sync();
+		int next = generation + 1;
+		ArrayList<Song> songs = list.getSongs();
+		channel.close();
+		openLog(next, 0);
+		compactionDue = false;
+		return () -> writeSnapshot(songs, next);
+	}
+	
+	/**
+	 * Starts a checkpoint whose snapshot is written on the journal's thread.
+	 */
+	private void startCompaction() throws IOException {
+		Checkpointable.Writer writer = captureCheckpoint();
+		compaction = worker.submit(() -> {
+			try {
+				writer.write();
+			} catch (IOException e) {
+				System.err.println("Error compacting music list journal: " + e.getMessage());
+			}
+		});
+	}
+	
+	private long writeSnapshot(ArrayList<Song> songs, int snapshotGeneration) throws IOException {
+		synchronized (snapshotLock) {
+			if (snapshotGeneration <= writtenGeneration) {
+				return 0; // a newer snapshot is already in place
+			}
+			long bytes = SongFile.write(snapshot, songs, snapshotGeneration);
+			writtenGeneration = snapshotGeneration;
+			for (Map.Entry<Integer, Path> log : findLogs().headMap(snapshotGeneration).entrySet()) {
+				Files.deleteIfExists(log.getValue());
+			}
+			return bytes;
+		}
+	}
+	
+	private void flushQuietly() {
+		try {
+			sync();
+		} catch (IOException e) {
+			System.err.println("Error writing music list journal: " + e.getMessage());
+		}
+	}
+	
+	/**
+	 * Opens the log of a generation for appending, cutting it to validEnd.
+	 * A validEnd of 0 starts the log over.
+	 */
+	private void openLog(int generation, long validEnd) throws IOException {
+		channel = FileChannel.open(logPath(generation), StandardOpenOption.CREATE, StandardOpenOption.WRITE);
+		if (validEnd < HEADER_SIZE) {
+			ByteBuffer header = ByteBuffer.allocate(HEADER_SIZE).putInt(MAGIC).putInt(generation);
+			header.flip();
+			channel.truncate(0);
+			channel.write(header, 0);
+			channel.force(false);
+			validEnd = HEADER_SIZE;
+		}
+		channel.truncate(validEnd);
+		channel.position(validEnd);
+		this.generation = generation;
+		this.logSize = validEnd;
+	}
+	
+	/**
+	 * Applies a log's records to the list.
+	 *
+	 * @return the end of the last record applied
+	 */
+	private long replay(Path log, int expectedGeneration) throws IOException {
+		ByteBuffer bytes = ByteBuffer.wrap(Files.readAllBytes(log));
+		if (bytes.remaining() < HEADER_SIZE || bytes.getInt() != MAGIC || bytes.getInt() != expectedGeneration) {
+			return 0;
+		}
+		while (bytes.remaining() >= RECORD_HEADER_SIZE) {
+			int start = bytes.position();
+			int length = bytes.getInt();
+			int checksum = bytes.getInt();
+			if (length <= 0 || length > bytes.remaining()) {
+				return start; // torn write
+			}
+			crc.reset();
+			crc.update(bytes.array(), bytes.position(), length);
+			if ((int) crc.getValue() != checksum) {
+				return start;
+			}
+			ByteBuffer payload = bytes.slice(bytes.position(), length);
+			bytes.position(bytes.position() + length);
+			try {
+				apply(payload);
+			} catch (RuntimeException e) {
+				System.err.println("Stopped replaying " + log.getFileName() + ": " + e);
+				return start;
+			}
+		}
+		return bytes.position();
+	}
+	
+	private void apply(ByteBuffer payload) {
+		byte operation = payload.get();
+		switch (operation) {
+			case ADD:
+				int index = payload.getInt();
+				list.addAt(index, readSong(payload));
+				break;
+			case REMOVE:
+				list.removeAt(payload.getInt());
+				break;
+			case REPLACE:
+				int count = payload.getInt();
+				ArrayList<Song> songs = new ArrayList<>(count);
+				for (int i = 0; i < count; i++) {
+					if (payload.get() == LISTED_SONG) {
+						long id = payload.getLong();
+						Song song = list.getSongById(id);
+						if (song == null) {
+							throw new IllegalStateException("Unknown song id " + Long.toHexString(id));
+						}
+						songs.add(song);
+					} else {
+						songs.add(readSong(payload));
+					}
+				}
+				list.updateList(songs);
+				break;
+			case CLEAR:
+				list.clear();
+				break;
+			case REMOVE_ALL:
+				int[] indexes = new int[payload.getInt()];
+				for (int i = 0; i < indexes.length; i++) {
+					indexes[i] = payload.getInt();
+				}
+				list.removeIndexes(indexes);
+				break;
+			case ADD_ALL:
+				int start = payload.getInt();
+				if (start != list.size()) {
+					throw new IllegalStateException("Batch added at " + start + " to " + list.size() + " songs");
+				}
+				int added = payload.getInt();
+				ArrayList<Song> batch = new ArrayList<>(added);
+				for (int i = 0; i < added; i++) {
+					batch.add(readSong(payload));
+				}
+				list.addAll(batch);
+				break;
+			case EDIT:
+				int[] listings = new int[payload.getInt()];
+				for (int i = 0; i < listings.length; i++) {
+					listings[i] = payload.getInt();
+				}
+				Song edited = readSong(payload);
+				for (int listing : listings) {
+					if (!list.getSong(listing).equals(edited)) {
+						throw new IllegalStateException("Edited song " + Long.toHexString(edited.getId())
+								+ " is not at " + listing);
+					}
+				}
+				for (int listing : listings) {
+					list.removeAt(listing);
+					list.addAt(listing, edited);
+				}
+				break;
+			default:
+				throw new IllegalStateException("Unknown journal operation " + operation);
+		}
+	}
+	
+	private void writeSong(Song song) throws IOException {
+		record.writeLong(song.getId());
+		writeString(song.getTitle());
+		writeString(song.getArtist());
+		writeString(song.getPlatform());
+		writeString(song.getSongLink());
+		record.writeInt(song.getReleaseDate() == null ? NO_DATE : (int) song.getReleaseDate().toEpochDay());
+		record.writeInt(song.getDateAdded() == null ? NO_DATE : (int) song.getDateAdded().toEpochDay());
+	}
+	
+	private void writeString(String value) throws IOException {
+		if (value == null) {
+			record.writeInt(-1);
+			return;
+		}
+		byte[] bytes = value.getBytes(StandardCharsets.UTF_8);
+		record.writeInt(bytes.length);
+		record.write(bytes);
+	}
+	
+	private static Song readSong(ByteBuffer payload) {
+		long id = payload.getLong();
+		Song song = new Song(readString(payload), readString(payload), readString(payload), readString(payload),
+				readDate(payload), readDate(payload));
+		song.setId(id);
+		return song;
+	}
+	
+	private static String readString(ByteBuffer payload) {
+		int length = payload.getInt();
+		if (length < 0) {
+			return null;
+		}
+		String value = new String(payload.array(), payload.arrayOffset() + payload.position(), length,
+				StandardCharsets.UTF_8);
+		payload.position(payload.position() + length);
+		return value;
+	}
+	
+	private static LocalDate readDate(ByteBuffer payload) {
+		int day = payload.getInt();
+		return day == NO_DATE ? null : LocalDate.ofEpochDay(day);
+	}
+	
+	/**
+	 * Finds the logs of this journal's snapshot by generation.
+	 */
+	private TreeMap<Integer, Path> findLogs() throws IOException {
+		TreeMap<Integer, Path> logs = new TreeMap<>();
+		String prefix = baseName() + ".";
+		Path directory = snapshot.toAbsolutePath().getParent();
+		try (DirectoryStream<Path> files = Files.newDirectoryStream(directory, prefix + "*.log")) {
+			for (Path file : files) {
+				String name = file.getFileName().toString();
+				String number = name.substring(prefix.length(), name.length() - ".log".length());
+				try {
+					logs.put(Integer.parseInt(number), file);
+				} catch (NumberFormatException e) {
+					// Not one of ours
+				}
+			}
+		}
+		return logs;
+	}
+	
+	private Path logPath(int generation) {
+		return snapshot.toAbsolutePath().resolveSibling(baseName() + "." + generation + ".log");
+	}
+	
+	/**
+	 * The snapshot's file name without its extension.
+	 */
+	private String baseName() {
+		String name = snapshot.getFileName().toString();
+		int dot = name.lastIndexOf('.');
+		return dot > 0 ? name.substring(0, dot) : name;
+	}
+}
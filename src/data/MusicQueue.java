@@ -3,54 +3,256 @@ package data;
 import java.io.BufferedReader;
 import java.io.File;
 import java.io.FileReader;
-import java.io.FileWriter;
 import java.io.IOException;
-import java.io.PrintWriter;
+import java.io.OutputStreamWriter;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Path;
 import java.util.ArrayList;
-import java.util.PriorityQueue;
+import java.util.Comparator;
+import java.util.Iterator;
+import java.util.List;
+import java.util.NoSuchElementException;
+import java.util.concurrent.CopyOnWriteArrayList;
 
 /**
- * Manages a priority queue of songs where songs can be marked as high priority.
- * Priority songs are automatically ordered before non-priority songs.
- * Uses Java's PriorityQueue with Song's natural ordering (Comparable).
+ * Manages a priority queue of songs with integer priority levels from 0 to
+ * MAX_PRIORITY, where higher levels are dequeued first and songs of the same
+ * level come out in the order they were added.
+ * Each level is a FIFO bucket, and a bit mask records which buckets are
+ * non-empty, so enqueue, dequeue and peek are O(1) however many songs are
+ * queued, and the queue iterates in order without copying.
+ * The boolean priority flag maps onto the HIGH and NORMAL levels.
+ * 
+ * Every enqueue returns a Handle to its entry. The buckets are doubly linked
+ * lists of handles, so an entry can be removed or moved to another level in
+ * O(1), plus O(log n) to keep its position known: each level also counts its
+ * entries in a Fenwick tree by the order they were appended, so an entry's
+ * position is the counts of the levels above plus a prefix sum in its own.
+ * 
+ * Changes to the play order are reported to SongChangeListeners, with
+ * positions counted from the next song to play. The bulk methods enqueueAll
+ * and dequeueBatch send one event for many songs.
  * 
  * @author JosiahLoomis
  * @version 1.0
  */
-public class MusicQueue {
+public class MusicQueue implements Checkpointable, Iterable<Song> {
 
-	 private PriorityQueue<Song> pq = new PriorityQueue<>();
+	 /** Level for songs that only play when nothing else is queued */
+	 public static final int BACKGROUND = 0;
+	 /** Level of songs queued without priority */
+	 public static final int NORMAL = 1;
+	 /** Level of songs queued with priority */
+	 public static final int HIGH = 2;
+	 /** Level for songs that play before everything else */
+	 public static final int URGENT = 3;
+	 /** The highest level, limited by the bits of the occupied mask */
+	 public static final int MAX_PRIORITY = Integer.SIZE - 1;
+	 
+	 private final Handle[] heads = new Handle[MAX_PRIORITY + 1];
+	 private final Handle[] tails = new Handle[MAX_PRIORITY + 1];
+	 private final int[] counts = new int[MAX_PRIORITY + 1];
+	 private final LevelRanks[] ranks = new LevelRanks[MAX_PRIORITY + 1];
+	 private int occupied; // bit n is set when level n has songs
+	 private int size;
 	 private static final String SAVE_FILE = "musicqueue_data.txt";
 	 private long sequenceCounter = 0;
+	 private long modCount;
+	 private final List<SongChangeListener> listeners = new CopyOnWriteArrayList<>();
+	 
+	 /**
+	  * A queued entry. Stays valid until the song is dequeued or removed.
+	  */
+	 public static final class Handle {
+		 private final Song song;
+		 private MusicQueue queue; // null once the entry has left the queue
+		 private int level;
+		 private int slot; // order appended within the level, see LevelRanks
+		 private Handle previous;
+		 private Handle next;
+		 
+		 private Handle(Song song) {
+			 this.song = song;
+		 }
+		 
+		 /**
+		  * Gets the queued copy of the song.
+		  * 
+		  * @return the queued song
+		  */
+		 public Song getSong() {
+			 return song;
+		 }
+		 
+		 /**
+		  * Gets the level the entry is queued at.
+		  * 
+		  * @return the priority level
+		  */
+		 public int getPriority() {
+			 return level;
+		 }
+		 
+		 /**
+		  * Checks whether the entry is still in its queue.
+		  * 
+		  * @return false once the song has been dequeued or removed
+		  */
+		 public boolean isQueued() {
+			 return queue != null;
+		 }
+	 }
+	
+	 /**
+	  * Fenwick tree over the slots of one level, counting the entries still in it.
+	  * Slots are handed out in append order, which is the level's play order.
+	  */
+	 private static final class LevelRanks {
+		 private int[] tree = new int[17]; // 1-based
+		 private int nextSlot;
+		 
+		 boolean isFull() {
+			 return nextSlot == tree.length - 1;
+		 }
+		 
+		 void add(int slot, int delta) {
+			 for (int i = slot + 1; i < tree.length; i += i & -i) {
+				 tree[i] += delta;
+			 }
+		 }
+		 
+		 /**
+		  * Counts the entries in slots before the given one.
+		  */
+		 int countBefore(int slot) {
+			 int count = 0;
+			 for (int i = slot; i > 0; i -= i & -i) {
+				 count += tree[i];
+			 }
+			 return count;
+		 }
+		 
+		 /**
+		  * Starts over with the first count slots taken, room to double.
+		  */
+		 void reset(int count) {
+			 tree = new int[Math.max(16, 2 * count) + 1];
+			 for (int i = 1; i < tree.length; i++) {
+				 if (i <= count) {
+					 tree[i]++;
+				 }
+				 int parent = i + (i & -i);
+				 if (parent < tree.length) {
+					 tree[parent] += tree[i];
+				 }
+			 }
+			 nextSlot = count;
+		 }
+	 }
 	
 	 /**
 	  * Adds a song to the priority queue with the specified priority status.
-	  * Priority songs will be ordered before non-priority songs when dequeued.
+	  * Priority songs are queued at HIGH and the rest at NORMAL.
 	  * 
 	  * @param song the song to add to the queue
 	  * @param priorityQueue true if the song should have priority, false otherwise
+	  * @return the handle of the new entry
+	  */
+	 public Handle enqueue(Song song, Boolean priorityQueue) {
+		 return enqueue(song, Boolean.TRUE.equals(priorityQueue) ? HIGH : NORMAL);
+	 }
+	 
+	 /**
+	  * Adds a song to the queue at the given priority level.
+	  * It is dequeued after every song of a higher level and every song
+	  * already queued at the same level.
+	  * 
+	  * @param song the song to add to the queue
+	  * @param priority the level, from BACKGROUND (0) to MAX_PRIORITY
+	  * @return the handle of the new entry
+	  * @throws IllegalArgumentException if the level is out of range
+	  */
+	 public Handle enqueue(Song song, int priority) {
+		 checkPriority(priority);
+		 Handle handle = new Handle(song.clone());
+		 setLevel(handle, priority);
+		 link(handle);
+		 modCount++;
+		 int position = countFrom(priority) - 1;
+		 fire(SongChangeEvent.Type.ADDED, position, position + 1);
+		 return handle;
+	 }
+	 
+	 /**
+	  * Adds songs to the back of one priority level in one change, sending
+	  * listeners a single ADDED event.
+	  * 
+	  * @param songs the songs to add, in order
+	  * @param priority the level, from BACKGROUND (0) to MAX_PRIORITY
+	  * @return the handles of the new entries, in order
+	  * @throws IllegalArgumentException if the level is out of range
+	  */
+	 public List<Handle> enqueueAll(List<Song> songs, int priority) {
+		 checkPriority(priority);
+		 ArrayList<Handle> handles = new ArrayList<>(songs.size());
+		 for (Song song : songs) {
+			 Handle handle = new Handle(song.clone());
+			 setLevel(handle, priority);
+			 link(handle);
+			 handles.add(handle);
+		 }
+		 if (!handles.isEmpty()) {
+			 modCount++;
+			 int end = countFrom(priority);
+			 fire(SongChangeEvent.Type.ADDED, end - handles.size(), end);
+		 }
+		 return handles;
+	 }
+	 
+	 /**
+	  * Removes and returns up to n songs in the order dequeue would return them,
+	  * sending listeners a single REMOVED event.
+	  * 
+	  * @param n the most songs to take
+	  * @return the songs taken, fewer than n if the queue ran out
 	  */
-	 public void enqueue(Song song, Boolean priorityQueue) {
-		 Song queuedSong = song.clone();
-		 queuedSong.setPriorityQueued(priorityQueue);
-		 queuedSong.setQueueSequence(sequenceCounter++);
-		 pq.offer(queuedSong);
+	 public ArrayList<Song> dequeueBatch(int n) {
+		 ArrayList<Song> songs = new ArrayList<>(Math.max(0, Math.min(n, size)));
+		 while (songs.size() < n && occupied != 0) {
+			 Handle head = heads[topLevel()];
+			 unlink(head);
+			 songs.add(head.song);
+		 }
+		 if (!songs.isEmpty()) {
+			 modCount++;
+			 fire(SongChangeEvent.Type.REMOVED, 0, songs.size());
+		 }
+		 if (isEmpty()) {
+			 sequenceCounter = 0;
+		 }
+		 return songs;
 	 }
 	    
 	 /**
 	  * Removes and returns the highest priority song from the queue.
-	  * Priority songs are returned before non-priority songs.
+	  * Songs of higher levels are returned before songs of lower levels.
 	  * 
 	  * @return the highest priority song, or null if the queue is empty
 	  */
 	 public Song dequeue() {
-	     Song song = pq.poll();
+	     if (occupied == 0) {
+	    	 return null;
+	     }
+	     Handle head = heads[topLevel()];
+	     unlink(head);
+	     modCount++;
+	     fire(SongChangeEvent.Type.REMOVED, 0, 1);
 	     
-	     if (pq.isEmpty()) {
+	     if (isEmpty()) {
 	 		sequenceCounter = 0;
 	 	 }
 	    
-	     return song;
+	     return head.song;
 	 }
 	    
 	 /**
@@ -59,7 +261,140 @@ public class MusicQueue {
 	  * @return the highest priority song, or null if the queue is empty
 	  */
 	 public Song peek() {
-	     return pq.peek();
+	     return occupied == 0 ? null : heads[topLevel()].song;
+	 }
+	 
+	 /**
+	  * Removes an entry from the queue wherever it is.
+	  * 
+	  * @param handle the entry to remove
+	  * @return true if the entry was in this queue
+	  */
+	 public boolean remove(Handle handle) {
+		 if (handle.queue != this) {
+			 return false;
+		 }
+		 int position = listeners.isEmpty() ? -1 : positionOf(handle);
+		 unlink(handle);
+		 modCount++;
+		 fire(SongChangeEvent.Type.REMOVED, position, position + 1);
+		 if (isEmpty()) {
+			 sequenceCounter = 0;
+		 }
+		 return true;
+	 }
+	 
+	 /**
+	  * Moves an entry to another level. It goes behind the songs already
+	  * queued at that level. Moving an entry to its own level does nothing.
+	  * 
+	  * @param handle the entry to move
+	  * @param priority the new level, from BACKGROUND (0) to MAX_PRIORITY
+	  * @return true if the entry was in this queue
+	  * @throws IllegalArgumentException if the level is out of range
+	  */
+	 public boolean reprioritize(Handle handle, int priority) {
+		 checkPriority(priority);
+		 if (handle.queue != this) {
+			 return false;
+		 }
+		 if (handle.level != priority) {
+			 int position = listeners.isEmpty() ? -1 : positionOf(handle);
+			 unlink(handle);
+			 fire(SongChangeEvent.Type.REMOVED, position, position + 1);
+			 setLevel(handle, priority);
+			 link(handle);
+			 modCount++;
+			 position = countFrom(priority) - 1;
+			 fire(SongChangeEvent.Type.ADDED, position, position + 1);
+		 }
+		 return true;
+	 }
+	 
+	 /**
+	  * Moves an entry up one level, unless it is already at MAX_PRIORITY.
+	  * 
+	  * @param handle the entry to move
+	  * @return true if the entry was in this queue
+	  */
+	 public boolean promote(Handle handle) {
+		 return reprioritize(handle, Math.min(handle.level + 1, MAX_PRIORITY));
+	 }
+	 
+	 /**
+	  * Moves an entry down one level, unless it is already at BACKGROUND.
+	  * 
+	  * @param handle the entry to move
+	  * @return true if the entry was in this queue
+	  */
+	 public boolean demote(Handle handle) {
+		 return reprioritize(handle, Math.max(handle.level - 1, BACKGROUND));
+	 }
+	 
+	 /**
+	  * Gets how many songs will be dequeued before an entry, in O(log n).
+	  * Adds the counts of the levels above it to its rank within its level.
+	  * 
+	  * @param handle the entry
+	  * @return the entry's 0-based position, or -1 if it is not in this queue
+	  */
+	 public int positionOf(Handle handle) {
+		 if (handle.queue != this) {
+			 return -1;
+		 }
+		 int position = 0;
+		 for (int level = MAX_PRIORITY; level > handle.level; level--) {
+			 position += counts[level];
+		 }
+		 return position + ranks[handle.level].countBefore(handle.slot);
+	 }
+	 
+	 /**
+	  * Gets the entry at a position in the play order.
+	  * Skips whole levels by their counts, then walks from the nearer end of the level.
+	  * 
+	  * @param index the 0-based position
+	  * @return the entry that will be dequeued after index others
+	  * @throws IndexOutOfBoundsException if there is no such position
+	  */
+	 public Handle get(int index) {
+		 if (index < 0 || index >= size) {
+			 throw new IndexOutOfBoundsException("Index " + index + " out of bounds for size " + size);
+		 }
+		 int level = MAX_PRIORITY;
+		 while (index >= counts[level]) {
+			 index -= counts[level--];
+		 }
+		 Handle handle;
+		 if (index < counts[level] / 2) {
+			 handle = heads[level];
+			 for (int i = 0; i < index; i++) {
+				 handle = handle.next;
+			 }
+		 } else {
+			 handle = tails[level];
+			 for (int i = counts[level] - 1; i > index; i--) {
+				 handle = handle.previous;
+			 }
+		 }
+		 return handle;
+	 }
+	 
+	 /**
+	  * Gets the entry that will be dequeued right after another.
+	  * 
+	  * @param handle an entry of this queue
+	  * @return the following entry, or null if the handle is last or not in this queue
+	  */
+	 public Handle next(Handle handle) {
+		 if (handle.queue != this) {
+			 return null;
+		 }
+		 if (handle.next != null) {
+			 return handle.next;
+		 }
+		 int below = occupied & ((1 << handle.level) - 1);
+		 return below == 0 ? null : heads[31 - Integer.numberOfLeadingZeros(below)];
 	 }
 	   
 	 /**
@@ -68,7 +403,7 @@ public class MusicQueue {
 	  * @return true if the queue contains no songs, false otherwise
 	  */
 	 public boolean isEmpty() {
-	     return pq.isEmpty();
+	     return size == 0;
 	 }
 	    
 	 /**
@@ -77,53 +412,260 @@ public class MusicQueue {
 	  * @return the size of the music queue
 	  */
 	 public int size() {
-		 return pq.size();
+		 return size;
 	 }
 	 
 	 /**
 	  * Returns all songs currently in the queue without removing them.
-	  * Songs are returned in priority order (priority songs first, then by insertion order).
+	  * Songs are returned in priority order (highest level first, then by insertion order).
 	  * 
 	  * @return an ArrayList of songs in priority order
 	  */
 	 public ArrayList<Song> getAllSongs() {
-		 ArrayList<Song> songs = new ArrayList<>();
-			
-			// Create a NEW PriorityQueue with the same elements
-			// This forces the heap to re-heapify properly
-			PriorityQueue<Song> tempQueue = new PriorityQueue<>(pq);
-			
-			// Poll from the copy to get songs in correct priority order
-			while (!tempQueue.isEmpty()) {
-				songs.add(tempQueue.poll());
-			}
-			
-			return songs;
+		 ArrayList<Song> songs = new ArrayList<>(size());
+		 for (Song song : this) {
+			 songs.add(song);
+		 }
+		 return songs;
 	 }
 	 
 	 /**
-	  * Saves the music queue to a text file.
-	  * Each song is saved as a pipe-delimited line including priority status.
-	  * The file is saved to musicqueue_data.txt in the current directory.
+	  * Iterates over the queued songs in the order they will be dequeued,
+	  * without copying them. The queue must not change during iteration.
+	  * 
+	  * @return an iterator over the queued songs
 	  */
-	 public void saveToFile() {
-		 try (PrintWriter writer = new PrintWriter(new FileWriter(SAVE_FILE))) {
+	 @Override
+	 public Iterator<Song> iterator() {
+		 Iterator<Handle> handles = handles().iterator();
+		 return new Iterator<Song>() {
+			 @Override
+			 public boolean hasNext() {
+				 return handles.hasNext();
+			 }
+			 
+			 @Override
+			 public Song next() {
+				 return handles.next().song;
+			 }
+		 };
+	 }
+	 
+	 /**
+	  * Gets the entries in the order they will be dequeued, for removing or
+	  * moving them. The queue must not change during iteration.
+	  * 
+	  * @return the queued entries
+	  */
+	 public Iterable<Handle> handles() {
+		 return () -> new Iterator<Handle>() {
+			 private int remaining = occupied;
+			 private Handle next = nextLevel();
 			 
-			 writer.println("SEQUENCE:" + sequenceCounter);
+			 @Override
+			 public boolean hasNext() {
+				 return next != null;
+			 }
 			 
-			 for (Song song : pq) {
-				 // Save each song's data
-				 writer.println(song.getAsSaveStringForPriorityQueue());
+			 @Override
+			 public Handle next() {
+				 if (next == null) {
+					 throw new NoSuchElementException();
+				 }
+				 Handle current = next;
+				 next = current.next != null ? current.next : nextLevel();
+				 return current;
+			 }
+			 
+			 private Handle nextLevel() {
+				 if (remaining == 0) {
+					 return null;
+				 }
+				 int level = 31 - Integer.numberOfLeadingZeros(remaining);
+				 remaining &= ~(1 << level);
+				 return heads[level];
+			 }
+		 };
+	 }
+	 
+	 /**
+	  * Gets the level a song is queued at. Songs saved before there were
+	  * levels use their priority flag.
+	  * 
+	  * @param song the song
+	  * @return the song's level
+	  */
+	 static int levelOf(Song song) {
+		 int level = song.getQueuePriority();
+		 if (level != Song.NO_PRIORITY) {
+			 return level;
+		 }
+		 return Boolean.TRUE.equals(song.getPriorityQueued()) ? HIGH : NORMAL;
+	 }
+	 
+	 /**
+	  * Registers a listener for every later change to the play order.
+	  * 
+	  * @param listener the listener to add
+	  */
+	 public void addChangeListener(SongChangeListener listener) {
+		 listeners.add(listener);
+	 }
+	 
+	 /**
+	  * Stops sending changes to a listener.
+	  * 
+	  * @param listener the listener to remove
+	  */
+	 public void removeChangeListener(SongChangeListener listener) {
+		 listeners.remove(listener);
+	 }
+	 
+	 private void fire(SongChangeEvent.Type type, int fromIndex, int toIndex) {
+		 if (listeners.isEmpty()) {
+			 return;
+		 }
+		 SongChangeEvent event = new SongChangeEvent(this, type, fromIndex, toIndex);
+		 for (SongChangeListener listener : listeners) {
+			 listener.songsChanged(event);
+		 }
+	 }
+	 
+	 /**
+	  * Counts the songs at the given level and above.
+	  */
+	 private int countFrom(int level) {
+		 int count = 0;
+		 for (int i = MAX_PRIORITY; i >= level; i--) {
+			 count += counts[i];
+		 }
+		 return count;
+	 }
+	 
+	 private static void checkPriority(int priority) {
+		 if (priority < 0 || priority > MAX_PRIORITY) {
+			 throw new IllegalArgumentException("Priority must be from 0 to " + MAX_PRIORITY + ": " + priority);
+		 }
+	 }
+	 
+	 private int topLevel() {
+		 return 31 - Integer.numberOfLeadingZeros(occupied);
+	 }
+	 
+	 /**
+	  * Gives the entry's song a level and the next sequence number.
+	  */
+	 private void setLevel(Handle handle, int priority) {
+		 handle.level = priority;
+		 handle.song.setQueuePriority(priority);
+		 handle.song.setPriorityQueued(priority > NORMAL);
+		 handle.song.setQueueSequence(sequenceCounter++);
+	 }
+	 
+	 /**
+	  * Appends the entry to the back of its level.
+	  */
+	 private void link(Handle handle) {
+		 int level = handle.level;
+		 LevelRanks levelRanks = ranks[level];
+		 if (levelRanks == null) {
+			 levelRanks = ranks[level] = new LevelRanks();
+		 }
+		 if (levelRanks.isFull()) {
+			 // Renumber the entries still queued from 0, amortized over the appends since the last time
+			 levelRanks.reset(counts[level]);
+			 int slot = 0;
+			 for (Handle queued = heads[level]; queued != null; queued = queued.next) {
+				 queued.slot = slot++;
 			 }
+		 }
+		 handle.slot = levelRanks.nextSlot++;
+		 levelRanks.add(handle.slot, 1);
+		 Handle tail = tails[level];
+		 handle.previous = tail;
+		 if (tail == null) {
+			 heads[level] = handle;
+			 occupied |= 1 << level;
+		 } else {
+			 tail.next = handle;
+		 }
+		 tails[level] = handle;
+		 handle.queue = this;
+		 counts[level]++;
+		 size++;
+	 }
+	 
+	 private void unlink(Handle handle) {
+		 int level = handle.level;
+		 if (handle.previous == null) {
+			 heads[level] = handle.next;
+		 } else {
+			 handle.previous.next = handle.next;
+		 }
+		 if (handle.next == null) {
+			 tails[level] = handle.previous;
+		 } else {
+			 handle.next.previous = handle.previous;
+		 }
+		 if (heads[level] == null) {
+			 occupied &= ~(1 << level);
+		 }
+		 handle.previous = null;
+		 handle.next = null;
+		 handle.queue = null;
+		 ranks[level].add(handle.slot, -1);
+		 if (--counts[level] == 0) {
+			 ranks[level].nextSlot = 0; // every slot is back to 0
+		 }
+		 size--;
+	 }
+	 
+	 /**
+	  * Saves the music queue to a text file.
+	  * Each song is saved as a pipe-delimited line including priority status.
+	  * The file is saved to musicqueue_data.txt in the current directory,
+	  * replacing the old file only once the new one is complete.
+	  */
+	 public void saveToFile() {
+		 try {
+			 writeQueue(Path.of(SAVE_FILE), getAllSongs(), sequenceCounter);
 		 } catch (IOException e) {
 			 System.err.println("Error saving music queue: " + e.getMessage());
 		 }
 	 }
 	 
+	 @Override
+	 public long getModCount() {
+		 return modCount;
+	 }
+	 
+	 /**
+	  * Copies the queue for a background save to musicqueue_data.txt.
+	  */
+	 @Override
+	 public Checkpointable.Writer captureCheckpoint() {
+		 ArrayList<Song> songs = getAllSongs();
+		 long sequence = sequenceCounter;
+		 return () -> writeQueue(Path.of(SAVE_FILE), songs, sequence);
+	 }
+	 
+	 private static long writeQueue(Path path, ArrayList<Song> songs, long sequence) throws IOException {
+		 return AtomicFiles.write(path, out -> {
+			 OutputStreamWriter writer = new OutputStreamWriter(out, StandardCharsets.UTF_8);
+			 writer.write("SEQUENCE:" + sequence + System.lineSeparator());
+			 for (Song song : songs) {
+				 // Save each song's data
+				 writer.write(song.getAsSaveStringForPriorityQueue() + System.lineSeparator());
+			 }
+			 writer.flush();
+		 });
+	 }
+	 
 	 /**
 	  * Loads the priority queue from a text file.
 	  * Reads from musicqueue_data.txt and parses each line as a song.
-	  * Songs are automatically ordered by priority when added to the queue.
+	  * Songs go to their level in queue sequence order, so files
+	  * saved in any order load correctly.
 	  * If the file doesn't exist, the queue remains empty.
 	  */
 	 public void loadFromFile() {
@@ -132,7 +674,7 @@ public class MusicQueue {
 			 return; // No saved data, start with empty queue
 		 }
 		 
-		 try (BufferedReader reader = new BufferedReader(new FileReader(SAVE_FILE))) {
+		 try (BufferedReader reader = new BufferedReader(new FileReader(SAVE_FILE, StandardCharsets.UTF_8))) {
 			 String line;
 			 
 			 line = reader.readLine();
@@ -140,12 +682,27 @@ public class MusicQueue {
 					sequenceCounter = Long.parseLong(line.substring(9));
 				}
 			 
+			 SongParser parser = new SongParser();
+			 ArrayList<Song> songs = new ArrayList<>();
 			 while ((line = reader.readLine()) != null) {
-				 Song song = new Song(line);
+				 Song song = parser.parse(line);
 				 if (song != null) {
-					 pq.offer(song);
+					 songs.add(song);
 				 }
 			 }
+			 MusicList.reportMalformed(file, parser);
+			 
+			 songs.sort(Comparator.comparingLong(Song::getQueueSequence));
+			 for (Song song : songs) {
+				 Handle handle = new Handle(song);
+				 handle.level = levelOf(song);
+				 song.setQueuePriority(handle.level);
+				 song.setPriorityQueued(handle.level > NORMAL); // Older lines may not have the flag
+				 link(handle);
+			 }
+			 if (!songs.isEmpty()) {
+				 fire(SongChangeEvent.Type.REPLACED, 0, size);
+			 }
 		 } catch (IOException e) {
 			 System.err.println("Error loading music queue: " + e.getMessage());
 		 }
@@ -0,0 +1,155 @@
+package data;
+
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.ArrayList;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.ForkJoinTask;
+import java.util.concurrent.RecursiveTask;
+
+/**
+ * Loads a text save file (one Song save string per line) on a fork-join pool.
+ *
+ * The file is cut into byte ranges that each end just after a newline, every
+ * range is mapped and parsed by its own task, and the results are joined back
+ * in file order. Each task parses with its own SongParser, and their counts are
+ * merged into the caller's parser in file order.
+ *
+ * @author Josiah Loomis
+ * @version 1.0
+ */
+public final class ParallelSongLoader {
+	
+	/** Ranges smaller than this are not worth a task of their own */
+	public static final long DEFAULT_CHUNK_SIZE = 1 << 20;
+	
+	/** Extra ranges per thread, so a slow range does not leave the others idle */
+	private static final int CHUNKS_PER_THREAD = 4;
+	
+	/** A single mapping cannot exceed 2 GB */
+	private static final long MAX_CHUNK_SIZE = 1 << 30;
+	
+	private ParallelSongLoader() {
+	}
+	
+	/**
+	 * Loads every line of the file on the common pool.
+	 *
+	 * @param path the text save file
+	 * @param parser receives the line and malformed line counts of the whole file
+	 * @return the songs in file order, without malformed lines
+	 * @throws IOException if the file cannot be read
+	 */
+	public static ArrayList<Song> load(Path path, SongParser parser) throws IOException {
+		return load(path, ForkJoinPool.commonPool(), DEFAULT_CHUNK_SIZE, parser);
+	}
+	
+	/**
+	 * Loads every line of the file on the given pool.
+	 *
+	 * @param path the text save file
+	 * @param pool the pool to parse on
+	 * @param minChunkSize the smallest byte range to give a task
+	 * @param parser receives the line and malformed line counts of the whole file
+	 * @return the songs in file order, without malformed lines
+	 * @throws IOException if the file cannot be read
+	 */
+	public static ArrayList<Song> load(Path path, ForkJoinPool pool, long minChunkSize, SongParser parser)
+			throws IOException {
+		try (FileChannel channel = FileChannel.open(path, StandardOpenOption.READ)) {
+			long size = channel.size();
+			int chunks = (int) Math.max(1, Math.min(size / Math.max(minChunkSize, 1),
+					(long) pool.getParallelism() * CHUNKS_PER_THREAD));
+			chunks = (int) Math.max(chunks, size / MAX_CHUNK_SIZE + 1);
+	
+			ArrayList<ParseChunk> tasks = new ArrayList<>(chunks);
+			long start = 0;
+			for (int i = 1; i <= chunks && start < size; i++) {
+				long end = i == chunks ? size : lineEnd(channel, size * i / chunks, size);
+				if (end > start) {
+					tasks.add(new ParseChunk(channel.map(FileChannel.MapMode.READ_ONLY, start, end - start)));
+					start = end;
+				}
+			}
+	
+			pool.invoke(ForkJoinTask.adapt(() -> ForkJoinTask.invokeAll(tasks)));
+			int count = 0;
+			for (ParseChunk task : tasks) {
+				count += task.join().size();
+				parser.merge(task.parser);
+			}
+			ArrayList<Song> songs = new ArrayList<>(count);
+			for (ParseChunk task : tasks) {
+				songs.addAll(task.join());
+			}
+			return songs;
+		}
+	}
+	
+	/**
+	 * Returns the position just after the first newline at or after from, or size.
+	 */
+	private static long lineEnd(FileChannel channel, long from, long size) throws IOException {
+		ByteBuffer buffer = ByteBuffer.allocate(4096);
+		long position = from;
+		while (position < size) {
+			buffer.clear();
+			int read = channel.read(buffer, position);
+			if (read <= 0) {
+				break;
+			}
+			for (int i = 0; i < read; i++) {
+				if (buffer.get(i) == '\n') {
+					return position + i + 1;
+				}
+			}
+			position += read;
+		}
+		return size;
+	}
+	
+	/**
+	 * Parses the lines of one mapped byte range.
+	 */
+	private static final class ParseChunk extends RecursiveTask<ArrayList<Song>> {
+	
+		private static final long serialVersionUID = 1L;
+	
+		private final transient MappedByteBuffer bytes;
+		private final transient SongParser parser = new SongParser();
+	
+		ParseChunk(MappedByteBuffer bytes) {
+			this.bytes = bytes;
+		}
+	
+		@Override
+		protected ArrayList<Song> compute() {
+			ArrayList<Song> songs = new ArrayList<>();
+			byte[] line = new byte[256];
+			int limit = bytes.limit();
+			int lineStart = 0;
+			for (int i = 0; i <= limit; i++) {
+				if (i == limit ? i > lineStart : bytes.get(i) == '\n') {
+					int length = i - lineStart;
+					if (length > 0 && bytes.get(i - 1) == '\r') {
+						length--;
+					}
+					if (length > line.length) {
+						line = new byte[Math.max(length, line.length * 2)];
+					}
+					bytes.get(lineStart, line, 0, length);
+					Song song = parser.parse(line, 0, length);
+					if (song != null) {
+						songs.add(song);
+					}
+					lineStart = i + 1;
+				}
+			}
+			return songs;
+		}
+	}
+}
@@ -0,0 +1,443 @@
+package data;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.IdentityHashMap;
+import java.util.LinkedHashSet;
+import java.util.Set;
+
+/**
+ * Compressed prefix trie (radix tree) over the normalized words of song titles and artists.
+ * Used by MusicList for search-as-you-type.
+ * 
+ * Every node keeps the top-K words of its subtree, ranked by how many songs
+ * contain them, so completions for a prefix are found by walking the prefix
+ * only: O(prefix length), whatever the size of the library. The rankings are
+ * updated along the word's path on every add and remove.
+ * 
+ * A song is removed by the words of its current title and artist, so they
+ * must not change while it is in the trie; MusicList.editSong removes the
+ * song before an edit and adds it back after.
+ * 
+ * @author Josiah Loomis
+ * @version 1.0
+ */
+class PrefixTrie {
+
+	/** Number of ranked completions kept per node */
+	static final int DEFAULT_TOP_K = 10;
+	
+	private static final class Node {
+		/** Edge label from the parent, never empty except for the root */
+		String label;
+		Node[] children = new Node[0];
+		
+		/** Full word ending at this node, or null */
+		String word;
+		
+		/** Songs containing the word, with how many times each is listed */
+		IdentityHashMap<Song, Integer> songs;
+		
+		/** Best word nodes of this subtree, best first */
+		Node[] top;
+		int topSize;
+		
+		Node(String label, int topK) {
+			this.label = label;
+			this.top = new Node[topK];
+		}
+		
+		int count() {
+			return songs == null ? 0 : songs.size();
+		}
+		
+		Node child(char c) {
+			int index = childIndex(c);
+			return index >= 0 ? children[index] : null;
+		}
+		
+		int childIndex(char c) {
+			int lo = 0;
+			int hi = children.length - 1;
+			while (lo <= hi) {
+				int mid = (lo + hi) >>> 1;
+				char first = children[mid].label.charAt(0);
+				if (first < c) {
+					lo = mid + 1;
+				} else if (first > c) {
+					hi = mid - 1;
+				} else {
+					return mid;
+				}
+			}
+			return -(lo + 1);
+		}
+		
+		void putChild(Node child) {
+			int index = childIndex(child.label.charAt(0));
+			if (index >= 0) {
+				children[index] = child;
+				return;
+			}
+			int insertAt = -(index + 1);
+			Node[] grown = new Node[children.length + 1];
+			System.arraycopy(children, 0, grown, 0, insertAt);
+			grown[insertAt] = child;
+			System.arraycopy(children, insertAt, grown, insertAt + 1, children.length - insertAt);
+			children = grown;
+		}
+		
+		void removeChild(int index) {
+			Node[] shrunk = new Node[children.length - 1];
+			System.arraycopy(children, 0, shrunk, 0, index);
+			System.arraycopy(children, index + 1, shrunk, index, shrunk.length - index);
+			children = shrunk;
+		}
+	}
+	
+	private final int topK;
+	private Node root;
+	
+	/**
+	 * Creates an empty trie keeping DEFAULT_TOP_K completions per prefix.
+	 */
+	PrefixTrie() {
+		this(DEFAULT_TOP_K);
+	}
+	
+	/**
+	 * Creates an empty trie.
+	 * 
+	 * @param topK the number of ranked completions kept per prefix
+	 */
+	PrefixTrie(int topK) {
+		this.topK = topK;
+		this.root = new Node("", topK);
+	}
+	
+	/**
+	 * Adds one occurrence of the song under every word of its title and artist.
+	 * 
+	 * @param song the song to add
+	 */
+	void add(Song song) {
+		for (String word : words(song)) {
+			ArrayList<Node> path = insertPath(word);
+			Node node = path.get(path.size() - 1);
+			if (node.songs == null) {
+				node.songs = new IdentityHashMap<>();
+				node.word = word;
+			}
+			if (node.songs.merge(song, 1, Integer::sum) == 1) {
+				// One more song contains the word, it can only move up
+				for (Node onPath : path) {
+					offer(onPath, node);
+				}
+			}
+		}
+	}
+	
+	/**
+	 * Removes one occurrence of the song.
+	 * 
+	 * @param song the song to remove
+	 */
+	void remove(Song song) {
+		for (String word : words(song)) {
+			ArrayList<Node> path = findPath(word);
+			if (path == null) {
+				continue;
+			}
+			Node node = path.get(path.size() - 1);
+			Integer count = node.songs == null ? null : node.songs.get(song);
+			if (count == null) {
+				continue;
+			}
+			if (count > 1) {
+				node.songs.put(song, count - 1);
+				continue;
+			}
+			node.songs.remove(song);
+			
+			// The word dropped in rank, rebuild the rankings that contain it bottom-up
+			for (int i = path.size() - 1; i >= 0; i--) {
+				Node onPath = path.get(i);
+				if (indexOfTop(onPath, node) >= 0) {
+					recompute(onPath);
+				}
+			}
+			
+			if (node.songs.isEmpty()) {
+				node.songs = null;
+				node.word = null;
+				prune(path);
+			}
+		}
+	}
+	
+	/**
+	 * Removes the nodes left without a word or children on the path, bottom-up,
+	 * and merges a wordless node with its only child to keep the trie compressed.
+	 * 
+	 * @param path the nodes from the root to a word's node that just became empty
+	 */
+	private void prune(ArrayList<Node> path) {
+		for (int i = path.size() - 1; i > 0; i--) {
+			Node node = path.get(i);
+			Node parent = path.get(i - 1);
+			if (node.word != null) {
+				return;
+			}
+			if (node.children.length == 0) {
+				parent.removeChild(parent.childIndex(node.label.charAt(0)));
+			} else if (node.children.length == 1) {
+				// A wordless node ranks exactly what its child ranks
+				Node child = node.children[0];
+				child.label = node.label + child.label;
+				parent.putChild(child);
+				return;
+			} else {
+				return;
+			}
+		}
+	}
+	
+	/**
+	 * Removes every word.
+	 */
+	void clear() {
+		root = new Node("", topK);
+	}
+	
+	/**
+	 * Returns the best ranked words starting with the prefix.
+	 * 
+	 * @param prefix the normalized prefix
+	 * @param limit the maximum number of words, at most the trie's top-K
+	 * @return the words, most common first
+	 */
+	ArrayList<String> completions(String prefix, int limit) {
+		ArrayList<String> words = new ArrayList<>();
+		Node node = subtree(prefix);
+		if (node == null) {
+			return words;
+		}
+		for (int i = 0; i < node.topSize && i < limit; i++) {
+			words.add(node.top[i].word);
+		}
+		return words;
+	}
+	
+	/**
+	 * Returns songs containing a word that starts with the prefix,
+	 * taken from the best ranked words first.
+	 * 
+	 * @param prefix the normalized prefix
+	 * @param limit the maximum number of songs
+	 * @return the matching songs, without duplicates
+	 */
+	ArrayList<Song> matches(String prefix, int limit) {
+		ArrayList<Song> songs = new ArrayList<>();
+		Set<Song> seen = Collections.newSetFromMap(new IdentityHashMap<>());
+		Node node = subtree(prefix);
+		if (node != null) {
+			for (int i = 0; i < node.topSize && songs.size() < limit; i++) {
+				for (Song song : node.top[i].songs.keySet()) {
+					if (songs.size() == limit) {
+						break;
+					}
+					if (seen.add(song)) {
+						songs.add(song);
+					}
+				}
+			}
+		}
+		return songs;
+	}
+	
+	/**
+	 * Splits a song's normalized title and artist into words of letters and digits.
+	 * 
+	 * @param song the song to split
+	 * @return the distinct words
+	 */
+	static LinkedHashSet<String> words(Song song) {
+		LinkedHashSet<String> words = new LinkedHashSet<>();
+		addWords(song.getNormalizedTitle(), words);
+		addWords(song.getNormalizedArtist(), words);
+		return words;
+	}
+	
+	private static void addWords(String text, LinkedHashSet<String> words) {
+		int start = -1;
+		for (int i = 0; i <= text.length(); i++) {
+			boolean wordChar = i < text.length() && Character.isLetterOrDigit(text.charAt(i));
+			if (wordChar && start < 0) {
+				start = i;
+			} else if (!wordChar && start >= 0) {
+				words.add(text.substring(start, i));
+				start = -1;
+			}
+		}
+	}
+	
+	/**
+	 * Finds the node whose subtree holds every word starting with the prefix.
+	 */
+	private Node subtree(String prefix) {
+		Node node = root;
+		int i = 0;
+		while (i < prefix.length()) {
+			Node child = node.child(prefix.charAt(i));
+			if (child == null) {
+				return null;
+			}
+			int common = commonPrefix(child.label, prefix, i);
+			if (i + common == prefix.length()) {
+				// The prefix ends on or inside this edge
+				return child;
+			}
+			if (common < child.label.length()) {
+				return null;
+			}
+			i += common;
+			node = child;
+		}
+		return node;
+	}
+	
+	/**
+	 * Walks to the node of the word, splitting edges and creating nodes as needed.
+	 * 
+	 * @return the nodes from the root to the word's node
+	 */
+	private ArrayList<Node> insertPath(String word) {
+		ArrayList<Node> path = new ArrayList<>();
+		Node node = root;
+		path.add(node);
+		int i = 0;
+		while (i < word.length()) {
+			int index = node.childIndex(word.charAt(i));
+			if (index < 0) {
+				Node child = new Node(word.substring(i), topK);
+				node.putChild(child);
+				path.add(child);
+				return path;
+			}
+			
+			Node child = node.children[index];
+			int common = commonPrefix(child.label, word, i);
+			if (common < child.label.length()) {
+				// Split the edge: node -> middle -> child
+				Node middle = new Node(child.label.substring(0, common), topK);
+				child.label = child.label.substring(common);
+				middle.putChild(child);
+				System.arraycopy(child.top, 0, middle.top, 0, child.topSize);
+				middle.topSize = child.topSize;
+				node.children[index] = middle;
+				child = middle;
+			}
+			path.add(child);
+			i += common;
+			node = child;
+		}
+		return path;
+	}
+	
+	/**
+	 * Walks to the node of the word without changing the trie.
+	 * 
+	 * @return the nodes from the root to the word's node, or null if the word is absent
+	 */
+	private ArrayList<Node> findPath(String word) {
+		ArrayList<Node> path = new ArrayList<>();
+		Node node = root;
+		path.add(node);
+		int i = 0;
+		while (i < word.length()) {
+			Node child = node.child(word.charAt(i));
+			if (child == null || !word.startsWith(child.label, i)) {
+				return null;
+			}
+			path.add(child);
+			i += child.label.length();
+			node = child;
+		}
+		return path;
+	}
+	
+	private static int commonPrefix(String label, String s, int from) {
+		int max = Math.min(label.length(), s.length() - from);
+		int i = 0;
+		while (i < max && label.charAt(i) == s.charAt(from + i)) {
+			i++;
+		}
+		return i;
+	}
+	
+	/**
+	 * Puts a word whose count just went up into the node's ranking if it belongs there.
+	 */
+	private void offer(Node node, Node wordNode) {
+		int index = indexOfTop(node, wordNode);
+		if (index < 0) {
+			if (node.topSize < topK) {
+				index = node.topSize++;
+			} else if (better(wordNode, node.top[topK - 1])) {
+				index = topK - 1;
+			} else {
+				return;
+			}
+			node.top[index] = wordNode;
+		}
+		// Bubble towards the front
+		while (index > 0 && better(node.top[index], node.top[index - 1])) {
+			Node swap = node.top[index - 1];
+			node.top[index - 1] = node.top[index];
+			node.top[index] = swap;
+			index--;
+		}
+	}
+	
+	/**
+	 * Rebuilds the node's ranking from its own word and its children's rankings.
+	 */
+	private void recompute(Node node) {
+		ArrayList<Node> candidates = new ArrayList<>();
+		if (node.count() > 0) {
+			candidates.add(node);
+		}
+		for (Node child : node.children) {
+			for (int i = 0; i < child.topSize; i++) {
+				candidates.add(child.top[i]);
+			}
+		}
+		candidates.sort((a, b) -> better(a, b) ? -1 : better(b, a) ? 1 : 0);
+		
+		Arrays.fill(node.top, null);
+		node.topSize = Math.min(topK, candidates.size());
+		for (int i = 0; i < node.topSize; i++) {
+			node.top[i] = candidates.get(i);
+		}
+	}
+	
+	private static int indexOfTop(Node node, Node wordNode) {
+		for (int i = 0; i < node.topSize; i++) {
+			if (node.top[i] == wordNode) {
+				return i;
+			}
+		}
+		return -1;
+	}
+	
+	/**
+	 * More songs wins, ties go to the alphabetically first word.
+	 */
+	private static boolean better(Node a, Node b) {
+		if (a.count() != b.count()) {
+			return a.count() > b.count();
+		}
+		return a.word.compareTo(b.word) < 0;
+	}
+}
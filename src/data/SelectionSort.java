@@ -3,12 +3,18 @@ package data;
 import java.util.ArrayList;
 
 /**
- * Class for sorting the Music List using a custom selection Sort
+ * Class for sorting the Music List using a custom selection Sort.
+ * Quadratic, kept as the reference implementation for the faster title sorters.
  * 
  * @author Josiah Loomis
  * @version 1.0
  */
-public class SelectionSort {
+public class SelectionSort implements SongSorter {
+
+	@Override
+	public void sort(ArrayList<Song> songs) {
+		selectionSort(songs);
+	}
 
 	/**
 	 * Sorts the given array list alphabetically by song title using selection sort algorithm.
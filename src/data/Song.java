@@ -1,16 +1,33 @@
 package data;
 
 import java.time.LocalDate;
+import java.util.concurrent.ThreadLocalRandom;
 
 /**
  * Represents a song with data including title, artist, platform, and dates.
  * Implements Comparable to support priority-based ordering in queue structures.
+ * Every song has a stable 64-bit id that is saved with it; equals and hashCode
+ * use the id, so a queued copy of a song equals the song in the list.
+ * Artist and platform strings go through StringDictionary, so songs by the
+ * same artist or on the same platform share one String instance.
+ * A MusicList indexes its songs by their fields, so a listed song is edited
+ * through MusicList.editSong rather than its setters.
  * 
  * @author Josiah Loomis
  * @version 1.0
  */
 public class Song implements Comparable<Song> {
 
+	/** Prefix of the id field in save strings */
+	private static final String ID_FIELD = "id=";
+	
+	/** Prefix of the queue priority level field in save strings */
+	private static final String PRIORITY_FIELD = "priority=";
+	
+	/** Queue priority of a song that was never given a level */
+	public static final int NO_PRIORITY = -1;
+	
+	private long id;
 	private String title;
 	private String artist;
 	private String platform;
@@ -19,13 +36,22 @@ public class Song implements Comparable<Song> {
 	private LocalDate dateAdded;
 	
 	private Boolean priorityQueued;
+	private int queuePriority = NO_PRIORITY;
 	private long queueSequence; 
 	
+	// Normalized forms used by search and sort, computed on first use and
+	// cleared by the setters
+	private String normalizedTitle;
+	private String normalizedArtist;
+	private String normalizedPlatform;
+	private String titleSortKey;
+	
 	/**
 	 * Default constructor that creates an empty Song object with null/empty values.
 	 */
  	public Song() {
 		super();
+		this.id = newId();
 		this.title = "";
 		this.artist = "";
 		this.platform = "";
@@ -46,9 +72,10 @@ public class Song implements Comparable<Song> {
 	 */
 	public Song(String title, String artist, String platform, String songLink, LocalDate releaseDate, LocalDate dateAdded) {
 		super();
+		this.id = newId();
 		this.title = title;
-		this.artist = artist;
-		this.platform = platform;
+		this.artist = StringDictionary.ARTISTS.intern(artist);
+		this.platform = StringDictionary.PLATFORMS.intern(platform);
 		this.songLink = songLink;
 		this.releaseDate = releaseDate;
 		this.dateAdded = dateAdded;
@@ -56,31 +83,53 @@ public class Song implements Comparable<Song> {
 	
 	/**
 	 * Constructs a Song from a save string.
-	 * Format: title|artist|platform|songLink|releaseDate|dateAdded[|priorityQueued]
+	 * Format: title|artist|platform|songLink|releaseDate|dateAdded[|priorityQueued[|queueSequence]][|priority=level][|id=hexId]
+	 * Lines saved before songs had ids get a new id. To read a whole file and
+	 * skip bad lines, use SongParser instead.
 	 * 
 	 * @param saveString the string containing song data
+	 * @throws IllegalArgumentException if the line is malformed
 	 */
 	public Song(String saveString) {
-		try {
-	        String[] parts = saveString.split("\\|");
-	        if (parts.length >= 6) {
-	            this.title = parts[0];
-	    		this.artist = parts[1];
-	    		this.platform =  parts[2];
-	    		this.songLink = parts[3];
-	    		this.releaseDate = LocalDate.parse(parts[4]);
-	    		this.dateAdded = LocalDate.parse(parts[5]);
-	    		
-	    		if (parts.length >= 7) {
-	    			this.priorityQueued = Boolean.parseBoolean(parts[6]);
-	    		}
-	    		if (parts.length >= 8) {
-					this.queueSequence = Long.parseLong(parts[7]);
-				}
-	        }
-	    } catch (Exception e) {
-	        System.err.println("Error parsing song from file: " + e.getMessage());
-	    }
+		super();
+		String problem = SongParser.fill(this, saveString, null, 0, saveString.length());
+		if (problem != null) {
+			throw new IllegalArgumentException("Malformed song line (" + problem + "): " + saveString);
+		}
+		if (this.id == 0) {
+			this.id = newId();
+		}
+	}
+	
+	/**
+	 * Creates a random non-zero id. 64 random bits make collisions practically impossible
+	 * without any shared counter to save or coordinate.
+	 */
+	private static long newId() {
+		long id;
+		do {
+			id = ThreadLocalRandom.current().nextLong();
+		} while (id == 0);
+		return id;
+	}
+	
+	/**
+	 * Gets the stable id of the song.
+	 * Copies made with clone share the id of the original.
+	 * 
+	 * @return the id
+	 */
+	public long getId() {
+		return id;
+	}
+	
+	/**
+	 * Restores a saved id. Only for storage classes rebuilding songs.
+	 * 
+	 * @param id the id to restore
+	 */
+	void setId(long id) {
+		this.id = id;
 	}
 
 	/**
@@ -99,6 +148,8 @@ public class Song implements Comparable<Song> {
 	 */
 	public void setTitle(String title) {
 		this.title = title;
+		this.normalizedTitle = null;
+		this.titleSortKey = null;
 	}
 
 	/**
@@ -116,7 +167,8 @@ public class Song implements Comparable<Song> {
 	 * @param artist the artist to set
 	 */
 	public void setArtist(String artist) {
-		this.artist = artist;
+		this.artist = StringDictionary.ARTISTS.intern(artist);
+		this.normalizedArtist = null;
 	}
 
 	/**
@@ -134,7 +186,60 @@ public class Song implements Comparable<Song> {
 	 * @param platform the platform to set
 	 */
 	public void setPlatform(String platform) {
-		this.platform = platform;
+		this.platform = StringDictionary.PLATFORMS.intern(platform);
+		this.normalizedPlatform = null;
+	}
+
+	/**
+	 * Gets the title normalized for searching (see TextNormalizer).
+	 * Computed once and cached until the title changes.
+	 * 
+	 * @return the normalized title
+	 */
+	public String getNormalizedTitle() {
+		if (normalizedTitle == null) {
+			normalizedTitle = TextNormalizer.normalize(title);
+		}
+		return normalizedTitle;
+	}
+	
+	/**
+	 * Gets the artist normalized for searching (see TextNormalizer).
+	 * Computed once and cached until the artist changes.
+	 * 
+	 * @return the normalized artist
+	 */
+	public String getNormalizedArtist() {
+		if (normalizedArtist == null) {
+			normalizedArtist = StringDictionary.ARTISTS.normalized(artist);
+		}
+		return normalizedArtist;
+	}
+	
+	/**
+	 * Gets the platform normalized for searching (see TextNormalizer).
+	 * Computed once and cached until the platform changes.
+	 * 
+	 * @return the normalized platform
+	 */
+	public String getNormalizedPlatform() {
+		if (normalizedPlatform == null) {
+			normalizedPlatform = StringDictionary.PLATFORMS.normalized(platform);
+		}
+		return normalizedPlatform;
+	}
+	
+	/**
+	 * Gets the key that sorts titles like compareToIgnoreCase.
+	 * Computed once and cached until the title changes.
+	 * 
+	 * @return the case-folded title
+	 */
+	String getTitleSortKey() {
+		if (titleSortKey == null) {
+			titleSortKey = TitleKeySort.titleKey(title);
+		}
+		return titleSortKey;
 	}
 
 	/**
@@ -210,6 +315,25 @@ public class Song implements Comparable<Song> {
 		this.priorityQueued = priorityQueued;
 	}
 	
+	/**
+	 * Gets the queue priority level, higher levels being dequeued first.
+	 * 
+	 * @return the level, or NO_PRIORITY if the song was never given one
+	 */
+	public int getQueuePriority() {
+		return queuePriority;
+	}
+	
+	/**
+	 * Sets the queue priority level.
+	 * Only set if song is in the MusicQueue.
+	 * 
+	 * @param queuePriority the level to set
+	 */
+	public void setQueuePriority(int queuePriority) {
+		this.queuePriority = queuePriority;
+	}
+	
 	/**
 	 * Gets the queue sequence number.
 	 * 
@@ -237,39 +361,70 @@ public class Song implements Comparable<Song> {
 	public Song clone() {
 		Song copy = new Song(this.title, this.artist, this.platform, 
 		                     this.songLink, this.releaseDate, this.dateAdded);
+		copy.id = this.id;
 		copy.setPriorityQueued(this.priorityQueued);
+		copy.setQueuePriority(this.queuePriority);
 		copy.setQueueSequence(this.queueSequence);
+		copy.normalizedTitle = this.normalizedTitle;
+		copy.normalizedArtist = this.normalizedArtist;
+		copy.normalizedPlatform = this.normalizedPlatform;
+		copy.titleSortKey = this.titleSortKey;
 		return copy;
 	}
 
 	@Override
-    public int compareTo(Song other) {
-        if (this.priorityQueued && !other.priorityQueued) {
-            return -1;
-        }
-        if (!this.priorityQueued && other.priorityQueued) {
-            return 1;
-        }
-        return Long.compare(this.queueSequence, other.queueSequence);
-    }
+	public int compareTo(Song other) {
+		// Higher levels first, songs that were never queued count as normal
+		int byLevel = Integer.compare(MusicQueue.levelOf(other), MusicQueue.levelOf(this));
+		if (byLevel != 0) {
+			return byLevel;
+		}
+		return Long.compare(this.queueSequence, other.queueSequence);
+	}
+	
+	/**
+	 * Two songs are equal when they have the same id.
+	 * 
+	 * @param obj the object to compare with
+	 * @return true if obj is a Song with the same id
+	 */
+	@Override
+	public boolean equals(Object obj) {
+		if (this == obj) {
+			return true;
+		}
+		if (!(obj instanceof Song)) {
+			return false;
+		}
+		return id == ((Song) obj).id;
+	}
+	
+	@Override
+	public int hashCode() {
+		return Long.hashCode(id);
+	}
 	
 	/**
 	 * Converts the song to a string for file storage.
-	 * Format: title|artist|platform|songLink|releaseDate|dateAdded
+	 * Format: title|artist|platform|songLink|releaseDate|dateAdded|id=hexId
 	 * 
 	 * @return the pipe-delimited string representation
 	 */
 	public String getAsSaveString() {
-		return title + "|" + artist + "|" + platform + "|" + songLink + "|" + releaseDate + "|"+ dateAdded;
+		return title + "|" + artist + "|" + platform + "|" + songLink + "|" + releaseDate + "|"+ dateAdded
+				+ "|" + ID_FIELD + Long.toHexString(id);
 	}
 	
 	/**
 	 * Converts the song to a string including priority queue status.
-	 * Format: title|artist|platform|songLink|releaseDate|dateAdded|priorityQueued
+	 * Format: title|artist|platform|songLink|releaseDate|dateAdded|priorityQueued|queueSequence[|priority=level]|id=hexId
+	 * The level is only written for songs that have one.
 	 * 
 	 * @return the pipe-delimited string representation with priority status
 	 */
 	public String getAsSaveStringForPriorityQueue() {
-		return title + "|" + artist + "|" + platform + "|" + songLink + "|" + releaseDate + "|"+ dateAdded + "|" + priorityQueued;
+		String level = queuePriority == NO_PRIORITY ? "" : "|" + PRIORITY_FIELD + queuePriority;
+		return title + "|" + artist + "|" + platform + "|" + songLink + "|" + releaseDate + "|"+ dateAdded + "|" + priorityQueued
+				+ "|" + queueSequence + level + "|" + ID_FIELD + Long.toHexString(id);
 	}
 }
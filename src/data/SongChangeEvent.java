@@ -0,0 +1,92 @@
+package data;
+
+/**
+ * Describes one change to an ordered collection of songs, such as a MusicList
+ * or the play order of a MusicQueue. Indexes are positions in that order.
+ * A bulk change is described by a single event.
+ *
+ * ADDED means positions fromIndex to toIndex - 1 now hold new songs.
+ * REMOVED means the songs that were at fromIndex to toIndex - 1 are gone.
+ * REPLACED means the whole contents may have changed; fromIndex is 0 and
+ * toIndex is the new size.
+ *
+ * @author Josiah Loomis
+ * @version 1.0
+ */
+public final class SongChangeEvent {
+	
+	/** The kind of change */
+	public enum Type {
+		ADDED, REMOVED, REPLACED
+	}
+	
+	private final Object source;
+	private final Type type;
+	private final int fromIndex;
+	private final int toIndex;
+	
+	/**
+	 * Creates an event.
+	 *
+	 * @param source the collection that changed
+	 * @param type the kind of change
+	 * @param fromIndex the first position changed
+	 * @param toIndex the position after the last one changed
+	 */
+	public SongChangeEvent(Object source, Type type, int fromIndex, int toIndex) {
+		this.source = source;
+		this.type = type;
+		this.fromIndex = fromIndex;
+		this.toIndex = toIndex;
+	}
+	
+	/**
+	 * Gets the collection that changed.
+	 *
+	 * @return the source
+	 */
+	public Object getSource() {
+		return source;
+	}
+	
+	/**
+	 * Gets the kind of change.
+	 *
+	 * @return the type
+	 */
+	public Type getType() {
+		return type;
+	}
+	
+	/**
+	 * Gets the first position changed.
+	 *
+	 * @return the first index, inclusive
+	 */
+	public int getFromIndex() {
+		return fromIndex;
+	}
+	
+	/**
+	 * Gets the position after the last one changed.
+	 *
+	 * @return the last index, exclusive
+	 */
+	public int getToIndex() {
+		return toIndex;
+	}
+	
+	/**
+	 * Gets the number of positions changed.
+	 *
+	 * @return toIndex - fromIndex
+	 */
+	public int size() {
+		return toIndex - fromIndex;
+	}
+	
+	@Override
+	public String toString() {
+		return type + " [" + fromIndex + ", " + toIndex + ")";
+	}
+}
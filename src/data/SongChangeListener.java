@@ -0,0 +1,18 @@
+package data;
+
+/**
+ * Receives the changes of a MusicList or MusicQueue.
+ * Listeners are called on the thread that made the change, after it is made.
+ *
+ * @author Josiah Loomis
+ * @version 1.0
+ */
+public interface SongChangeListener {
+	
+	/**
+	 * Called after songs were added, removed or replaced.
+	 *
+	 * @param event what changed
+	 */
+	void songsChanged(SongChangeEvent event);
+}
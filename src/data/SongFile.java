@@ -0,0 +1,330 @@
+package data;
+
+import java.io.DataOutputStream;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.time.LocalDate;
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
+import java.util.List;
+
+/**
+ * Binary song library file, read through a memory map.
+ *
+ * Layout (big-endian):
+ * <pre>
+ * header   magic, version, song count, string count, shared string count, generation (6 ints)
+ * records  one 32-byte record per song: id (long), then title, artist, platform
+ *          and link as string table indexes (-1 for null), then release date
+ *          and date added as epoch days (NO_DATE for null)
+ * offsets  string count + 1 ints, the start of each string in the string bytes
+ * strings  UTF-8 bytes of every string
+ * </pre>
+ * The shared strings (artists and platforms) come first in the string table and
+ * are decoded once per open file. Opening only maps the file and checks the
+ * header, so it takes the same time for any library size; songs are decoded
+ * when asked for, and each string reference is checked as it is decoded, so
+ * a corrupt record throws IOException. Decoding reuses scratch buffers, so an
+ * open file should be read by one thread at a time.
+ *
+ * The generation is a counter for MusicListJournal, telling it which journal
+ * files were written after the snapshot. Files are written to a temporary file
+ * first and moved over the old one, so a crash never leaves a half-written file.
+ *
+ * @author Josiah Loomis
+ * @version 1.0
+ */
+public final class SongFile implements AutoCloseable {
+	
+	/** "MLST" */
+	private static final int MAGIC = 0x4D4C5354;
+	public static final int VERSION = 1;
+	
+	private static final int HEADER_SIZE = 24;
+	private static final int RECORD_SIZE = 32;
+	private static final int NO_STRING = -1;
+	private static final int NO_DATE = Integer.MIN_VALUE;
+	private static final int DATE_CACHE_SIZE = 1024;
+	
+	private final FileChannel channel;
+	private final MappedByteBuffer buffer;
+	private final int songCount;
+	private final int stringCount;
+	private final int offsetsStart;
+	private final int stringsStart;
+	private final String[] shared;
+	private final int generation;
+	
+	// Scratch space for decoding, and recently decoded dates by epoch day
+	private byte[] scratch = new byte[256];
+	private final int[] cachedDays = new int[DATE_CACHE_SIZE];
+	private final LocalDate[] cachedDates = new LocalDate[DATE_CACHE_SIZE];
+	
+	private SongFile(FileChannel channel, MappedByteBuffer buffer) throws IOException {
+		this.channel = channel;
+		this.buffer = buffer;
+		if (buffer.capacity() < HEADER_SIZE || buffer.getInt(0) != MAGIC) {
+			throw new IOException("Not a song library file");
+		}
+		int version = buffer.getInt(4);
+		if (version != VERSION) {
+			throw new IOException("Unsupported song library version " + version);
+		}
+		songCount = buffer.getInt(8);
+		stringCount = buffer.getInt(12);
+		int sharedCount = buffer.getInt(16);
+		generation = buffer.getInt(20);
+		long offsetsStart = HEADER_SIZE + (long) songCount * RECORD_SIZE;
+		long stringsStart = offsetsStart + 4L * (stringCount + 1);
+		if (songCount < 0 || stringCount < 0 || sharedCount < 0 || sharedCount > stringCount
+				|| stringsStart > buffer.capacity()
+				|| stringsStart + buffer.getInt((int) offsetsStart + 4 * stringCount) > buffer.capacity()) {
+			throw new IOException("Song library file is truncated or corrupt");
+		}
+		this.offsetsStart = (int) offsetsStart;
+		this.stringsStart = (int) stringsStart;
+		shared = new String[sharedCount];
+	}
+	
+	/**
+	 * Maps a library file for reading.
+	 *
+	 * @param path the file to open
+	 * @return the open file, to be closed by the caller
+	 * @throws IOException if the file cannot be read or is not a valid library file
+	 */
+	public static SongFile open(Path path) throws IOException {
+		FileChannel channel = FileChannel.open(path, StandardOpenOption.READ);
+		try {
+			if (channel.size() > Integer.MAX_VALUE) {
+				throw new IOException("Song library file is larger than 2 GB");
+			}
+			return new SongFile(channel, channel.map(FileChannel.MapMode.READ_ONLY, 0, channel.size()));
+		} catch (IOException | RuntimeException e) {
+			channel.close();
+			throw e;
+		}
+	}
+	
+	/**
+	 * Writes songs to a library file of generation 0, replacing it if it exists.
+	 *
+	 * @param path the file to write
+	 * @param songs the songs in list order
+	 * @return the size of the new file
+	 * @throws IOException if the file cannot be written
+	 */
+	public static long write(Path path, List<Song> songs) throws IOException {
+		return write(path, songs, 0);
+	}
+	
+	/**
+	 * Writes songs to a library file, replacing it if it exists.
+	 * The new file is synced to disk before it replaces the old one.
+	 *
+	 * @param path the file to write
+	 * @param songs the songs in list order
+	 * @param generation the generation to record in the header
+	 * @return the size of the new file
+	 * @throws IOException if the file cannot be written
+	 */
+	public static long write(Path path, List<Song> songs, int generation) throws IOException {
+		return AtomicFiles.write(path, out -> writeTo(out, songs, generation));
+	}
+	
+	private static void writeTo(OutputStream stream, List<Song> songs, int generation) throws IOException {
+		// Artists and platforms go first so readers can cache them
+		LinkedHashMap<String, Integer> sharedRefs = new LinkedHashMap<>();
+		for (Song song : songs) {
+			sharedRef(sharedRefs, song.getArtist());
+			sharedRef(sharedRefs, song.getPlatform());
+		}
+		ArrayList<byte[]> strings = new ArrayList<>(sharedRefs.size() + 2 * songs.size());
+		for (String value : sharedRefs.keySet()) {
+			strings.add(value.getBytes(StandardCharsets.UTF_8));
+		}
+	
+		DataOutputStream out = new DataOutputStream(stream);
+		out.writeInt(MAGIC);
+		out.writeInt(VERSION);
+		out.writeInt(songs.size());
+		out.writeInt(sharedRefs.size() + countTexts(songs));
+		out.writeInt(sharedRefs.size());
+		out.writeInt(generation);
+	
+		for (Song song : songs) {
+			out.writeLong(song.getId());
+			out.writeInt(textRef(strings, song.getTitle()));
+			out.writeInt(song.getArtist() == null ? NO_STRING : sharedRefs.get(song.getArtist()));
+			out.writeInt(song.getPlatform() == null ? NO_STRING : sharedRefs.get(song.getPlatform()));
+			out.writeInt(textRef(strings, song.getSongLink()));
+			out.writeInt(epochDay(song.getReleaseDate()));
+			out.writeInt(epochDay(song.getDateAdded()));
+		}
+	
+		long offset = 0;
+		for (byte[] bytes : strings) {
+			out.writeInt((int) offset);
+			offset += bytes.length;
+		}
+		if (offset > Integer.MAX_VALUE) {
+			throw new IOException("Song library strings exceed 2 GB");
+		}
+		out.writeInt((int) offset);
+		for (byte[] bytes : strings) {
+			out.write(bytes);
+		}
+		out.flush();
+	}
+	
+	/**
+	 * Returns the number of songs in the file.
+	 *
+	 * @return the song count
+	 */
+	public int size() {
+		return songCount;
+	}
+	
+	/**
+	 * Returns the generation recorded when the file was written.
+	 *
+	 * @return the generation
+	 */
+	public int getGeneration() {
+		return generation;
+	}
+	
+	/**
+	 * Returns the id of the song at the given index without decoding the rest of it.
+	 *
+	 * @param index the song position
+	 * @return the song id
+	 */
+	public long getId(int index) {
+		return buffer.getLong(record(index));
+	}
+	
+	/**
+	 * Decodes the song at the given index.
+	 *
+	 * @param index the song position
+	 * @return a new Song with the stored id
+	 * @throws IOException if the record refers to strings outside the file
+	 */
+	public Song get(int index) throws IOException {
+		int record = record(index);
+		Song song = new Song(text(buffer.getInt(record + 8)), sharedText(buffer.getInt(record + 12)),
+				sharedText(buffer.getInt(record + 16)), text(buffer.getInt(record + 20)),
+				date(buffer.getInt(record + 24)), date(buffer.getInt(record + 28)));
+		song.setId(buffer.getLong(record));
+		return song;
+	}
+	
+	/**
+	 * Decodes every song in order.
+	 *
+	 * @return the songs
+	 * @throws IOException if a record refers to strings outside the file
+	 */
+	public ArrayList<Song> getSongs() throws IOException {
+		ArrayList<Song> songs = new ArrayList<>(songCount);
+		for (int i = 0; i < songCount; i++) {
+			songs.add(get(i));
+		}
+		return songs;
+	}
+	
+	/**
+	 * Closes the file. The mapping itself is released once it is garbage collected.
+	 */
+	@Override
+	public void close() throws IOException {
+		channel.close();
+	}
+	
+	private int record(int index) {
+		if (index < 0 || index >= songCount) {
+			throw new IndexOutOfBoundsException("Index: " + index + ", Size: " + songCount);
+		}
+		return HEADER_SIZE + index * RECORD_SIZE;
+	}
+	
+	private String sharedText(int ref) throws IOException {
+		if (ref < 0 || ref >= shared.length) {
+			return text(ref);
+		}
+		String value = shared[ref];
+		if (value == null) {
+			value = text(ref);
+			shared[ref] = value;
+		}
+		return value;
+	}
+	
+	private String text(int ref) throws IOException {
+		if (ref == NO_STRING) {
+			return null;
+		}
+		if (ref < 0 || ref >= stringCount) {
+			throw new IOException("Song library file is corrupt: bad string reference " + ref);
+		}
+		int start = buffer.getInt(offsetsStart + 4 * ref);
+		int end = buffer.getInt(offsetsStart + 4 * ref + 4);
+		if (start < 0 || end < start || end > buffer.capacity() - stringsStart) {
+			throw new IOException("Song library file is corrupt: string " + ref + " is out of bounds");
+		}
+		int length = end - start;
+		if (length > scratch.length) {
+			scratch = new byte[Math.max(length, scratch.length * 2)];
+		}
+		buffer.get(stringsStart + start, scratch, 0, length);
+		return new String(scratch, 0, length, StandardCharsets.UTF_8);
+	}
+	
+	private LocalDate date(int epochDay) {
+		if (epochDay == NO_DATE) {
+			return null;
+		}
+		// LocalDate is immutable, so songs added on the same day can share one
+		int slot = epochDay & (DATE_CACHE_SIZE - 1);
+		LocalDate date = cachedDates[slot];
+		if (date == null || cachedDays[slot] != epochDay) {
+			date = LocalDate.ofEpochDay(epochDay);
+			cachedDates[slot] = date;
+			cachedDays[slot] = epochDay;
+		}
+		return date;
+	}
+	
+	private static int epochDay(LocalDate date) {
+		return date == null ? NO_DATE : (int) date.toEpochDay();
+	}
+	
+	private static void sharedRef(LinkedHashMap<String, Integer> refs, String value) {
+		if (value != null) {
+			refs.putIfAbsent(value, refs.size());
+		}
+	}
+	
+	private static int countTexts(List<Song> songs) {
+		int count = 0;
+		for (Song song : songs) {
+			count += (song.getTitle() == null ? 0 : 1) + (song.getSongLink() == null ? 0 : 1);
+		}
+		return count;
+	}
+	
+	private static int textRef(ArrayList<byte[]> strings, String value) {
+		if (value == null) {
+			return NO_STRING;
+		}
+		strings.add(value.getBytes(StandardCharsets.UTF_8));
+		return strings.size() - 1;
+	}
+}
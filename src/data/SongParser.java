@@ -0,0 +1,347 @@
+package data;
+
+import java.nio.charset.StandardCharsets;
+import java.time.DateTimeException;
+import java.time.LocalDate;
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * Single-pass parser for song save lines, over a CharSequence or UTF-8 bytes.
+ * Format: title|artist|platform|songLink|releaseDate|dateAdded[|priorityQueued[|queueSequence]][|priority=level][|id=hexId]
+ *
+ * Fields are read in one scan without splitting the line, and dates are decoded
+ * straight from their fixed yyyy-MM-dd digits. The only allocations are the
+ * Song itself and its field values.
+ *
+ * A parser counts the lines it has seen. Malformed lines return null and are
+ * counted, and the first MAX_REPORTED of them are kept with their line numbers.
+ * Blank lines are skipped without being counted as malformed.
+ * A parser is not thread-safe; give each thread its own and merge them.
+ *
+ * @author Josiah Loomis
+ * @version 1.0
+ */
+public final class SongParser {
+	
+	/** How many malformed lines are kept for reporting */
+	public static final int MAX_REPORTED = 20;
+	
+	private static final String ID_FIELD = "id=";
+	private static final String PRIORITY_FIELD = "priority=";
+	private static final int REQUIRED_FIELDS = 6;
+	private static final int DATE_LENGTH = 10;
+	
+	/** Returned by decodeDate for text that is not a valid date */
+	private static final LocalDate INVALID_DATE = LocalDate.MIN;
+	
+	private long lineCount;
+	private long malformedCount;
+	private final ArrayList<Long> problemLines = new ArrayList<>();
+	private final ArrayList<String> problems = new ArrayList<>();
+	
+	/**
+	 * Parses the next line.
+	 *
+	 * @param line the save line, without its line terminator
+	 * @return the song, or null if the line is blank or malformed
+	 */
+	public Song parse(CharSequence line) {
+		return parse(line, null, 0, line.length());
+	}
+	
+	/**
+	 * Parses the next line from UTF-8 bytes.
+	 *
+	 * @param bytes the buffer holding the line
+	 * @param start the index of the first byte of the line
+	 * @param end the index after the last byte, before any line terminator
+	 * @return the song, or null if the line is blank or malformed
+	 */
+	public Song parse(byte[] bytes, int start, int end) {
+		return parse(null, bytes, start, end);
+	}
+	
+	/**
+	 * Gets the number of lines parsed, including blank and malformed ones.
+	 *
+	 * @return the line count
+	 */
+	public long getLineCount() {
+		return lineCount;
+	}
+	
+	/**
+	 * Gets the number of malformed lines.
+	 *
+	 * @return the malformed line count
+	 */
+	public long getMalformedCount() {
+		return malformedCount;
+	}
+	
+	/**
+	 * Gets a description of the first MAX_REPORTED malformed lines, such as
+	 * "line 12: bad release date".
+	 *
+	 * @return the problems in line order
+	 */
+	public List<String> getProblems() {
+		ArrayList<String> report = new ArrayList<>(problems.size());
+		for (int i = 0; i < problems.size(); i++) {
+			report.add("line " + problemLines.get(i) + ": " + problems.get(i));
+		}
+		return report;
+	}
+	
+	/**
+	 * Adds the counts and problems of a parser that read the lines following
+	 * this parser's lines.
+	 *
+	 * @param next the parser of the following lines
+	 */
+	public void merge(SongParser next) {
+		for (int i = 0; i < next.problems.size() && problems.size() < MAX_REPORTED; i++) {
+			problemLines.add(next.problemLines.get(i) + lineCount);
+			problems.add(next.problems.get(i));
+		}
+		lineCount += next.lineCount;
+		malformedCount += next.malformedCount;
+	}
+	
+	/**
+	 * Decodes a yyyy-MM-dd date, or "null" for no date.
+	 *
+	 * @param text the text holding the date
+	 * @param start the index of the first character
+	 * @param end the index after the last character
+	 * @return the date, or null for "null"
+	 * @throws IllegalArgumentException if the text is not a valid date
+	 */
+	public static LocalDate parseDate(CharSequence text, int start, int end) {
+		LocalDate date = decodeDate(text, null, start, end);
+		if (date == INVALID_DATE) {
+			throw new IllegalArgumentException("Not a yyyy-MM-dd date: " + text.subSequence(start, end));
+		}
+		return date;
+	}
+	
+	private Song parse(CharSequence chars, byte[] bytes, int start, int end) {
+		lineCount++;
+		if (isBlank(chars, bytes, start, end)) {
+			return null;
+		}
+		Song song = new Song();
+		String problem = fill(song, chars, bytes, start, end);
+		if (problem == null) {
+			return song;
+		}
+		malformedCount++;
+		if (problems.size() < MAX_REPORTED) {
+			problemLines.add(lineCount);
+			problems.add(problem);
+		}
+		return null;
+	}
+	
+	/**
+	 * Reads a save line into the song. Exactly one of chars and bytes is given.
+	 *
+	 * @return null on success, otherwise what was wrong with the line
+	 */
+	static String fill(Song song, CharSequence chars, byte[] bytes, int start, int end) {
+		int field = 0;
+		int optional = 0;
+		int fieldStart = start;
+		while (fieldStart <= end) {
+			int fieldEnd = indexOfBar(chars, bytes, fieldStart, end);
+			switch (field) {
+				case 0:
+					song.setTitle(text(chars, bytes, fieldStart, fieldEnd));
+					break;
+				case 1:
+					song.setArtist(text(chars, bytes, fieldStart, fieldEnd));
+					break;
+				case 2:
+					song.setPlatform(text(chars, bytes, fieldStart, fieldEnd));
+					break;
+				case 3:
+					song.setSongLink(text(chars, bytes, fieldStart, fieldEnd));
+					break;
+				case 4:
+				case 5:
+					LocalDate date = decodeDate(chars, bytes, fieldStart, fieldEnd);
+					if (date == INVALID_DATE) {
+						return field == 4 ? "bad release date" : "bad date added";
+					}
+					if (field == 4) {
+						song.setReleaseDate(date);
+					} else {
+						song.setDateAdded(date);
+					}
+					break;
+				default:
+					if (fieldEnd == fieldStart) {
+						optional++; // empty optional field
+					} else if (startsWithId(chars, bytes, fieldStart, fieldEnd)) {
+						long id = parseHex(chars, bytes, fieldStart + ID_FIELD.length(), fieldEnd);
+						if (id == 0) {
+							return "bad id";
+						}
+						song.setId(id);
+					} else if (startsWith(chars, bytes, fieldStart, fieldEnd, PRIORITY_FIELD)) {
+						long level = parseDecimal(chars, bytes, fieldStart + PRIORITY_FIELD.length(), fieldEnd);
+						if (level < 0 || level > MusicQueue.MAX_PRIORITY) {
+							return "bad queue priority";
+						}
+						song.setQueuePriority((int) level);
+					} else if (optional++ == 0) {
+						song.setPriorityQueued(regionEquals(chars, bytes, fieldStart, fieldEnd, "true"));
+					} else {
+						long sequence = parseDecimal(chars, bytes, fieldStart, fieldEnd);
+						if (sequence < 0) {
+							return "bad queue sequence";
+						}
+						song.setQueueSequence(sequence);
+					}
+			}
+			field++;
+			fieldStart = fieldEnd + 1;
+		}
+		return field < REQUIRED_FIELDS ? "expected " + REQUIRED_FIELDS + " fields, found " + field : null;
+	}
+	
+	private static char charAt(CharSequence chars, byte[] bytes, int index) {
+		return bytes != null ? (char) (bytes[index] & 0xFF) : chars.charAt(index);
+	}
+	
+	private static int indexOfBar(CharSequence chars, byte[] bytes, int from, int end) {
+		// '|' never appears inside a multi-byte UTF-8 sequence
+		for (int i = from; i < end; i++) {
+			if (charAt(chars, bytes, i) == '|') {
+				return i;
+			}
+		}
+		return end;
+	}
+	
+	private static String text(CharSequence chars, byte[] bytes, int start, int end) {
+		if (bytes != null) {
+			return new String(bytes, start, end - start, StandardCharsets.UTF_8);
+		}
+		return chars.subSequence(start, end).toString();
+	}
+	
+	private static boolean isBlank(CharSequence chars, byte[] bytes, int start, int end) {
+		for (int i = start; i < end; i++) {
+			if (!Character.isWhitespace(charAt(chars, bytes, i))) {
+				return false;
+			}
+		}
+		return true;
+	}
+	
+	private static boolean regionEquals(CharSequence chars, byte[] bytes, int start, int end, String expected) {
+		if (end - start != expected.length()) {
+			return false;
+		}
+		for (int i = 0; i < expected.length(); i++) {
+			if (Character.toLowerCase(charAt(chars, bytes, start + i)) != expected.charAt(i)) {
+				return false;
+			}
+		}
+		return true;
+	}
+	
+	private static boolean startsWithId(CharSequence chars, byte[] bytes, int start, int end) {
+		return end - start >= ID_FIELD.length() && charAt(chars, bytes, start) == 'i'
+				&& charAt(chars, bytes, start + 1) == 'd' && charAt(chars, bytes, start + 2) == '=';
+	}
+	
+	private static boolean startsWith(CharSequence chars, byte[] bytes, int start, int end, String prefix) {
+		if (end - start < prefix.length()) {
+			return false;
+		}
+		for (int i = 0; i < prefix.length(); i++) {
+			if (charAt(chars, bytes, start + i) != prefix.charAt(i)) {
+				return false;
+			}
+		}
+		return true;
+	}
+	
+	/**
+	 * Decodes yyyy-MM-dd from its digits. Returns null for "null" and
+	 * INVALID_DATE for anything else that is not a real date.
+	 */
+	private static LocalDate decodeDate(CharSequence chars, byte[] bytes, int start, int end) {
+		if (end - start != DATE_LENGTH) {
+			return regionEquals(chars, bytes, start, end, "null") ? null : INVALID_DATE;
+		}
+		if (charAt(chars, bytes, start + 4) != '-' || charAt(chars, bytes, start + 7) != '-') {
+			return INVALID_DATE;
+		}
+		int year = digits(chars, bytes, start, start + 4);
+		int month = digits(chars, bytes, start + 5, start + 7);
+		int day = digits(chars, bytes, start + 8, start + 10);
+		if (year < 0 || month < 0 || day < 0) {
+			return INVALID_DATE;
+		}
+		try {
+			return LocalDate.of(year, month, day);
+		} catch (DateTimeException e) {
+			return INVALID_DATE; // such as month 13 or February 30
+		}
+	}
+	
+	/**
+	 * Reads a short run of ASCII digits, or returns -1 if there is anything else.
+	 */
+	private static int digits(CharSequence chars, byte[] bytes, int start, int end) {
+		int value = 0;
+		for (int i = start; i < end; i++) {
+			int digit = charAt(chars, bytes, i) - '0';
+			if (digit < 0 || digit > 9) {
+				return -1;
+			}
+			value = value * 10 + digit;
+		}
+		return value;
+	}
+	
+	/**
+	 * Reads a non-negative decimal long, or returns -1 if it is empty, not a number or too large.
+	 */
+	private static long parseDecimal(CharSequence chars, byte[] bytes, int start, int end) {
+		if (start == end || end - start > 18) {
+			return -1;
+		}
+		long value = 0;
+		for (int i = start; i < end; i++) {
+			int digit = charAt(chars, bytes, i) - '0';
+			if (digit < 0 || digit > 9) {
+				return -1;
+			}
+			value = value * 10 + digit;
+		}
+		return value;
+	}
+	
+	/**
+	 * Reads an unsigned hex long of 1 to 16 digits, or returns 0 if it is not one.
+	 */
+	private static long parseHex(CharSequence chars, byte[] bytes, int start, int end) {
+		if (start == end || end - start > 16) {
+			return 0;
+		}
+		long value = 0;
+		for (int i = start; i < end; i++) {
+			int digit = Character.digit(charAt(chars, bytes, i), 16);
+			if (digit < 0) {
+				return 0;
+			}
+			value = (value << 4) | digit;
+		}
+		return value;
+	}
+}
@@ -0,0 +1,20 @@
+package data;
+
+import java.util.ArrayList;
+
+/**
+ * Strategy for sorting a list of songs in place.
+ * Lets MusicList swap the algorithm used by its sorted views.
+ * 
+ * @author Josiah Loomis
+ * @version 1.0
+ */
+public interface SongSorter {
+
+	/**
+	 * Sorts the given list in place.
+	 * 
+	 * @param songs the ArrayList of songs to sort
+	 */
+	void sort(ArrayList<Song> songs);
+}
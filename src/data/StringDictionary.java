@@ -0,0 +1,106 @@
+package data;
+
+import java.util.Arrays;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * Dictionary that gives every distinct string a small int code and keeps one
+ * shared instance of it. Artists and platforms repeat across thousands of songs,
+ * so Song stores the dictionary's instance instead of its own copy.
+ * The search form of every entry is normalized once and shared as well.
+ * 
+ * Entries are never removed, codes stay valid for the life of the program.
+ * All methods are thread-safe. Looking up a string that is already present
+ * does not lock, so parallel loaders can intern without contending.
+ * 
+ * @author Josiah Loomis
+ * @version 1.0
+ */
+public final class StringDictionary {
+
+	/** Shared dictionary of artist names */
+	public static final StringDictionary ARTISTS = new StringDictionary();
+	
+	/** Shared dictionary of platform names */
+	public static final StringDictionary PLATFORMS = new StringDictionary();
+	
+	private final ConcurrentHashMap<String, Integer> codes = new ConcurrentHashMap<>();
+	// Written before the code is published in codes, and only ever grown
+	private volatile String[] values = new String[64];
+	private String[] normalized = new String[64];
+	private int size;
+	
+	/**
+	 * Returns the code of the string, adding it if it is new.
+	 * 
+	 * @param value the string to encode, not null
+	 * @return the code, from 0 to size() - 1
+	 */
+	public synchronized int encode(String value) {
+		Integer code = codes.get(value);
+		if (code != null) {
+			return code;
+		}
+		if (size == values.length) {
+			values = Arrays.copyOf(values, size * 2);
+			normalized = Arrays.copyOf(normalized, size * 2);
+		}
+		values[size] = value;
+		codes.put(value, size);
+		return size++;
+	}
+	
+	/**
+	 * Returns the string with the given code.
+	 * 
+	 * @param code a code returned by encode
+	 * @return the shared string
+	 */
+	public synchronized String decode(int code) {
+		if (code < 0 || code >= size) {
+			throw new IndexOutOfBoundsException("Unknown code: " + code);
+		}
+		return values[code];
+	}
+	
+	/**
+	 * Returns the dictionary's shared instance of the string, adding it if it is new.
+	 * 
+	 * @param value the string to intern, may be null
+	 * @return an equal string shared by every caller, or null
+	 */
+	public String intern(String value) {
+		if (value == null) {
+			return null;
+		}
+		Integer code = codes.get(value);
+		int index = code != null ? code : encode(value);
+		return values[index];
+	}
+	
+	/**
+	 * Returns the shared normalized (search) form of the string, see TextNormalizer.
+	 * 
+	 * @param value the string, may be null
+	 * @return the normalized string
+	 */
+	public synchronized String normalized(String value) {
+		if (value == null) {
+			return TextNormalizer.normalize(null);
+		}
+		int code = encode(value);
+		if (normalized[code] == null) {
+			normalized[code] = TextNormalizer.normalize(value);
+		}
+		return normalized[code];
+	}
+	
+	/**
+	 * Gets the number of distinct strings in the dictionary.
+	 * 
+	 * @return the number of codes handed out
+	 */
+	public synchronized int size() {
+		return size;
+	}
+}
@@ -0,0 +1,77 @@
+package data;
+
+import java.text.Normalizer;
+import java.util.Locale;
+
+/**
+ * Normalizes text for searching: lowercased, accents removed and runs of
+ * whitespace collapsed into one space, trimmed at both ends.
+ * "  Café  DEL Mar " becomes "cafe del mar".
+ * 
+ * @author Josiah Loomis
+ * @version 1.0
+ */
+public final class TextNormalizer {
+
+	private TextNormalizer() {
+	}
+	
+	/**
+	 * Normalizes the text for searching.
+	 * Plain lowercase ASCII with single spaces is returned as is, without copying.
+	 * 
+	 * @param text the text to normalize, null is treated as empty
+	 * @return the normalized text
+	 */
+	public static String normalize(String text) {
+		if (text == null) {
+			return "";
+		}
+		if (isNormalized(text)) {
+			return text;
+		}
+		
+		// Split accented letters into letter + combining mark, then drop the marks
+		String decomposed = Normalizer.normalize(text, Normalizer.Form.NFD);
+		StringBuilder normalized = new StringBuilder(decomposed.length());
+		boolean pendingSpace = false;
+		for (int i = 0; i < decomposed.length(); i++) {
+			char c = decomposed.charAt(i);
+			int type = Character.getType(c);
+			if (type == Character.NON_SPACING_MARK || type == Character.COMBINING_SPACING_MARK
+					|| type == Character.ENCLOSING_MARK) {
+				continue;
+			}
+			if (Character.isWhitespace(c)) {
+				pendingSpace = normalized.length() > 0;
+				continue;
+			}
+			if (pendingSpace) {
+				normalized.append(' ');
+				pendingSpace = false;
+			}
+			normalized.append(c);
+		}
+		return normalized.toString().toLowerCase(Locale.ROOT);
+	}
+	
+	/**
+	 * Checks for the common case that needs no work at all.
+	 */
+	private static boolean isNormalized(String text) {
+		int length = text.length();
+		if (length > 0 && (text.charAt(0) == ' ' || text.charAt(length - 1) == ' ')) {
+			return false;
+		}
+		char previous = 'x';
+		for (int i = 0; i < length; i++) {
+			char c = text.charAt(i);
+			if (c >= 0x80 || (c >= 'A' && c <= 'Z') || (c < ' ')
+					|| (c == ' ' && previous == ' ')) {
+				return false;
+			}
+			previous = c;
+		}
+		return true;
+	}
+}
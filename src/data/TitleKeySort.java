@@ -0,0 +1,54 @@
+package data;
+
+import java.util.ArrayList;
+
+/**
+ * Sorts songs alphabetically by title in O(n log n).
+ * Uses each song's cached case-folded sort key and a stable merge sort,
+ * so no title is folded more than once.
+ * The order matches String.compareToIgnoreCase on the titles.
+ * 
+ * @author Josiah Loomis
+ * @version 1.0
+ */
+public class TitleKeySort implements SongSorter {
+
+	@Override
+	public void sort(ArrayList<Song> songs) {
+		// ArrayList.sort is a stable merge sort (TimSort)
+		songs.sort((a, b) -> a.getTitleSortKey().compareTo(b.getTitleSortKey()));
+	}
+	
+	/**
+	 * Builds the case-insensitive sort key of a title.
+	 * Every character is folded the same way compareToIgnoreCase folds it
+	 * (upper case, then lower case), so comparing keys with compareTo gives
+	 * the same result as comparing the titles with compareToIgnoreCase.
+	 * 
+	 * @param title the title to fold, null is treated as empty
+	 * @return the folded key
+	 */
+	static String titleKey(String title) {
+		if (title == null) {
+			return "";
+		}
+		
+		StringBuilder key = null;
+		int length = title.length();
+		for (int i = 0; i < length; ) {
+			int codePoint = title.codePointAt(i);
+			int folded = Character.toLowerCase(Character.toUpperCase(codePoint));
+			
+			// Only copy the title once a character actually changes
+			if (folded != codePoint && key == null) {
+				key = new StringBuilder(length);
+				key.append(title, 0, i);
+			}
+			if (key != null) {
+				key.appendCodePoint(folded);
+			}
+			i += Character.charCount(codePoint);
+		}
+		return key == null ? title : key.toString();
+	}
+}
@@ -0,0 +1,103 @@
+package data;
+
+import java.util.ArrayList;
+
+/**
+ * Sorts songs alphabetically by title with a stable MSD radix sort.
+ * Uses the same cached case-folded keys as TitleKeySort, bucketed one
+ * byte at a time (each UTF-16 character is two digits). Small buckets fall
+ * back to insertion sort. Meant for very large lists, where it avoids the
+ * log n string comparisons per song of a comparison sort.
+ * 
+ * @author Josiah Loomis
+ * @version 1.0
+ */
+public class TitleRadixSort implements SongSorter {
+
+	/** Number of buckets per digit: one per byte value plus one for end of key */
+	private static final int RADIX = 256;
+	
+	/** Buckets smaller than this are finished with insertion sort */
+	private static final int INSERTION_CUTOFF = 16;
+	
+	@Override
+	public void sort(ArrayList<Song> songs) {
+		int n = songs.size();
+		String[] keys = new String[n];
+		Song[] items = new Song[n];
+		for (int i = 0; i < n; i++) {
+			items[i] = songs.get(i);
+			keys[i] = items[i].getTitleSortKey();
+		}
+		
+		sort(keys, items, new String[n], new Song[n], 0, n - 1, 0);
+		
+		for (int i = 0; i < n; i++) {
+			songs.set(i, items[i]);
+		}
+	}
+	
+	/**
+	 * Sorts keys[lo..hi] (and the matching songs) on digits d and onward.
+	 */
+	private static void sort(String[] keys, Song[] items, String[] auxKeys, Song[] auxItems,
+			int lo, int hi, int d) {
+		if (hi - lo < INSERTION_CUTOFF) {
+			insertionSort(keys, items, lo, hi);
+			return;
+		}
+		
+		// count[digit + 2] so that count[1] holds the end-of-key bucket
+		int[] count = new int[RADIX + 2];
+		for (int i = lo; i <= hi; i++) {
+			count[digit(keys[i], d) + 2]++;
+		}
+		for (int r = 0; r < RADIX + 1; r++) {
+			count[r + 1] += count[r];
+		}
+		for (int i = lo; i <= hi; i++) {
+			int to = count[digit(keys[i], d) + 1]++;
+			auxKeys[to] = keys[i];
+			auxItems[to] = items[i];
+		}
+		System.arraycopy(auxKeys, 0, keys, lo, hi - lo + 1);
+		System.arraycopy(auxItems, 0, items, lo, hi - lo + 1);
+		
+		// Keys that ended are already in place, recurse into every byte bucket
+		for (int r = 0; r < RADIX; r++) {
+			int from = lo + count[r];
+			int to = lo + count[r + 1] - 1;
+			if (from < to) {
+				sort(keys, items, auxKeys, auxItems, from, to, d + 1);
+			}
+		}
+	}
+	
+	/**
+	 * Returns byte d of the key (high byte of each char first), or -1 past the end.
+	 */
+	private static int digit(String key, int d) {
+		int index = d >> 1;
+		if (index >= key.length()) {
+			return -1;
+		}
+		char c = key.charAt(index);
+		return (d & 1) == 0 ? c >>> 8 : c & 0xFF;
+	}
+	
+	private static void insertionSort(String[] keys, Song[] items, int lo, int hi) {
+		for (int i = lo + 1; i <= hi; i++) {
+			String key = keys[i];
+			Song item = items[i];
+			int j = i - 1;
+			// Strict greater-than keeps equal titles in their original order
+			while (j >= lo && keys[j].compareTo(key) > 0) {
+				keys[j + 1] = keys[j];
+				items[j + 1] = items[j];
+				j--;
+			}
+			keys[j + 1] = key;
+			items[j + 1] = item;
+		}
+	}
+}
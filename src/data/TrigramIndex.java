@@ -0,0 +1,405 @@
+package data;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.BitSet;
+import java.util.HashMap;
+import java.util.IdentityHashMap;
+import java.util.List;
+
+/**
+ * Inverted trigram index over the normalized title, artist and platform of songs.
+ * Used by MusicList to answer substring searches without scanning every song.
+ * 
+ * Every distinct song gets an int slot. Each trigram maps to the sorted list of
+ * slots whose fields contain it. A query of length 3 or more intersects the lists
+ * of its trigrams, then checks the few candidates with String.contains on their
+ * cached normalized fields, so the results are exactly the ones a full scan
+ * would return.
+ * 
+ * Removed songs are only marked dead and skipped; the index is rebuilt once dead
+ * slots outnumber live ones. Slots are handed out in increasing order, so as long
+ * as songs are only appended the slot order is the list order. Otherwise each
+ * slot keeps a rank that follows the list order: a song inserted between two
+ * others gets a rank between theirs, and removals leave the other ranks in
+ * order, so results are put in list order by sorting only the matches. When
+ * there is no rank left between two neighbours, and after the list is
+ * reordered, the ranks are numbered again from the list in O(n). Only while
+ * a song is listed more than once are list positions computed, once per
+ * change, on the next search.
+ * 
+ * @author Josiah Loomis
+ * @version 1.0
+ */
+class TrigramIndex {
+
+	/** Shortest query the index can answer, shorter ones need a scan */
+	static final int MIN_QUERY_LENGTH = 3;
+	
+	/** Do not bother compacting tiny indexes */
+	private static final int MIN_DEAD_TO_COMPACT = 1024;
+	
+	/** Space between the ranks of neighbouring songs after numbering them */
+	private static final long RANK_GAP = 1L << 32;
+	
+	/**
+	 * Growable sorted array of slots.
+	 */
+	private static final class Postings {
+		int[] slots = new int[4];
+		int size;
+		
+		void append(int slot) {
+			// A song adds each of its trigrams once, even if a field repeats it
+			if (size > 0 && slots[size - 1] == slot) {
+				return;
+			}
+			if (size == slots.length) {
+				slots = Arrays.copyOf(slots, size * 2);
+			}
+			slots[size++] = slot;
+		}
+		
+		boolean contains(int slot) {
+			return Arrays.binarySearch(slots, 0, size, slot) >= 0;
+		}
+	}
+	
+	private final HashMap<Long, Postings> postings = new HashMap<>();
+	private final IdentityHashMap<Song, Integer> slotOf = new IdentityHashMap<>();
+	private Song[] songs = new Song[16];
+	private int[] refCount = new int[16];
+	private long[] rank = new long[16];
+	private final BitSet live = new BitSet();
+	private int nextSlot;
+	private int liveCount;
+	
+	/** True while list order equals slot order and no song appears twice */
+	private boolean inSlotOrder = true;
+	
+	/** True while rank order equals list order; never while a song appears twice */
+	private boolean ranksInOrder = true;
+	private long lastRank;
+	
+	/** Extra listings of songs listed more than once */
+	private int duplicates;
+	
+	/** Lazily computed list positions, by slot; null when out of date */
+	private int[] firstPosition;
+	private int[] nextPosition;
+	
+	/**
+	 * Records that the song was inserted into the list.
+	 * 
+	 * @param song the inserted song
+	 * @param before the song listed just before it, or null if it is first
+	 * @param after the song listed just after it, or null if it was appended
+	 */
+	void add(Song song, Song before, Song after) {
+		firstPosition = null;
+		Integer existing = slotOf.get(song);
+		if (existing != null) {
+			// Same song object listed twice
+			refCount[existing]++;
+			duplicates++;
+			inSlotOrder = false;
+			ranksInOrder = false;
+			return;
+		}
+		int slot = index(song);
+		if (after == null) {
+			lastRank += RANK_GAP;
+			rank[slot] = lastRank;
+		} else {
+			inSlotOrder = false;
+			if (ranksInOrder) {
+				rankBetween(slot, before, after);
+			}
+		}
+	}
+	
+	/**
+	 * Records that one occurrence of the song was removed from the list.
+	 * Removal keeps the relative order of the other songs.
+	 * 
+	 * @param song the removed song
+	 */
+	void remove(Song song) {
+		Integer slot = slotOf.get(song);
+		if (slot == null) {
+			return;
+		}
+		firstPosition = null;
+		if (--refCount[slot] > 0) {
+			duplicates--;
+			return;
+		}
+		slotOf.remove(song);
+		songs[slot] = null;
+		live.clear(slot);
+		liveCount--;
+	}
+	
+	/**
+	 * Records that the song's title, artist or platform was edited. Its old
+	 * slot is marked dead and a new one indexes the new text, taking over the
+	 * old slot's listings and rank so the song keeps its place in list order.
+	 * 
+	 * @param song the edited song
+	 */
+	void update(Song song) {
+		Integer old = slotOf.remove(song);
+		if (old == null) {
+			return;
+		}
+		firstPosition = null;
+		songs[old] = null;
+		live.clear(old);
+		liveCount--;
+		if (old != nextSlot - 1) {
+			inSlotOrder = false;
+		}
+		int slot = index(song);
+		refCount[slot] = refCount[old];
+		rank[slot] = rank[old];
+	}
+	
+	/**
+	 * Records that the list was reordered, and numbers the ranks again.
+	 * 
+	 * @param list the songs in their new order
+	 */
+	void orderChanged(List<Song> list) {
+		inSlotOrder = false;
+		firstPosition = null;
+		renumber(list);
+	}
+	
+	/**
+	 * Drops everything from the index.
+	 */
+	void clear() {
+		postings.clear();
+		slotOf.clear();
+		songs = new Song[16];
+		refCount = new int[16];
+		rank = new long[16];
+		live.clear();
+		nextSlot = 0;
+		liveCount = 0;
+		inSlotOrder = true;
+		ranksInOrder = true;
+		lastRank = 0;
+		duplicates = 0;
+		firstPosition = null;
+	}
+	
+	/**
+	 * Rebuilds the index from scratch so that slots follow the list order again.
+	 * 
+	 * @param list the songs, in list order
+	 */
+	void rebuild(List<Song> list) {
+		clear();
+		for (Song song : list) {
+			add(song, null, null);
+		}
+	}
+	
+	/**
+	 * Finds the songs whose title, artist or platform contains the query.
+	 * 
+	 * @param normalizedQuery the normalized query, at least MIN_QUERY_LENGTH long
+	 * @param list the indexed songs, in list order
+	 * @return the matching songs in list order
+	 */
+	ArrayList<Song> search(String normalizedQuery, List<Song> list) {
+		compactIfNeeded(list);
+		
+		int[] matches = matchingSlots(normalizedQuery);
+		ArrayList<Song> results = new ArrayList<>(matches.length);
+		if (matches.length == 0) {
+			return results;
+		}
+		
+		if (inSlotOrder) {
+			for (int slot : matches) {
+				results.add(songs[slot]);
+			}
+			return results;
+		}
+		
+		if (duplicates == 0) {
+			if (!ranksInOrder) {
+				renumber(list);
+			}
+			// Ranks are distinct, so each match's place is where its rank sorts to
+			long[] ranks = new long[matches.length];
+			for (int i = 0; i < matches.length; i++) {
+				ranks[i] = rank[matches[i]];
+			}
+			Arrays.sort(ranks);
+			Song[] ordered = new Song[matches.length];
+			for (int slot : matches) {
+				ordered[Arrays.binarySearch(ranks, rank[slot])] = songs[slot];
+			}
+			results.addAll(Arrays.asList(ordered));
+			return results;
+		}
+		
+		// Collect every list position of every matching song, then sort them
+		computePositions(list);
+		int[] positions = new int[matches.length];
+		int count = 0;
+		for (int slot : matches) {
+			for (int p = firstPosition[slot]; p >= 0; p = nextPosition[p]) {
+				if (count == positions.length) {
+					positions = Arrays.copyOf(positions, count * 2);
+				}
+				positions[count++] = p;
+			}
+		}
+		Arrays.sort(positions, 0, count);
+		for (int i = 0; i < count; i++) {
+			results.add(list.get(positions[i]));
+		}
+		return results;
+	}
+	
+	/**
+	 * Returns the live slots, ascending, whose songs really contain the query.
+	 */
+	private int[] matchingSlots(String normalizedQuery) {
+		int trigramCount = normalizedQuery.length() - 2;
+		Postings[] lists = new Postings[trigramCount];
+		for (int i = 0; i < trigramCount; i++) {
+			Postings list = postings.get(trigram(normalizedQuery, i));
+			if (list == null) {
+				return new int[0];
+			}
+			lists[i] = list;
+		}
+		// Intersect starting from the rarest trigram
+		Arrays.sort(lists, (a, b) -> Integer.compare(a.size, b.size));
+		
+		Postings rarest = lists[0];
+		int[] matches = new int[rarest.size];
+		int count = 0;
+		for (int i = 0; i < rarest.size; i++) {
+			int slot = rarest.slots[i];
+			if (!live.get(slot) || !inAll(lists, slot) || !matches(songs[slot], normalizedQuery)) {
+				continue;
+			}
+			matches[count++] = slot;
+		}
+		return Arrays.copyOf(matches, count);
+	}
+	
+	private static boolean inAll(Postings[] lists, int slot) {
+		for (int i = 1; i < lists.length; i++) {
+			if (!lists[i].contains(slot)) {
+				return false;
+			}
+		}
+		return true;
+	}
+	
+	/**
+	 * The same check MusicList.searchSongs does on every song.
+	 */
+	static boolean matches(Song song, String normalizedQuery) {
+		return song.getNormalizedTitle().contains(normalizedQuery) ||
+				song.getNormalizedArtist().contains(normalizedQuery) ||
+				song.getNormalizedPlatform().contains(normalizedQuery);
+	}
+	
+	private int index(Song song) {
+		int slot = nextSlot++;
+		if (slot == songs.length) {
+			songs = Arrays.copyOf(songs, slot * 2);
+			refCount = Arrays.copyOf(refCount, slot * 2);
+			rank = Arrays.copyOf(rank, slot * 2);
+		}
+		songs[slot] = song;
+		refCount[slot] = 1;
+		slotOf.put(song, slot);
+		live.set(slot);
+		liveCount++;
+		
+		indexField(song.getNormalizedTitle(), slot);
+		indexField(song.getNormalizedArtist(), slot);
+		indexField(song.getNormalizedPlatform(), slot);
+		return slot;
+	}
+	
+	/**
+	 * Ranks a song inserted before the end of the list between its neighbours,
+	 * or marks the ranks for renumbering if there is no room between them.
+	 */
+	private void rankBetween(int slot, Song before, Song after) {
+		long high = rank[slotOf.get(after)];
+		long low = before == null ? high - 2 * RANK_GAP : rank[slotOf.get(before)];
+		if (high - low < 2) {
+			ranksInOrder = false;
+			return;
+		}
+		rank[slot] = low + (high - low) / 2;
+	}
+	
+	/**
+	 * Numbers the ranks in list order. Left out of order while a song is
+	 * listed more than once, since its listings would need several ranks.
+	 */
+	private void renumber(List<Song> list) {
+		if (duplicates > 0) {
+			ranksInOrder = false;
+			return;
+		}
+		long next = 0;
+		for (Song song : list) {
+			next += RANK_GAP;
+			rank[slotOf.get(song)] = next;
+		}
+		lastRank = next;
+		ranksInOrder = true;
+	}
+	
+	private void indexField(String field, int slot) {
+		for (int i = 0; i + MIN_QUERY_LENGTH <= field.length(); i++) {
+			postings.computeIfAbsent(trigram(field, i), key -> new Postings()).append(slot);
+		}
+	}
+	
+	/**
+	 * Packs the three chars starting at i into one key.
+	 */
+	private static long trigram(String s, int i) {
+		return ((long) s.charAt(i) << 32) | ((long) s.charAt(i + 1) << 16) | s.charAt(i + 2);
+	}
+	
+	private void compactIfNeeded(List<Song> list) {
+		int dead = nextSlot - liveCount;
+		if (dead >= MIN_DEAD_TO_COMPACT && dead > liveCount) {
+			rebuild(list);
+		}
+	}
+	
+	/**
+	 * Links every list position to the next position holding the same song.
+	 */
+	private void computePositions(List<Song> list) {
+		if (firstPosition != null) {
+			return;
+		}
+		int[] first = new int[nextSlot];
+		Arrays.fill(first, -1);
+		int[] next = new int[list.size()];
+		for (int p = list.size() - 1; p >= 0; p--) {
+			int slot = slotOf.get(list.get(p));
+			next[p] = first[slot];
+			first[slot] = p;
+		}
+		firstPosition = first;
+		nextPosition = next;
+	}
+}
@@ -1,13 +1,18 @@
 package driver;
 
+import java.io.IOException;
 import java.time.LocalDate;
+import java.util.Arrays;
+import java.util.concurrent.Executor;
 
 import javax.swing.SwingUtilities;
 
+import data.CheckpointScheduler;
 import data.MusicList;
 import data.MusicQueue;
 import data.Song;
 import gui.HomeGui;
+import server.MusicServer;
 
 /**
  * Starts the app by initializing the different data structure and the gui.
@@ -17,17 +22,30 @@ import gui.HomeGui;
  */
 public class MusicDriver {
 	
-	public MusicList musicList = new MusicList();
+	//Concurrent mode, so the shutdown hook and background saves read snapshots
+	public MusicList musicList = new MusicList(true);
 	public MusicQueue musicQueue = new MusicQueue();
 	
+	//Saves changed data in the background, copying it on the gui thread
+	public CheckpointScheduler checkpoints =
+			new CheckpointScheduler(SwingUtilities::invokeLater, CheckpointScheduler.DEFAULT_INTERVAL_MS);
+	
+	//The gui loads the list in the background; until then there is nothing to save
+	private volatile boolean musicListLoaded;
+	
 	public static void main(String[] args) {
 		//Creates the driver
 		MusicDriver driver = new MusicDriver();
 		
-		//Load data from file
-		driver.musicList.loadFromFile();
+		//Load the queue from file, the gui loads the list itself
 		driver.musicQueue.loadFromFile();
 		
+		if (Arrays.asList(args).contains("--server")) {
+			driver.musicList.loadFromFile();
+			runServer(driver, args);
+			return;
+		}
+		
 		//Loads the gui
         SwingUtilities.invokeLater(() -> {
             HomeGui gui = new HomeGui();
@@ -37,10 +55,66 @@ public class MusicDriver {
         //Tells the app to save when we close the app
         Runtime.getRuntime().addShutdownHook(new Thread(() -> {
             System.out.println("Shutting down... Saving data...");
+            driver.checkpoints.close();
             // Your cleanup code here
-            driver.musicList.saveToFile();
+            if (driver.musicListLoaded) {
+                driver.musicList.saveToFile();
+            }
     		driver.musicQueue.saveToFile();
         }));
     }
 	
+	/**
+	 * Starts the background checkpoints once the gui has loaded the music list.
+	 * Must be called on the gui thread.
+	 * 
+	 * @param listCaptureExecutor the thread the gui changes the music list on
+	 */
+	public void startCheckpoints(Executor listCaptureExecutor) {
+		musicListLoaded = true;
+		checkpoints.register("music list", musicList, listCaptureExecutor);
+		checkpoints.register("music queue", musicQueue);
+		checkpoints.start();
+	}
+	
+	/**
+	 * Serves the list and queue over local HTTP instead of showing the gui.
+	 * Usage: --server [--port=8642]
+	 * 
+	 * @param driver the driver with loaded data
+	 * @param args the command line arguments
+	 */
+	private static void runServer(MusicDriver driver, String[] args) {
+		int port = MusicServer.DEFAULT_PORT;
+		for (String arg : args) {
+			if (arg.startsWith("--port=")) {
+				port = Integer.parseInt(arg.substring("--port=".length()));
+			}
+		}
+		
+		MusicServer server = new MusicServer(driver.musicList, driver.musicQueue);
+		try {
+			server.start(port);
+		} catch (IOException e) {
+			System.err.println("Error starting server: " + e.getMessage());
+			System.exit(1);
+		}
+		System.out.println("Serving on http://127.0.0.1:" + server.getPort());
+		
+		//Checkpoints copy the queue while holding the server's queue lock
+		driver.checkpoints = new CheckpointScheduler(server.captureExecutor(), CheckpointScheduler.DEFAULT_INTERVAL_MS);
+		driver.checkpoints.register("music list", driver.musicList);
+		driver.checkpoints.register("music queue", driver.musicQueue);
+		driver.checkpoints.start();
+		
+		//Stops taking requests before the final save
+		Runtime.getRuntime().addShutdownHook(new Thread(() -> {
+			System.out.println("Shutting down... Saving data...");
+			server.stop();
+			driver.checkpoints.close();
+			driver.musicList.saveToFile();
+			driver.musicQueue.saveToFile();
+		}));
+	}
+	
 }
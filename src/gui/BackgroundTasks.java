@@ -0,0 +1,214 @@
+package gui;
+
+import javax.swing.*;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.Executor;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.function.Consumer;
+
+/**
+ * Runs music list work off the event dispatch thread and hands the results
+ * back to it, so the window keeps painting while the list is searched,
+ * sorted or loaded.
+ * 
+ * Every task runs on one worker thread, one at a time. The list is only
+ * changed from that thread, so a write never makes the event thread wait
+ * for the list's lock. Tasks submitted on the same lane replace each other:
+ * a newer search cancels the one before it. A task that has not started is
+ * dropped, and one that is running can check isCancelled to stop early; its
+ * result is never delivered. Running tasks are not interrupted, since an
+ * interrupt closes the journal's file channel.
+ * 
+ * Tasks can report progress, which is shown in a progress bar while they run.
+ * 
+ * @author Josiah Loomis
+ * @version 1.0
+ */
+public class BackgroundTasks implements Executor {
+    
+    /**
+     * Work to run on the worker thread.
+     * 
+     * @param <T> the type of the result
+     */
+    public interface Task<T> {
+        /**
+         * Does the work.
+         * 
+         * @param progress where to report progress and check for cancellation
+         * @return the result passed to the event dispatch thread
+         * @throws Exception if the work fails
+         */
+        T run(Progress progress) throws Exception;
+    }
+    
+    /**
+     * Lets a running task report progress and see that it was replaced.
+     */
+    public interface Progress {
+        /**
+         * Shows the task's progress. Safe to call often, updates are coalesced.
+         * 
+         * @param percent from 0 to 100, or -1 if the amount of work is unknown
+         * @param message what the task is doing
+         */
+        void report(int percent, String message);
+        
+        /**
+         * Checks if a newer task on the same lane replaced this one.
+         * 
+         * @return true if the result will be thrown away
+         */
+        boolean isCancelled();
+    }
+    
+    /** One progress report */
+    private static final class Update {
+        final int percent;
+        final String message;
+        
+        Update(int percent, String message) {
+            this.percent = percent;
+            this.message = message;
+        }
+    }
+    
+    private final ExecutorService worker = Executors.newSingleThreadExecutor(task -> {
+        Thread thread = new Thread(task, "music-tasks");
+        thread.setDaemon(true);
+        return thread;
+    });
+    
+    /** Latest task of each lane; only used on the event dispatch thread */
+    private final Map<String, TaskWorker<?>> lanes = new HashMap<>();
+    
+    /** Shows the progress of the task that reported last */
+    private final JProgressBar progressBar;
+    
+    /** Told about tasks that throw */
+    private final Consumer<Exception> onError;
+    
+    /** Task whose progress is being shown, or null */
+    private TaskWorker<?> showingProgress;
+    
+    /**
+     * Creates a runner with its own worker thread.
+     * 
+     * @param progressBar the bar to show progress in, hidden while no task reports any
+     * @param onError called on the event dispatch thread when a task throws
+     */
+    public BackgroundTasks(JProgressBar progressBar, Consumer<Exception> onError) {
+        this.progressBar = progressBar;
+        this.onError = onError;
+        progressBar.setStringPainted(true);
+        progressBar.setVisible(false);
+    }
+    
+    /**
+     * Runs a task on the worker thread. Must be called on the event dispatch thread.
+     * 
+     * @param lane tasks of the same lane cancel older ones; null to never cancel
+     * @param task the work
+     * @param onDone called on the event dispatch thread with the result, unless cancelled
+     * @param <T> the type of the result
+     */
+    public <T> void submit(String lane, Task<T> task, Consumer<T> onDone) {
+        if (lane != null) {
+            cancel(lane);
+        }
+        TaskWorker<T> taskWorker = new TaskWorker<>(lane, task, onDone);
+        if (lane != null) {
+            lanes.put(lane, taskWorker);
+        }
+        worker.execute(taskWorker);
+    }
+    
+    /**
+     * Cancels the latest task of a lane, if it has not finished.
+     * Must be called on the event dispatch thread.
+     * 
+     * @param lane the lane
+     */
+    public void cancel(String lane) {
+        TaskWorker<?> previous = lanes.remove(lane);
+        if (previous != null) {
+            previous.cancel(false);
+        }
+    }
+    
+    /**
+     * Runs a command on the worker thread, after the tasks already submitted.
+     * Used to copy the list for checkpoints between writes.
+     * 
+     * @param command the command
+     */
+    @Override
+    public void execute(Runnable command) {
+        worker.execute(command);
+    }
+    
+    /**
+     * A task running as a SwingWorker on the worker thread.
+     */
+    private final class TaskWorker<T> extends SwingWorker<T, Update> implements Progress {
+        private final String lane;
+        private final Task<T> task;
+        private final Consumer<T> onDone;
+        
+        TaskWorker(String lane, Task<T> task, Consumer<T> onDone) {
+            this.lane = lane;
+            this.task = task;
+            this.onDone = onDone;
+        }
+        
+        @Override
+        protected T doInBackground() throws Exception {
+            return task.run(this);
+        }
+        
+        @Override
+        public void report(int percent, String message) {
+            publish(new Update(percent, message));
+        }
+        
+        @Override
+        protected void process(List<Update> updates) {
+            if (isDone()) {
+                // Finished or cancelled while the updates were on their way
+                return;
+            }
+            Update latest = updates.get(updates.size() - 1);
+            showingProgress = this;
+            progressBar.setIndeterminate(latest.percent < 0);
+            progressBar.setValue(Math.max(0, latest.percent));
+            progressBar.setString(latest.message);
+            progressBar.setVisible(true);
+        }
+        
+        @Override
+        protected void done() {
+            if (lane != null && lanes.get(lane) == this) {
+                lanes.remove(lane);
+            }
+            if (showingProgress == this) {
+                showingProgress = null;
+                progressBar.setVisible(false);
+            }
+            if (isCancelled()) {
+                return;
+            }
+            try {
+                onDone.accept(get());
+            } catch (ExecutionException e) {
+                Throwable cause = e.getCause();
+                onError.accept(cause instanceof Exception ? (Exception) cause : e);
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+            }
+        }
+    }
+}
@@ -0,0 +1,86 @@
+package gui;
+
+import javax.swing.*;
+import javax.swing.table.TableCellEditor;
+import javax.swing.table.TableCellRenderer;
+import javax.swing.table.TableColumn;
+import java.awt.*;
+import java.util.function.IntConsumer;
+
+/**
+ * Renders a table column as buttons and runs an action when one is clicked.
+ * One button paints every visible cell and a second one is the editor for
+ * the cell being clicked, so the column costs two components however many
+ * rows the table has.
+ * 
+ * @author Josiah Loomis
+ * @version 1.0
+ */
+class ButtonColumn extends AbstractCellEditor implements TableCellRenderer, TableCellEditor {
+    
+    private static final long serialVersionUID = 1L;
+    
+    /** Paints the cells */
+    private final JButton renderButton = new JButton();
+    
+    /** Receives the click of the cell being edited */
+    private final JButton editButton = new JButton();
+    
+    /** Model row of the cell being edited */
+    private int editingRow = -1;
+    
+    /**
+     * Installs buttons in a column of the table.
+     * 
+     * @param table the table
+     * @param column the view index of the column
+     * @param action called with the model row whose button was clicked
+     */
+    ButtonColumn(JTable table, int column, IntConsumer action) {
+        editButton.setFocusPainted(false);
+        editButton.addActionListener(e -> {
+            int row = editingRow;
+            // Stop editing first, the action may remove the row
+            fireEditingStopped();
+            if (row >= 0) {
+                action.accept(row);
+            }
+        });
+        
+        TableColumn tableColumn = table.getColumnModel().getColumn(column);
+        tableColumn.setCellRenderer(this);
+        tableColumn.setCellEditor(this);
+    }
+    
+    @Override
+    public Component getTableCellRendererComponent(JTable table, Object value, boolean isSelected,
+                                                   boolean hasFocus, int row, int column) {
+        renderButton.setText(value == null ? "" : value.toString());
+        return renderButton;
+    }
+    
+    @Override
+    public Component getTableCellEditorComponent(JTable table, Object value, boolean isSelected,
+                                                 int row, int column) {
+        editingRow = table.convertRowIndexToModel(row);
+        editButton.setText(value == null ? "" : value.toString());
+        return editButton;
+    }
+    
+    @Override
+    public Object getCellEditorValue() {
+        return editButton.getText();
+    }
+    
+    @Override
+    public boolean stopCellEditing() {
+        editingRow = -1;
+        return super.stopCellEditing();
+    }
+    
+    @Override
+    public void cancelCellEditing() {
+        editingRow = -1;
+        super.cancelCellEditing();
+    }
+}
@@ -0,0 +1,599 @@
+package gui;
+
+import javax.swing.*;
+import javax.swing.event.DocumentEvent;
+import javax.swing.event.DocumentListener;
+import data.MusicList;
+import data.MusicQueue;
+import data.Song;
+import driver.MusicDriver;
+import java.awt.*;
+import java.time.LocalDate;
+import java.util.ArrayList;
+import java.util.function.Consumer;
+
+/**
+ * GUI class for the music management application.
+ * Provides an interface for adding, viewing, sorting, and queuing songs.
+ * 
+ * @author Josiah Loomis
+ * @version 1.0
+ */
+public class HomeGui {
+
+    /** Reference to the main driver for accessing music data structures */
+    private MusicDriver driver;
+    
+    /** Table that displays the list of songs */
+    private JTable songsTable;
+    
+    /** Model of the songs table, reading from the music list */
+    private SongTableModel songsModel;
+    
+    /** Main application window */
+    private JFrame frame;
+    
+    /** Input field for song title */
+    private JTextField titleField;
+    
+    /** Input field for artist name */
+    private JTextField artistField;
+    
+    /** Input field for platform name */
+    private JTextField platformField;
+    
+    /** Input field for song link/URL */
+    private JTextField linkField;
+    
+    /** Input field for release date */
+    private JTextField releaseDateField;
+    
+    /** Currently playing song from the queue */
+    private Song songPlaying = null;
+    
+    /** Label displaying current song information */
+    private JLabel infoLabel;
+    
+    /** Input field for searching for songs */
+    private JTextField searchField;
+    
+    /** List that displays the queue */
+    private JList<MusicQueue.Handle> queueList;
+    
+    /** Label showing word suggestions while typing in the search field */
+    private JLabel suggestionLabel;
+    
+    /** Label shown when a search finds nothing */
+    private JLabel noResultsLabel;
+    
+    /** Query that the search-as-you-type results currently show */
+    private String lastTypedQuery = "";
+    
+    /** Runs searches, sorts, loads and edits of the music list off the event thread */
+    private BackgroundTasks tasks;
+    
+    /** Shows the progress of long background tasks */
+    private JProgressBar progressBar;
+    
+    /** Maximum number of songs shown while typing a search */
+    private static final int TYPE_AHEAD_LIMIT = 50;
+    
+    /** Maximum number of word suggestions shown while typing a search */
+    private static final int SUGGESTION_LIMIT = 5;
+    
+    /**
+     * Completions and results found for a word being typed.
+     */
+    private static final class TypeAhead {
+        final ArrayList<String> completions;
+        final ArrayList<Song> results;
+        
+        TypeAhead(ArrayList<String> completions, ArrayList<Song> results) {
+            this.completions = completions;
+            this.results = results;
+        }
+    }
+    
+    /**
+     * Creates and displays the main GUI window.
+     * Initializes all panels, buttons, and event listeners.
+     * 
+     * @param driver the MusicDriver instance containing music data
+     */
+    public void createAndShow(MusicDriver driver) {
+        this.driver = driver;
+        
+        // Initialize main frame
+        frame = new JFrame("Music Manager");
+        frame.setDefaultCloseOperation(JFrame.EXIT_ON_CLOSE);
+        frame.setSize(1000, 850);
+        frame.setLayout(new BorderLayout());
+        
+        progressBar = new JProgressBar(0, 100);
+        tasks = new BackgroundTasks(progressBar, ex -> JOptionPane.showMessageDialog(frame,
+            ex.getMessage(), "Error", JOptionPane.ERROR_MESSAGE));
+        
+        // Create and add all panels
+        JPanel topPanel = createTopPanel();
+        frame.add(topPanel, BorderLayout.NORTH);
+        
+        JScrollPane scrollPane = createSongsPanel();
+        frame.add(scrollPane, BorderLayout.CENTER);
+        
+        JPanel queuePanel = createQueuePanel();
+        frame.add(queuePanel, BorderLayout.SOUTH);
+        
+        frame.setVisible(true);
+        
+        // The library can be large, so it loads after the window is up
+        loadSongs();
+    }
+    
+    /**
+     * Creates the top panel containing song input fields and sort buttons.
+     * 
+     * @return the configured top panel
+     */
+    private JPanel createTopPanel() {
+        // Add Song Panel
+        JPanel addSongPanel = new JPanel(new GridLayout(2, 5, 10, 5));
+        addSongPanel.setBorder(BorderFactory.createTitledBorder("Add a New Song"));
+        
+        JPanel searchPanel = new JPanel(new FlowLayout(FlowLayout.LEFT));
+        searchPanel.setBorder(BorderFactory.createTitledBorder("Search Songs"));
+        
+        searchField = new JTextField(20);
+        searchField.setToolTipText("Typing shows songs with a word starting with the text, "
+            + "Search finds the text anywhere in the title, artist or platform");
+        JButton searchButton = new JButton("Search");
+        JButton clearSearchButton = new JButton("Show All");
+        
+        suggestionLabel = new JLabel("");
+        noResultsLabel = new JLabel("");
+        
+        searchButton.addActionListener(e -> searchSongs());
+        clearSearchButton.addActionListener(e -> {
+            searchField.setText("");
+            lastTypedQuery = "";
+            suggestionLabel.setText("");
+            refreshSongsList();
+        });
+        
+        // Update the results whenever the text changes, typed or pasted
+        searchField.getDocument().addDocumentListener(new DocumentListener() {
+            @Override
+            public void insertUpdate(DocumentEvent e) {
+                searchAsYouType();
+            }
+            
+            @Override
+            public void removeUpdate(DocumentEvent e) {
+                searchAsYouType();
+            }
+            
+            @Override
+            public void changedUpdate(DocumentEvent e) {
+                // Attribute changes only, the text is the same
+            }
+        });
+        
+        searchPanel.add(new JLabel("Search:"));
+        searchPanel.add(searchField);
+        searchPanel.add(searchButton);
+        searchPanel.add(clearSearchButton);
+        searchPanel.add(suggestionLabel);
+        searchPanel.add(noResultsLabel);
+        
+        // Initialize text fields
+        titleField = new JTextField();
+        artistField = new JTextField();
+        platformField = new JTextField();
+        linkField = new JTextField();
+        releaseDateField = new JTextField();
+        
+        // Add labels
+        addSongPanel.add(new JLabel("Title:"));
+        addSongPanel.add(new JLabel("Artist:"));
+        addSongPanel.add(new JLabel("Platform:"));
+        addSongPanel.add(new JLabel("Song Link:"));
+        addSongPanel.add(new JLabel("Release Date (yyyy-MM-dd):"));
+
+        // Add text fields
+        addSongPanel.add(titleField);
+        addSongPanel.add(artistField);
+        addSongPanel.add(platformField);
+        addSongPanel.add(linkField);
+        addSongPanel.add(releaseDateField);
+
+        // Button Panel
+        JPanel buttonPanel = new JPanel();
+        
+        JButton addSongBtn = new JButton("Add Song");
+        JButton alphabeticallyBtn = new JButton("Sort Alphabetically");
+        JButton dateReleasedBtn = new JButton("Sort by Release Date");
+        JButton dateAddedBtn = new JButton("Sort by Date Added");
+        
+        buttonPanel.add(addSongBtn);
+        buttonPanel.add(alphabeticallyBtn);
+        buttonPanel.add(dateReleasedBtn);
+        buttonPanel.add(dateAddedBtn);
+        buttonPanel.add(progressBar);
+        
+        // Add action listeners
+        addSongBtn.addActionListener(e -> addSong());
+        alphabeticallyBtn.addActionListener(e -> sortSongsByAlphabet());
+        dateReleasedBtn.addActionListener(e -> sortSongsByReleaseDate());
+        dateAddedBtn.addActionListener(e -> sortSongsByDateAdded());
+        
+        // Combine panels
+        JPanel topPanel = new JPanel(new BorderLayout());
+        topPanel.add(addSongPanel, BorderLayout.NORTH);
+        topPanel.add(searchPanel, BorderLayout.SOUTH);
+        topPanel.add(buttonPanel, BorderLayout.CENTER);
+        
+        return topPanel;
+    }
+    
+    /**
+     * Creates the scrollable table that displays all songs.
+     * The table only paints the rows in view, so its cost does not grow with the library.
+     * 
+     * @return a scroll pane containing the songs table
+     */
+    private JScrollPane createSongsPanel() {
+        songsModel = new SongTableModel(driver.musicList);
+        songsTable = new JTable(songsModel);
+        songsTable.setRowHeight(28);
+        songsTable.setFillsViewportHeight(true);
+        songsTable.getTableHeader().setReorderingAllowed(false);
+        songsTable.getColumnModel().getColumn(SongTableModel.TITLE_COLUMN).setPreferredWidth(220);
+        songsTable.getColumnModel().getColumn(SongTableModel.PRIORITY_QUEUE_COLUMN).setPreferredWidth(120);
+        
+        // Action buttons, one renderer and editor per column
+        new ButtonColumn(songsTable, SongTableModel.QUEUE_COLUMN,
+            row -> queueSong(songsModel.getSongAt(row), false));
+        new ButtonColumn(songsTable, SongTableModel.PRIORITY_QUEUE_COLUMN,
+            row -> queueSong(songsModel.getSongAt(row), true));
+        new ButtonColumn(songsTable, SongTableModel.DELETE_COLUMN,
+            row -> deleteSong(songsModel.getSongAt(row), songsModel.isShowingResults() ? -1 : row));
+
+        return new JScrollPane(songsTable);
+    }
+    
+    /**
+     * Creates the bottom panel showing currently playing song and queue controls.
+     * 
+     * @return the configured queue panel
+     */
+    private JPanel createQueuePanel() {
+    	JPanel mainQueuePanel = new JPanel(new BorderLayout());
+        mainQueuePanel.setBorder(BorderFactory.createTitledBorder("Music Queue"));
+        
+        // Top section - Now Playing
+        JPanel nowPlayingPanel = new JPanel(new FlowLayout(FlowLayout.LEFT));
+        infoLabel = new JLabel("");
+        updateSongPlaying();
+        
+        JButton nextButton = new JButton("Next Song");
+        nextButton.addActionListener(e -> updateSongPlaying());
+        
+        nowPlayingPanel.add(infoLabel);
+        nowPlayingPanel.add(nextButton);
+        
+        // Bottom section - Queue List, updated by the queue's change events
+        queueList = new JList<>(new QueueListModel(driver.musicQueue));
+        queueList.setSelectionMode(ListSelectionModel.SINGLE_SELECTION);
+        // Fixed cell sizes, otherwise the list measures every entry to lay itself out
+        queueList.setFixedCellHeight(22);
+        queueList.setFixedCellWidth(400);
+        queueList.setCellRenderer(new DefaultListCellRenderer() {
+            @Override
+            public Component getListCellRendererComponent(JList<?> list, Object value, int index,
+                                                          boolean isSelected, boolean cellHasFocus) {
+                Song song = ((MusicQueue.Handle) value).getSong();
+                String priorityIndicator = Boolean.TRUE.equals(song.getPriorityQueued()) ? "⭐ " : "";
+                String text = (index + 1) + ". " + priorityIndicator + song.getTitle() + " - " + song.getArtist();
+                return super.getListCellRendererComponent(list, text, index, isSelected, cellHasFocus);
+            }
+        });
+        JScrollPane queueScrollPane = new JScrollPane(queueList);
+        queueScrollPane.setPreferredSize(new Dimension(0, 150));
+        
+        // Actions on the selected entry work through its handle
+        JButton upBtn = new JButton("▲");
+        upBtn.setToolTipText("Raise priority");
+        upBtn.addActionListener(e -> moveSelectedEntry(true));
+        JButton downBtn = new JButton("▼");
+        downBtn.setToolTipText("Lower priority");
+        downBtn.addActionListener(e -> moveSelectedEntry(false));
+        JButton removeBtn = new JButton("Remove");
+        removeBtn.addActionListener(e -> {
+            MusicQueue.Handle handle = queueList.getSelectedValue();
+            if (handle != null) {
+                driver.musicQueue.remove(handle);
+            }
+        });
+        
+        JPanel queueButtonPanel = new JPanel(new FlowLayout(FlowLayout.LEFT));
+        queueButtonPanel.add(upBtn);
+        queueButtonPanel.add(downBtn);
+        queueButtonPanel.add(removeBtn);
+        
+        // Combine panels
+        mainQueuePanel.add(nowPlayingPanel, BorderLayout.NORTH);
+        mainQueuePanel.add(queueScrollPane, BorderLayout.CENTER);
+        mainQueuePanel.add(queueButtonPanel, BorderLayout.SOUTH);
+        
+        return mainQueuePanel;
+    }
+    
+    /**
+     * Loads the music list in the background and starts saving it once loaded.
+     */
+    private void loadSongs() {
+        tasks.submit("load", progress -> {
+            progress.report(-1, "Loading songs...");
+            driver.musicList.loadFromFile();
+            return driver.musicList.getSnapshot();
+        }, snapshot -> {
+            showAllSongs(snapshot);
+            // List checkpoints are copied on the task thread, between writes
+            driver.startCheckpoints(tasks);
+        });
+    }
+    
+    /**
+     * Sorts the music list alphabetically by title and refreshes the display.
+     */
+    private void sortSongsByAlphabet() {
+        sortSongs("Sorting alphabetically...", progress -> {
+            ArrayList<Song> sorted = driver.musicList.getSongsAlphabetically();
+            if (!progress.isCancelled()) {
+                driver.musicList.updateList(sorted); // Unless a newer sort replaced this one
+            }
+        });
+    }
+    
+    /**
+     * Sorts the music list by date added and refreshes the display.
+     */
+    private void sortSongsByDateAdded() {
+        // Read in order from the list's date index, no sorting
+        sortSongs("Sorting by date added...", progress -> driver.musicList.sortByDateAdded());
+    }
+    
+    /**
+     * Sorts the music list by release date and refreshes the display.
+     */
+    private void sortSongsByReleaseDate() {
+        sortSongs("Sorting by release date...", progress -> driver.musicList.sortByDateCreated());
+    }
+    
+    /**
+     * Sorts the music list in the background, replacing any sort still running.
+     * 
+     * @param message the progress message
+     * @param sort reorders the list on the task thread
+     */
+    private void sortSongs(String message, Consumer<BackgroundTasks.Progress> sort) {
+        tasks.cancel("search");
+        tasks.submit("sort", progress -> {
+            progress.report(-1, message);
+            sort.accept(progress);
+            return driver.musicList.getSnapshot();
+        }, this::showAllSongs);
+    }
+    
+    /**
+     * Updates the display to show the next song in the queue.
+     * Dequeues the next song and displays its information.
+     */
+    private void updateSongPlaying() {
+        if (!driver.musicQueue.isEmpty()) {
+            songPlaying = driver.musicQueue.dequeue();
+            infoLabel.setText("<html>🎵 Now Playing: " + songPlaying.getTitle() + 
+                            " by " + songPlaying.getArtist() + 
+                            "<br>Link: " + songPlaying.getSongLink() + "</html>");
+        } else {
+            infoLabel.setText("🎵 No songs in the queue.");
+        }
+    }
+    
+    /**
+     * Handles adding a new song to the music list.
+     * Validates input fields and creates a new Song object.
+     * Displays error messages for invalid input.
+     */
+    private void addSong() {
+        // Get and trim input values
+        String title = titleField.getText().trim();
+        String artist = artistField.getText().trim();
+        String platform = platformField.getText().trim();
+        String link = linkField.getText().trim();
+        String releaseDateStr = releaseDateField.getText().trim();
+        
+        // Validate all fields are filled
+        if (title.isEmpty() || artist.isEmpty() || platform.isEmpty() || 
+            link.isEmpty() || releaseDateStr.isEmpty()) {
+            JOptionPane.showMessageDialog(frame, 
+                "All fields are required!", 
+                "Error", 
+                JOptionPane.ERROR_MESSAGE);
+            return;
+        }
+        
+        // Parse the release date with error handling
+        LocalDate releaseDate;
+        try {
+            releaseDate = LocalDate.parse(releaseDateStr);
+        } catch (Exception ex) {
+            JOptionPane.showMessageDialog(frame, 
+                "Invalid date format! Please use yyyy-MM-dd format.\nExample: 2024-11-19", 
+                "Date Error", 
+                JOptionPane.ERROR_MESSAGE);
+            return;
+        }
+        
+        // Clear all text fields
+        clearInputFields();
+        
+        // Create new song and add to list, then show it
+        Song newSong = new Song(title, artist, platform, link, releaseDate, LocalDate.now());
+        tasks.submit(null, progress -> {
+            driver.musicList.addSong(newSong);
+            return driver.musicList.getSnapshot();
+        }, snapshot -> {
+            showAllSongs(snapshot);
+            JOptionPane.showMessageDialog(frame, "Song added successfully!");
+        });
+    }
+    
+    /**
+     * Clears all input fields in the add song panel.
+     */
+    private void clearInputFields() {
+        titleField.setText("");
+        artistField.setText("");
+        platformField.setText("");
+        linkField.setText("");
+        releaseDateField.setText("");
+    }
+    
+    /**
+     * Shows the whole music list in the songs table.
+     * The table reads the list directly, so nothing is rebuilt.
+     */
+    private void refreshSongsList() {
+        tasks.cancel("search");
+        noResultsLabel.setText("");
+        songsModel.showAll();
+    }
+    
+    /**
+     * Shows the whole music list as a background task left it.
+     * 
+     * @param snapshot the list after the task
+     */
+    private void showAllSongs(MusicList.Snapshot snapshot) {
+        tasks.cancel("search");
+        noResultsLabel.setText("");
+        songsModel.showAll(snapshot);
+    }
+    
+    /**
+     * Adds a song to the queue.
+     * 
+     * @param song the song to queue
+     * @param priority true to queue it with priority
+     */
+    private void queueSong(Song song, boolean priority) {
+        driver.musicQueue.enqueue(song, priority);
+    }
+    
+    /**
+     * Handles song deletion with confirmation dialog.
+     * 
+     * @param song the song to delete
+     * @param listIndex where the song is in the list, or -1 if unknown
+     */
+    private void deleteSong(Song song, int listIndex) {
+        int confirm = JOptionPane.showConfirmDialog(frame,
+            "Are you sure you want to delete \"" + song.getTitle() + "\"?",
+            "Confirm Delete",
+            JOptionPane.YES_NO_OPTION);
+        
+        if (confirm == JOptionPane.YES_OPTION) {
+            tasks.submit(null, progress -> {
+                driver.musicList.removeSong(song, listIndex);
+                return driver.musicList.getSnapshot();
+            }, snapshot -> {
+                showAllSongs(snapshot);
+                JOptionPane.showMessageDialog(frame, "Song deleted successfully!");
+            });
+        }
+    }
+    
+    /**
+     * Filters and displays songs based on search query.
+     * Searches in title, artist, and platform fields.
+     */
+    private void searchSongs() {
+        String query = searchField.getText().trim();
+        
+        if (query.isEmpty()) {
+            refreshSongsList();
+            return;
+        }
+        suggestionLabel.setText(""); // The suggestions are for words starting with the text
+        
+        // A newer search replaces this one if it is still running
+        tasks.submit("search", progress -> driver.musicList.searchSongs(query),
+            results -> showSearchResults(results, "No songs found containing: \"" + query + "\""));
+    }
+    
+    /**
+     * Updates the results while the user types in the search field.
+     * A single word is looked up as a prefix of title and artist words, with
+     * suggestions for completing it, and the suggestion label says so since
+     * the Search button matches the text anywhere instead. Longer queries use
+     * the full search.
+     */
+    private void searchAsYouType() {
+        String query = searchField.getText().trim();
+        if (query.equals(lastTypedQuery)) {
+            return; // Only spaces around the query changed
+        }
+        lastTypedQuery = query;
+        
+        if (query.isEmpty()) {
+            suggestionLabel.setText("");
+            refreshSongsList();
+            return;
+        }
+        
+        if (query.contains(" ")) {
+            searchSongs();
+            return;
+        }
+        
+        tasks.submit("search", progress -> new TypeAhead(
+                driver.musicList.getCompletions(query, SUGGESTION_LIMIT),
+                driver.musicList.searchByPrefix(query, TYPE_AHEAD_LIMIT)),
+            typeAhead -> {
+                suggestionLabel.setText(typeAhead.completions.isEmpty() ? ""
+                    : "Words starting with \"" + query + "\": " + String.join(", ", typeAhead.completions));
+                showSearchResults(typeAhead.results, "No words starting with: \"" + query + "\"");
+            });
+    }
+    
+    /**
+     * Replaces the songs display with the given search results.
+     * 
+     * @param results the songs to show
+     * @param noResults the message shown if there are none
+     */
+    private void showSearchResults(ArrayList<Song> results, String noResults) {
+        noResultsLabel.setText(results.isEmpty() ? noResults : "");
+        songsModel.showResults(results);
+    }
+    
+    /**
+     * Raises or lowers the priority of the selected queue entry, keeping it selected.
+     * 
+     * @param up true to raise the priority, false to lower it
+     */
+    private void moveSelectedEntry(boolean up) {
+        MusicQueue.Handle handle = queueList.getSelectedValue();
+        if (handle == null) {
+            return;
+        }
+        if (up) {
+            driver.musicQueue.promote(handle);
+        } else {
+            driver.musicQueue.demote(handle);
+        }
+        int position = driver.musicQueue.positionOf(handle);
+        queueList.setSelectedIndex(position);
+        queueList.ensureIndexIsVisible(position);
+    }
+}
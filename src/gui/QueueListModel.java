@@ -0,0 +1,108 @@
+package gui;
+
+import javax.swing.AbstractListModel;
+import javax.swing.SwingUtilities;
+import data.MusicQueue;
+import data.SongChangeEvent;
+import data.SongChangeListener;
+
+/**
+ * List model showing the entries of a MusicQueue in play order.
+ * Entries are read from the queue when the list paints them, and changes
+ * to the queue arrive as SongChangeEvents that become interval inserts and
+ * removals, so dequeuing one song is O(1) UI work however long the queue is.
+ * 
+ * The queue has no index, so the model remembers the last entry it looked
+ * up and walks forward from it when the next row asked for is at most
+ * MAX_WALK rows further down. A list paints its rows top to bottom, so
+ * each visible row after the first costs one step; other rows are looked
+ * up from the queue.
+ * 
+ * @author Josiah Loomis
+ * @version 1.0
+ */
+public class QueueListModel extends AbstractListModel<MusicQueue.Handle> implements SongChangeListener {
+    
+    private static final long serialVersionUID = 1L;
+    
+    /** Furthest the remembered entry is walked forward before looking a row up instead */
+    private static final int MAX_WALK = 64;
+    
+    private final MusicQueue queue;
+    
+    /** Last entry looked up and its position, or null when unknown */
+    private MusicQueue.Handle cursor;
+    private int cursorIndex;
+    
+    /**
+     * Creates a model showing the queue and keeping up with its changes.
+     * 
+     * @param queue the queue to show
+     */
+    public QueueListModel(MusicQueue queue) {
+        this.queue = queue;
+        queue.addChangeListener(this);
+    }
+    
+    @Override
+    public int getSize() {
+        return queue.size();
+    }
+    
+    @Override
+    public MusicQueue.Handle getElementAt(int index) {
+        MusicQueue.Handle handle = null;
+        if (cursor != null && cursor.isQueued() && index >= cursorIndex && index - cursorIndex <= MAX_WALK) {
+            handle = cursor;
+            for (int i = cursorIndex; i < index && handle != null; i++) {
+                handle = queue.next(handle);
+            }
+        }
+        if (handle == null) {
+            handle = queue.get(index);
+        }
+        cursor = handle;
+        cursorIndex = index;
+        return handle;
+    }
+    
+    /**
+     * Passes a change of the queue on to the list.
+     * Changes made off the event dispatch thread refresh the whole list later,
+     * on the event dispatch thread, which is the only one using the cursor.
+     * 
+     * @param event the change
+     */
+    @Override
+    public void songsChanged(SongChangeEvent event) {
+        if (!SwingUtilities.isEventDispatchThread()) {
+            SwingUtilities.invokeLater(this::refresh);
+            return;
+        }
+        if (event.getType() == SongChangeEvent.Type.REPLACED) {
+            refresh();
+        } else if (event.size() == 0) {
+            return;
+        } else if (event.getType() == SongChangeEvent.Type.ADDED) {
+            if (cursor != null && cursorIndex >= event.getFromIndex()) {
+                cursorIndex += event.size();
+            }
+            fireIntervalAdded(this, event.getFromIndex(), event.getToIndex() - 1);
+        } else {
+            if (cursor != null && cursorIndex >= event.getToIndex()) {
+                cursorIndex -= event.size();
+            } else if (cursor != null && cursorIndex >= event.getFromIndex()) {
+                cursor = null;
+            }
+            fireIntervalRemoved(this, event.getFromIndex(), event.getToIndex() - 1);
+        }
+    }
+    
+    /**
+     * Forgets the remembered entry and repaints every row.
+     */
+    private void refresh() {
+        cursor = null;
+        fireContentsChanged(this, 0, Math.max(0, getSize() - 1));
+    }
+}
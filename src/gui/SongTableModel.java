@@ -0,0 +1,187 @@
+package gui;
+
+import javax.swing.SwingUtilities;
+import javax.swing.table.AbstractTableModel;
+import data.MusicList;
+import data.Song;
+import data.SongChangeEvent;
+import data.SongChangeListener;
+import java.util.List;
+
+/**
+ * Table model showing the songs of a MusicList, or a list of search results,
+ * one row per song. Cells are read from a snapshot of the list when the table
+ * paints them, so only the visible rows are ever looked at, and the rows stay
+ * consistent while another thread writes to the list. Changes to the list
+ * arrive as SongChangeEvents and are passed on to the table as row inserts,
+ * deletes or a full refresh.
+ * 
+ * @author Josiah Loomis
+ * @version 1.0
+ */
+public class SongTableModel extends AbstractTableModel implements SongChangeListener {
+    
+    private static final long serialVersionUID = 1L;
+    
+    /** Column indexes */
+    public static final int TITLE_COLUMN = 0;
+    public static final int ARTIST_COLUMN = 1;
+    public static final int PLATFORM_COLUMN = 2;
+    public static final int RELEASE_DATE_COLUMN = 3;
+    public static final int DATE_ADDED_COLUMN = 4;
+    public static final int QUEUE_COLUMN = 5;
+    public static final int PRIORITY_QUEUE_COLUMN = 6;
+    public static final int DELETE_COLUMN = 7;
+    
+    private static final String[] COLUMN_NAMES = {
+        "Title", "Artist", "Platform", "Release Date", "Date Added", "", "", ""
+    };
+    
+    /** The list shown when there are no search results */
+    private final MusicList musicList;
+    
+    /** Songs being shown, a list snapshot or search results */
+    private List<Song> rows;
+    
+    /** True while search results are shown */
+    private boolean showingResults;
+    
+    /**
+     * Creates a model showing the whole list and keeping up with its changes.
+     * 
+     * @param musicList the list to show
+     */
+    public SongTableModel(MusicList musicList) {
+        this.musicList = musicList;
+        this.rows = musicList.getSnapshot().getSongs();
+        musicList.addChangeListener(this);
+    }
+    
+    /**
+     * Shows the whole list.
+     */
+    public void showAll() {
+        showAll(musicList.getSnapshot());
+    }
+    
+    /**
+     * Shows the whole list as of a snapshot taken by the thread that changed it.
+     * 
+     * @param snapshot the snapshot to show
+     */
+    public void showAll(MusicList.Snapshot snapshot) {
+        rows = snapshot.getSongs();
+        showingResults = false;
+        fireTableDataChanged();
+    }
+    
+    /**
+     * Shows the given songs instead of the whole list.
+     * 
+     * @param results the songs to show; the list must not change while shown
+     */
+    public void showResults(List<Song> results) {
+        rows = results;
+        showingResults = true;
+        fireTableDataChanged();
+    }
+    
+    /**
+     * Checks if search results are being shown.
+     * 
+     * @return true if showing search results, false if showing the whole list
+     */
+    public boolean isShowingResults() {
+        return showingResults;
+    }
+    
+    /**
+     * Gets the song shown in a row.
+     * 
+     * @param row the model row
+     * @return the song
+     */
+    public Song getSongAt(int row) {
+        return rows.get(row);
+    }
+    
+    @Override
+    public int getRowCount() {
+        return rows.size();
+    }
+    
+    @Override
+    public int getColumnCount() {
+        return COLUMN_NAMES.length;
+    }
+    
+    @Override
+    public String getColumnName(int column) {
+        return COLUMN_NAMES[column];
+    }
+    
+    @Override
+    public Object getValueAt(int row, int column) {
+        switch (column) {
+            case QUEUE_COLUMN:
+                return "Queue";
+            case PRIORITY_QUEUE_COLUMN:
+                return "Priority Queue";
+            case DELETE_COLUMN:
+                return "Delete";
+            default:
+                break;
+        }
+        Song song = getSongAt(row);
+        switch (column) {
+            case TITLE_COLUMN:
+                return song.getTitle();
+            case ARTIST_COLUMN:
+                return song.getArtist();
+            case PLATFORM_COLUMN:
+                return song.getPlatform();
+            case RELEASE_DATE_COLUMN:
+                return song.getReleaseDate();
+            default:
+                return song.getDateAdded();
+        }
+    }
+    
+    @Override
+    public boolean isCellEditable(int row, int column) {
+        // Only the buttons, so they can be clicked
+        return column >= QUEUE_COLUMN;
+    }
+    
+    /**
+     * Passes a change of the list on to the table.
+     * Changes made off the event dispatch thread refresh the whole table later;
+     * the thread making them should also pass its own snapshot to showAll.
+     * 
+     * @param event the change
+     */
+    @Override
+    public void songsChanged(SongChangeEvent event) {
+        if (!SwingUtilities.isEventDispatchThread()) {
+            SwingUtilities.invokeLater(() -> {
+                if (!showingResults) {
+                    showAll();
+                }
+            });
+            return;
+        }
+        if (showingResults) {
+            return; // The results stay as they were searched
+        }
+        rows = musicList.getSnapshot().getSongs();
+        if (event.getType() == SongChangeEvent.Type.REPLACED) {
+            fireTableDataChanged();
+        } else if (event.size() == 0) {
+            return;
+        } else if (event.getType() == SongChangeEvent.Type.ADDED) {
+            fireTableRowsInserted(event.getFromIndex(), event.getToIndex() - 1);
+        } else {
+            fireTableRowsDeleted(event.getFromIndex(), event.getToIndex() - 1);
+        }
+    }
+}
@@ -1,5 +1,6 @@
 module DataStructuresFinalProject {
 	requires org.junit.jupiter.api;
 	requires java.desktop;
+	requires jdk.httpserver;
 	
 }
\ No newline at end of file
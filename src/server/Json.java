@@ -0,0 +1,264 @@
+package server;
+
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+
+import data.Song;
+
+/**
+ * The little JSON the server needs: reading flat request objects and
+ * writing songs. Values of a request object may be strings, numbers,
+ * booleans or null; nested objects and arrays are rejected.
+ *
+ * Song ids are written as hex strings, the same as in the save files,
+ * because 64-bit ids do not fit in a JavaScript number.
+ *
+ * @author Josiah Loomis
+ * @version 1.0
+ */
+final class Json {
+	
+	private final String text;
+	private int position;
+	
+	private Json(String text) {
+		this.text = text;
+	}
+	
+	/**
+	 * Parses a flat JSON object.
+	 *
+	 * @param text the request body
+	 * @return the members in order; numbers are Long or Double
+	 * @throws IllegalArgumentException if the text is not a flat JSON object
+	 */
+	static Map<String, Object> parseObject(String text) {
+		Json json = new Json(text);
+		Map<String, Object> members = new LinkedHashMap<>();
+		json.expect('{');
+		if (!json.consume('}')) {
+			do {
+				String name = json.readString();
+				json.expect(':');
+				members.put(name, json.readValue());
+			} while (json.consume(','));
+			json.expect('}');
+		}
+		json.skipWhitespace();
+		if (json.position != text.length()) {
+			throw json.error("unexpected text after the object");
+		}
+		return members;
+	}
+	
+	/**
+	 * Writes a song as a JSON object.
+	 *
+	 * @param out the builder to append to
+	 * @param song the song
+	 * @return out
+	 */
+	static StringBuilder song(StringBuilder out, Song song) {
+		out.append("{\"id\":");
+		string(out, Long.toHexString(song.getId()));
+		out.append(",\"title\":");
+		string(out, song.getTitle());
+		out.append(",\"artist\":");
+		string(out, song.getArtist());
+		out.append(",\"platform\":");
+		string(out, song.getPlatform());
+		out.append(",\"link\":");
+		string(out, song.getSongLink());
+		out.append(",\"releaseDate\":");
+		string(out, song.getReleaseDate() == null ? null : song.getReleaseDate().toString());
+		out.append(",\"dateAdded\":");
+		string(out, song.getDateAdded() == null ? null : song.getDateAdded().toString());
+		if (song.getQueuePriority() != Song.NO_PRIORITY) {
+			out.append(",\"priority\":").append(song.getQueuePriority());
+		}
+		return out.append('}');
+	}
+	
+	/**
+	 * Writes songs as a JSON array.
+	 *
+	 * @param out the builder to append to
+	 * @param songs the songs
+	 * @return out
+	 */
+	static StringBuilder songs(StringBuilder out, List<Song> songs) {
+		out.append('[');
+		for (int i = 0; i < songs.size(); i++) {
+			if (i > 0) {
+				out.append(',');
+			}
+			song(out, songs.get(i));
+		}
+		return out.append(']');
+	}
+	
+	/**
+	 * Writes a string, or null, with JSON escapes.
+	 *
+	 * @param out the builder to append to
+	 * @param value the string
+	 * @return out
+	 */
+	static StringBuilder string(StringBuilder out, String value) {
+		if (value == null) {
+			return out.append("null");
+		}
+		out.append('"');
+		for (int i = 0; i < value.length(); i++) {
+			char c = value.charAt(i);
+			switch (c) {
+				case '"':
+					out.append("\\\"");
+					break;
+				case '\\':
+					out.append("\\\\");
+					break;
+				case '\n':
+					out.append("\\n");
+					break;
+				case '\r':
+					out.append("\\r");
+					break;
+				case '\t':
+					out.append("\\t");
+					break;
+				default:
+					if (c < 0x20) {
+						out.append(String.format("\\u%04x", (int) c));
+					} else {
+						out.append(c);
+					}
+			}
+		}
+		return out.append('"');
+	}
+	
+	private Object readValue() {
+		skipWhitespace();
+		if (position >= text.length()) {
+			throw error("expected a value");
+		}
+		char c = text.charAt(position);
+		if (c == '"') {
+			return readString();
+		}
+		if (c == '-' || (c >= '0' && c <= '9')) {
+			return readNumber();
+		}
+		if (text.startsWith("true", position)) {
+			position += 4;
+			return Boolean.TRUE;
+		}
+		if (text.startsWith("false", position)) {
+			position += 5;
+			return Boolean.FALSE;
+		}
+		if (text.startsWith("null", position)) {
+			position += 4;
+			return null;
+		}
+		throw error("expected a string, number, boolean or null");
+	}
+	
+	private String readString() {
+		expect('"');
+		StringBuilder value = new StringBuilder();
+		while (position < text.length()) {
+			char c = text.charAt(position++);
+			if (c == '"') {
+				return value.toString();
+			}
+			if (c != '\\') {
+				value.append(c);
+				continue;
+			}
+			if (position >= text.length()) {
+				break;
+			}
+			char escape = text.charAt(position++);
+			switch (escape) {
+				case '"':
+				case '\\':
+				case '/':
+					value.append(escape);
+					break;
+				case 'b':
+					value.append('\b');
+					break;
+				case 'f':
+					value.append('\f');
+					break;
+				case 'n':
+					value.append('\n');
+					break;
+				case 'r':
+					value.append('\r');
+					break;
+				case 't':
+					value.append('\t');
+					break;
+				case 'u':
+					if (position + 4 > text.length()) {
+						throw error("short unicode escape");
+					}
+					try {
+						value.append((char) Integer.parseInt(text.substring(position, position + 4), 16));
+					} catch (NumberFormatException e) {
+						throw error("bad unicode escape");
+					}
+					position += 4;
+					break;
+				default:
+					throw error("bad escape \\" + escape);
+			}
+		}
+		throw error("unterminated string");
+	}
+	
+	private Object readNumber() {
+		int start = position;
+		while (position < text.length() && "+-0123456789.eE".indexOf(text.charAt(position)) >= 0) {
+			position++;
+		}
+		String number = text.substring(start, position);
+		try {
+			if (number.indexOf('.') < 0 && number.indexOf('e') < 0 && number.indexOf('E') < 0) {
+				return Long.parseLong(number);
+			}
+			return Double.parseDouble(number);
+		} catch (NumberFormatException e) {
+			throw error("bad number " + number);
+		}
+	}
+	
+	private void skipWhitespace() {
+		while (position < text.length() && Character.isWhitespace(text.charAt(position))) {
+			position++;
+		}
+	}
+	
+	private boolean consume(char c) {
+		skipWhitespace();
+		if (position < text.length() && text.charAt(position) == c) {
+			position++;
+			return true;
+		}
+		return false;
+	}
+	
+	private void expect(char c) {
+		if (!consume(c)) {
+			throw error("expected '" + c + "'");
+		}
+	}
+	
+	private IllegalArgumentException error(String message) {
+		return new IllegalArgumentException("Bad JSON at " + position + ": " + message);
+	}
+}
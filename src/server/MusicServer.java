@@ -0,0 +1,391 @@
+package server;
+
+import java.io.IOException;
+import java.io.OutputStream;
+import java.lang.reflect.InvocationTargetException;
+import java.net.InetAddress;
+import java.net.InetSocketAddress;
+import java.net.URLDecoder;
+import java.nio.charset.StandardCharsets;
+import java.time.DateTimeException;
+import java.time.LocalDate;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.Iterator;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.Executor;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.locks.ReentrantLock;
+
+import com.sun.net.httpserver.HttpExchange;
+import com.sun.net.httpserver.HttpServer;
+
+import data.MusicList;
+import data.MusicQueue;
+import data.Song;
+
+/**
+ * Serves a MusicList and MusicQueue as JSON over HTTP on the loopback address,
+ * so scripts and other local processes can drive them without the GUI.
+ *
+ * Endpoints:
+ * GET    /songs?q=text|sort=title|added|released&amp;offset=0&amp;limit=100  search, sort or list songs
+ * POST   /songs {"title","artist","platform","link","releaseDate"}  add a song
+ * DELETE /songs/{id}  remove a song
+ * GET    /queue?offset=0&amp;limit=100  list the queue in play order
+ * POST   /queue {"id", "priority": level or true/false}  queue a listed song
+ * POST   /queue/dequeue  take the next song, 204 when the queue is empty
+ *
+ * Every request runs on its own virtual thread when the JDK has them (21+),
+ * otherwise on a cached thread pool. The list must be in concurrent mode;
+ * the queue is guarded by a lock that checkpoints should capture under too
+ * (see captureExecutor).
+ *
+ * @author Josiah Loomis
+ * @version 1.0
+ */
+public final class MusicServer {
+	
+	/** Port used when none is given */
+	public static final int DEFAULT_PORT = 8642;
+	
+	/** Songs returned per page when the request does not say */
+	public static final int DEFAULT_LIMIT = 100;
+	
+	/** Most songs returned by one request */
+	public static final int MAX_LIMIT = 10_000;
+	
+	private final MusicList musicList;
+	private final MusicQueue musicQueue;
+	private final ReentrantLock queueLock = new ReentrantLock();
+	private HttpServer server;
+	private ExecutorService executor;
+	
+	/**
+	 * Creates a server. Nothing is served until start is called.
+	 *
+	 * @param musicList the list to serve, created in concurrent mode
+	 * @param musicQueue the queue to serve
+	 */
+	public MusicServer(MusicList musicList, MusicQueue musicQueue) {
+		this.musicList = musicList;
+		this.musicQueue = musicQueue;
+	}
+	
+	/**
+	 * Starts serving on the loopback address.
+	 *
+	 * @param port the port, or 0 for any free port
+	 * @throws IOException if the port cannot be bound
+	 */
+	public void start(int port) throws IOException {
+		server = HttpServer.create(new InetSocketAddress(InetAddress.getLoopbackAddress(), port), 1024);
+		executor = newRequestExecutor();
+		server.setExecutor(executor);
+		server.createContext("/", this::handle);
+		server.start();
+	}
+	
+	/**
+	 * Gets the port being served.
+	 *
+	 * @return the bound port
+	 */
+	public int getPort() {
+		return server.getAddress().getPort();
+	}
+	
+	/**
+	 * Stops serving. Requests already running are given a second to finish.
+	 */
+	public void stop() {
+		if (server != null) {
+			server.stop(1);
+			executor.shutdown();
+		}
+	}
+	
+	/**
+	 * Gets an executor that runs tasks while holding the queue lock, for
+	 * capturing checkpoints of the queue while requests change it.
+	 *
+	 * @return the capture executor
+	 */
+	public Executor captureExecutor() {
+		return task -> {
+			queueLock.lock();
+			try {
+				task.run();
+			} finally {
+				queueLock.unlock();
+			}
+		};
+	}
+	
+	/**
+	 * Creates a virtual-thread-per-task executor through reflection, so the
+	 * project still builds for Java 17, falling back to a cached thread pool.
+	 */
+	static ExecutorService newRequestExecutor() {
+		try {
+			return (ExecutorService) Executors.class.getMethod("newVirtualThreadPerTaskExecutor").invoke(null);
+		} catch (NoSuchMethodException | IllegalAccessException | InvocationTargetException e) {
+			return Executors.newCachedThreadPool(task -> {
+				Thread thread = new Thread(task, "music-server");
+				thread.setDaemon(true);
+				return thread;
+			});
+		}
+	}
+	
+	private void handle(HttpExchange exchange) throws IOException {
+		try {
+			String path = exchange.getRequestURI().getPath();
+			String method = exchange.getRequestMethod();
+			Map<String, String> query = parseQuery(exchange.getRequestURI().getRawQuery());
+			try {
+				if (path.equals("/songs")) {
+					if (method.equals("GET")) {
+						getSongs(exchange, query);
+					} else if (method.equals("POST")) {
+						addSong(exchange);
+					} else {
+						sendError(exchange, 405, "use GET or POST");
+					}
+				} else if (path.startsWith("/songs/")) {
+					if (method.equals("DELETE")) {
+						removeSong(exchange, path.substring("/songs/".length()));
+					} else {
+						sendError(exchange, 405, "use DELETE");
+					}
+				} else if (path.equals("/queue")) {
+					if (method.equals("GET")) {
+						getQueue(exchange, query);
+					} else if (method.equals("POST")) {
+						enqueue(exchange);
+					} else {
+						sendError(exchange, 405, "use GET or POST");
+					}
+				} else if (path.equals("/queue/dequeue")) {
+					if (method.equals("POST")) {
+						dequeue(exchange);
+					} else {
+						sendError(exchange, 405, "use POST");
+					}
+				} else {
+					sendError(exchange, 404, "no such endpoint");
+				}
+			} catch (IllegalArgumentException e) {
+				sendError(exchange, 400, e.getMessage());
+			}
+		} finally {
+			exchange.close();
+		}
+	}
+	
+	private void getSongs(HttpExchange exchange, Map<String, String> query) throws IOException {
+		String search = query.get("q");
+		String sort = query.get("sort");
+		List<Song> songs;
+		if (search != null && sort != null) {
+			throw new IllegalArgumentException("use either q or sort");
+		} else if (search != null) {
+			songs = musicList.searchSongs(search);
+		} else if (sort == null) {
+			songs = musicList.getSnapshot().getSongs();
+		} else if (sort.equals("title")) {
+			songs = musicList.getSongsAlphabetically();
+		} else if (sort.equals("added") || sort.equals("released")) {
+			// Read only the page from the date index instead of sorting the list
+			int offset = intParameter(query, "offset", 0);
+			int limit = Math.min(intParameter(query, "limit", DEFAULT_LIMIT), MAX_LIMIT);
+			int total = musicList.size();
+			List<Song> page = sort.equals("added")
+					? musicList.getSongsByDateAdded(offset, limit)
+					: musicList.getSongsByDateCreated(offset, limit);
+			sendPage(exchange, total, page);
+			return;
+		} else {
+			throw new IllegalArgumentException("sort must be title, added or released");
+		}
+		sendPage(exchange, query, songs);
+	}
+	
+	private void addSong(HttpExchange exchange) throws IOException {
+		Map<String, Object> body = readBody(exchange);
+		String title = requiredString(body, "title");
+		String artist = requiredString(body, "artist");
+		String platform = requiredString(body, "platform");
+		String link = requiredString(body, "link");
+		LocalDate releaseDate;
+		try {
+			releaseDate = LocalDate.parse(requiredString(body, "releaseDate"));
+		} catch (DateTimeException e) {
+			throw new IllegalArgumentException("releaseDate must be yyyy-MM-dd");
+		}
+		Song song = new Song(title, artist, platform, link, releaseDate, LocalDate.now());
+		musicList.addSong(song);
+		send(exchange, 201, Json.song(new StringBuilder(), song));
+	}
+	
+	private void removeSong(HttpExchange exchange, String id) throws IOException {
+		Song song = musicList.getSongById(parseId(id));
+		if (song == null || !musicList.removeSong(song)) {
+			sendError(exchange, 404, "no song with id " + id);
+			return;
+		}
+		send(exchange, 200, Json.song(new StringBuilder(), song));
+	}
+	
+	private void getQueue(HttpExchange exchange, Map<String, String> query) throws IOException {
+		int offset = intParameter(query, "offset", 0);
+		int limit = Math.min(intParameter(query, "limit", DEFAULT_LIMIT), MAX_LIMIT);
+		ArrayList<Song> page = new ArrayList<>();
+		int total;
+		// Walk only up to the requested page instead of copying the whole queue
+		queueLock.lock();
+		try {
+			total = musicQueue.size();
+			int index = 0;
+			for (Iterator<Song> songs = musicQueue.iterator(); songs.hasNext() && page.size() < limit; index++) {
+				Song song = songs.next();
+				if (index >= offset) {
+					page.add(song);
+				}
+			}
+		} finally {
+			queueLock.unlock();
+		}
+		sendPage(exchange, total, page);
+	}
+	
+	private void enqueue(HttpExchange exchange) throws IOException {
+		Map<String, Object> body = readBody(exchange);
+		String id = requiredString(body, "id");
+		Object priority = body.getOrDefault("priority", Boolean.FALSE);
+		Song song = musicList.getSongById(parseId(id));
+		if (song == null) {
+			sendError(exchange, 404, "no song with id " + id);
+			return;
+		}
+		MusicQueue.Handle handle;
+		int position;
+		queueLock.lock();
+		try {
+			if (priority instanceof Boolean) {
+				handle = musicQueue.enqueue(song, (Boolean) priority);
+			} else if (priority instanceof Long) {
+				long level = (Long) priority;
+				if (level < 0 || level > MusicQueue.MAX_PRIORITY) {
+					throw new IllegalArgumentException("priority must be from 0 to " + MusicQueue.MAX_PRIORITY);
+				}
+				handle = musicQueue.enqueue(song, (int) level);
+			} else {
+				throw new IllegalArgumentException("priority must be a level or true/false");
+			}
+			position = musicQueue.positionOf(handle);
+		} finally {
+			queueLock.unlock();
+		}
+		StringBuilder out = new StringBuilder("{\"song\":");
+		Json.song(out, handle.getSong()).append(",\"position\":").append(position).append('}');
+		send(exchange, 201, out);
+	}
+	
+	private void dequeue(HttpExchange exchange) throws IOException {
+		Song song;
+		queueLock.lock();
+		try {
+			song = musicQueue.dequeue();
+		} finally {
+			queueLock.unlock();
+		}
+		if (song == null) {
+			exchange.sendResponseHeaders(204, -1);
+			return;
+		}
+		send(exchange, 200, Json.song(new StringBuilder(), song));
+	}
+	
+	private static void sendPage(HttpExchange exchange, Map<String, String> query, List<Song> songs)
+			throws IOException {
+		int offset = intParameter(query, "offset", 0);
+		int limit = Math.min(intParameter(query, "limit", DEFAULT_LIMIT), MAX_LIMIT);
+		int from = Math.min(offset, songs.size());
+		int to = (int) Math.min((long) from + limit, songs.size());
+		sendPage(exchange, songs.size(), songs.subList(from, to));
+	}
+	
+	private static void sendPage(HttpExchange exchange, int total, List<Song> page) throws IOException {
+		StringBuilder out = new StringBuilder("{\"total\":").append(total).append(",\"songs\":");
+		Json.songs(out, page).append('}');
+		send(exchange, 200, out);
+	}
+	
+	private static void sendError(HttpExchange exchange, int status, String message) throws IOException {
+		StringBuilder out = new StringBuilder("{\"error\":");
+		Json.string(out, message).append('}');
+		send(exchange, status, out);
+	}
+	
+	private static void send(HttpExchange exchange, int status, CharSequence json) throws IOException {
+		byte[] bytes = json.toString().getBytes(StandardCharsets.UTF_8);
+		exchange.getResponseHeaders().set("Content-Type", "application/json; charset=utf-8");
+		exchange.sendResponseHeaders(status, bytes.length);
+		try (OutputStream out = exchange.getResponseBody()) {
+			out.write(bytes);
+		}
+	}
+	
+	private static Map<String, Object> readBody(HttpExchange exchange) throws IOException {
+		return Json.parseObject(new String(exchange.getRequestBody().readAllBytes(), StandardCharsets.UTF_8));
+	}
+	
+	private static String requiredString(Map<String, Object> body, String name) {
+		Object value = body.get(name);
+		if (!(value instanceof String) || ((String) value).trim().isEmpty()) {
+			throw new IllegalArgumentException(name + " is required");
+		}
+		return ((String) value).trim();
+	}
+	
+	private static long parseId(String id) {
+		try {
+			return Long.parseUnsignedLong(id, 16);
+		} catch (NumberFormatException e) {
+			throw new IllegalArgumentException("bad song id " + id);
+		}
+	}
+	
+	private static int intParameter(Map<String, String> query, String name, int defaultValue) {
+		String value = query.get(name);
+		if (value == null) {
+			return defaultValue;
+		}
+		try {
+			int number = Integer.parseInt(value);
+			if (number >= 0) {
+				return number;
+			}
+		} catch (NumberFormatException e) {
+			// Reported below
+		}
+		throw new IllegalArgumentException(name + " must be a non-negative number");
+	}
+	
+	private static Map<String, String> parseQuery(String rawQuery) {
+		Map<String, String> query = new HashMap<>();
+		if (rawQuery == null) {
+			return query;
+		}
+		for (String pair : rawQuery.split("&")) {
+			int equals = pair.indexOf('=');
+			String name = equals < 0 ? pair : pair.substring(0, equals);
+			String value = equals < 0 ? "" : pair.substring(equals + 1);
+			query.put(URLDecoder.decode(name, StandardCharsets.UTF_8), URLDecoder.decode(value, StandardCharsets.UTF_8));
+		}
+		return query;
+	}
+}
@@ -3,10 +3,39 @@ package test;
 import static org.junit.jupiter.api.Assertions.*;
 import org.junit.jupiter.api.BeforeEach;
 import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
 
+import java.io.File;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.net.HttpURLConnection;
+import java.net.URL;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
 import java.time.LocalDate;
 import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.List;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.locks.LockSupport;
 import data.*;
+import gui.BackgroundTasks;
+import gui.QueueListModel;
+import gui.SongTableModel;
+import javax.swing.JProgressBar;
+import javax.swing.SwingUtilities;
+import javax.swing.event.ListDataEvent;
+import javax.swing.event.ListDataListener;
+import javax.swing.event.TableModelEvent;
+import server.MusicServer;
 
 public class MusicManagerTest {
 
@@ -106,6 +135,68 @@ public class MusicManagerTest {
         assertEquals(0, song1.compareTo(song3));
     }
 
+    @Test
+    public void testSongNormalizedKeys() {
+        Song song = new Song("  Café   del MAR ", "Beyoncé", "YouTube", "link", date1, date2);
+        assertEquals("cafe del mar", song.getNormalizedTitle());
+        assertEquals("beyonce", song.getNormalizedArtist());
+        assertEquals("youtube", song.getNormalizedPlatform());
+        
+        // Cached until a setter changes the field
+        assertSame(song.getNormalizedTitle(), song.getNormalizedTitle());
+        song.setTitle("Señorita");
+        song.setArtist("Shawn\tMendes");
+        song.setPlatform("Spotify");
+        assertEquals("senorita", song.getNormalizedTitle());
+        assertEquals("shawn mendes", song.getNormalizedArtist());
+        assertEquals("spotify", song.getNormalizedPlatform());
+        
+        // Already normalized text is not copied
+        String plain = "already plain";
+        assertSame(plain, TextNormalizer.normalize(plain));
+    }
+    
+    @Test
+    public void testMusicListSearchIgnoresAccentsAndSpacing() {
+        MusicList list = new MusicList();
+        list.addSong(new Song("Café del Mar", "Energy 52", "YouTube", "link", date1, date2));
+        list.addSong(song1);
+        
+        assertEquals(1, list.searchSongs("cafe").size());
+        assertEquals(1, list.searchSongs("CAFÉ  DEL").size());
+        // "é" is folded to "e", which Queen also contains
+        assertEquals(2, list.searchSongs("é").size());
+        assertEquals(0, list.searchSongs("cafe del mar queen").size());
+    }
+
+    @Test
+    public void testSongIdsAreStableAndDefineEquality() {
+        assertNotEquals(song1.getId(), song2.getId());
+        assertNotEquals(song1, song2);
+        
+        Song copy = song1.clone();
+        assertEquals(song1.getId(), copy.getId());
+        assertEquals(song1, copy);
+        assertEquals(song1.hashCode(), copy.hashCode());
+        
+        Song loaded = new Song(song1.getAsSaveString());
+        assertEquals(song1.getId(), loaded.getId());
+        assertEquals("Bohemian Rhapsody", loaded.getTitle());
+        
+        song1.setPriorityQueued(true);
+        song1.setQueueSequence(7);
+        Song queued = new Song(song1.getAsSaveStringForPriorityQueue());
+        assertEquals(song1.getId(), queued.getId());
+        assertTrue(queued.getPriorityQueued());
+        assertEquals(7, queued.getQueueSequence());
+        
+        // Lines saved before ids existed still load, with a fresh id
+        Song old = new Song("Need 2|Pinegrove|YouTube|link|2017-04-18|2023-11-07|false");
+        assertEquals("Need 2", old.getTitle());
+        assertFalse(old.getPriorityQueued());
+        assertNotEquals(0, old.getId());
+    }
+
     // ==================== MUSIC LIST TESTS ====================
 
     @Test
@@ -168,6 +259,36 @@ public class MusicManagerTest {
         }
     }
 
+    @Test
+    public void testTitleSortersMatchCompareToIgnoreCase() {
+        ArrayList<Song> songs = new ArrayList<>();
+        String[] titles = {"beta", "Alpha", "alpha", "ALPHA2", "Zeta", "éclair", "Éclair",
+                "apple", "Apple Pie", "", "b", "Ab", "aB", "straße", "STRASSE", "123", "_x"};
+        for (int i = 0; i < 40; i++) {
+            for (String title : titles) {
+                songs.add(new Song(title + (i % 3 == 0 ? "" : " " + i), "Artist", "Spotify",
+                        "link", date1, date2));
+            }
+        }
+
+        SongSorter[] sorters = {new TitleKeySort(), new TitleRadixSort()};
+        for (SongSorter sorter : sorters) {
+            ArrayList<Song> sorted = new ArrayList<>(songs);
+            sorter.sort(sorted);
+
+            assertEquals(songs.size(), sorted.size());
+            for (int i = 0; i < sorted.size() - 1; i++) {
+                String t1 = sorted.get(i).getTitle();
+                String t2 = sorted.get(i + 1).getTitle();
+                assertTrue(t1.compareToIgnoreCase(t2) <= 0, t1 + " should sort before " + t2);
+                if (t1.compareToIgnoreCase(t2) == 0) {
+                    // Stable: equal titles keep their original order
+                    assertTrue(songs.indexOf(sorted.get(i)) < songs.indexOf(sorted.get(i + 1)));
+                }
+            }
+        }
+    }
+
     @Test
     public void testMusicListEmptySortsReturnEmpty() {
         MusicList list = new MusicList();
@@ -192,6 +313,548 @@ public class MusicManagerTest {
 	    assertEquals(2, results.size());
 	}
 	
+	@Test
+	public void testMusicListPositionalEdits() {
+	    MusicList list = new MusicList();
+	    list.addSong(song1);
+	    list.addSong(song2);
+	    list.addFirst(song3);
+	    list.addAt(1, song4);
+	    
+	    assertEquals(song3, list.getSong(0));
+	    assertEquals(song4, list.getSong(1));
+	    assertEquals(song1, list.getSong(2));
+	    assertEquals(song2, list.getSong(3));
+	    
+	    assertEquals(song4, list.removeAt(1));
+	    assertEquals(song1, list.getSong(1));
+	    assertEquals(3, list.size());
+	    assertThrows(IndexOutOfBoundsException.class, () -> list.getSong(3));
+	}
+	
+	@Test
+	public void testGapBufferMatchesArrayList() {
+	    GapBuffer<Integer> buffer = new GapBuffer<>(2);
+	    ArrayList<Integer> expected = new ArrayList<>();
+	    java.util.Random random = new java.util.Random(1);
+	    
+	    for (int i = 0; i < 5000; i++) {
+	        int op = random.nextInt(10);
+	        if (op < 5 || expected.isEmpty()) {
+	            int index = random.nextInt(expected.size() + 1);
+	            buffer.add(index, i);
+	            expected.add(index, i);
+	        } else if (op < 8) {
+	            int index = random.nextInt(expected.size());
+	            assertEquals(expected.remove(index), buffer.remove(index));
+	        } else {
+	            int index = random.nextInt(expected.size());
+	            assertEquals(expected.set(index, -i), buffer.set(index, -i));
+	        }
+	    }
+	    
+	    assertEquals(expected, buffer);
+	    assertEquals(expected, new ArrayList<>(buffer));
+	    assertEquals(expected.indexOf(-4999), buffer.indexOf(-4999));
+	}
+	
+	@Test
+	public void testMusicListSearchMatchesFullScan() {
+	    MusicList list = new MusicList();
+	    java.util.Random random = new java.util.Random(3);
+	    String[] words = {"Love", "night", "HEART", "Fire", "dream", "youtube", "Spot"};
+	    String[] platforms = {"YouTube", "Spotify", "Apple Music"};
+	    ArrayList<Song> created = new ArrayList<>();
+	    
+	    for (int i = 0; i < 3000; i++) {
+	        int op = random.nextInt(10);
+	        if (op < 5 || list.isEmpty()) {
+	            Song song = new Song(words[random.nextInt(words.length)] + " " + words[random.nextInt(words.length)],
+	                    "Artist " + random.nextInt(50), platforms[random.nextInt(platforms.length)],
+	                    "link", date1, date2);
+	            created.add(song);
+	            list.addAt(random.nextInt(list.size() + 1), song);
+	        } else if (op < 7) {
+	            // Re-add an existing song so it is listed twice
+	            list.addSong(created.get(random.nextInt(created.size())));
+	        } else if (op < 9) {
+	            list.removeAt(random.nextInt(list.size()));
+	        } else {
+	            ArrayList<Song> shuffled = list.getSongs();
+	            java.util.Collections.shuffle(shuffled, random);
+	            list.updateList(shuffled);
+	        }
+	        
+	        if (i % 100 == 0) {
+	            for (String query : new String[] {"love", "ART", "tify", "artist 1", "e n", "ube", "zzz"}) {
+	                assertEquals(fullScanSearch(list, query), list.searchSongs(query), query);
+	            }
+	        }
+	    }
+	}
+	
+	private static ArrayList<Song> fullScanSearch(MusicList list, String query) {
+	    ArrayList<Song> results = new ArrayList<>();
+	    String normalizedQuery = TextNormalizer.normalize(query);
+	    for (Song song : list.getSongs()) {
+	        if (TextNormalizer.normalize(song.getTitle()).contains(normalizedQuery) ||
+	            TextNormalizer.normalize(song.getArtist()).contains(normalizedQuery) ||
+	            TextNormalizer.normalize(song.getPlatform()).contains(normalizedQuery)) {
+	            results.add(song);
+	        }
+	    }
+	    return results;
+	}
+	
+	@Test
+	public void testMusicListPrefixSearch() {
+	    MusicList list = new MusicList();
+	    list.addSong(song1);
+	    list.addSong(song2);
+	    list.addSong(song3);
+	    list.addSong(song4);
+	    list.addSong(new Song("Heaven Knows", "Queen", "Spotify", "link", date1, date2));
+	    
+	    // "queen" is in two songs, "heaven" is in two songs, "hotel" in one
+	    assertEquals(java.util.List.of("queen"), list.getCompletions("Qu", 10));
+	    assertEquals(java.util.List.of("heaven", "hotel"), list.getCompletions("h", 10));
+	    assertEquals(java.util.List.of("heaven"), list.getCompletions("h", 1));
+	    assertTrue(list.getCompletions("zz", 10).isEmpty());
+	    
+	    ArrayList<Song> matches = list.searchByPrefix("hot", 10);
+	    assertEquals(1, matches.size());
+	    assertEquals(song3, matches.get(0));
+	    
+	    list.removeSong(song3);
+	    assertEquals(java.util.List.of("heaven"), list.getCompletions("h", 10));
+	    assertTrue(list.searchByPrefix("hot", 10).isEmpty());
+	}
+	
+	@Test
+	public void testMusicListCompletionsMatchBruteForce() {
+	    MusicList list = new MusicList();
+	    java.util.Random random = new java.util.Random(5);
+	    String[] words = {"a", "ab", "abc", "abd", "b", "ba", "bab", "abcd", "c", "ca"};
+	    
+	    for (int i = 0; i < 2000; i++) {
+	        if (random.nextInt(3) > 0 || list.isEmpty()) {
+	            list.addSong(new Song(words[random.nextInt(words.length)] + " " + words[random.nextInt(words.length)],
+	                    words[random.nextInt(words.length)], "Spotify", "link", date1, date2));
+	        } else {
+	            list.removeAt(random.nextInt(list.size()));
+	        }
+	        
+	        if (i % 50 == 0) {
+	            for (String prefix : new String[] {"", "a", "ab", "abc", "b", "c"}) {
+	                java.util.Map<String, Integer> counts = new java.util.TreeMap<>();
+	                for (Song song : list.getSongs()) {
+	                    java.util.Set<String> songWords = new java.util.HashSet<>();
+	                    songWords.addAll(java.util.Arrays.asList(song.getTitle().split(" ")));
+	                    songWords.add(song.getArtist());
+	                    for (String word : songWords) {
+	                        if (word.startsWith(prefix)) {
+	                            counts.merge(word, 1, Integer::sum);
+	                        }
+	                    }
+	                }
+	                ArrayList<String> expected = new ArrayList<>(counts.keySet());
+	                expected.sort((x, y) -> counts.get(x).equals(counts.get(y))
+	                        ? x.compareTo(y) : counts.get(y) - counts.get(x));
+	                assertEquals(expected.subList(0, Math.min(3, expected.size())),
+	                        list.getCompletions(prefix, 3), prefix);
+	            }
+	        }
+	    }
+	}
+	
+	@Test
+	public void testMusicListIdIndex() {
+	    MusicList list = new MusicList();
+	    list.addSong(song1);
+	    list.addSong(song2);
+	    list.addSong(song1);
+	    
+	    assertSame(song1, list.getSongById(song1.getId()));
+	    assertNull(list.getSongById(song3.getId()));
+	    assertTrue(list.contains(song1.clone()));
+	    assertFalse(list.removeSong(song3));
+	    
+	    // Listed twice: still contained after removing one of them
+	    assertTrue(list.removeSong(song1));
+	    assertTrue(list.contains(song1));
+	    assertTrue(list.removeSong(song1.clone()));
+	    assertFalse(list.contains(song1));
+	    assertEquals(1, list.size());
+	    
+	    ArrayList<Song> replacement = new ArrayList<>();
+	    replacement.add(song3);
+	    list.updateList(replacement);
+	    assertFalse(list.contains(song2));
+	    assertSame(song3, list.getSongById(song3.getId()));
+	    
+	    list.clear();
+	    assertFalse(list.contains(song3));
+	}
+	
+	@Test
+	public void testSongFileCorruptStringRefs(@TempDir Path dir) throws IOException {
+	    Path path = dir.resolve("songs.bin");
+	    SongFile.write(path, List.of(song1, song2));
+	    byte[] valid = Files.readAllBytes(path);
+	    
+	    // The second song's title refers past the string table
+	    byte[] badRef = valid.clone();
+	    java.nio.ByteBuffer.wrap(badRef).putInt(24 + 32 + 8, 1_000_000);
+	    Files.write(path, badRef);
+	    try (SongFile file = SongFile.open(path)) {
+	        assertEquals(song1, file.get(0));
+	        assertThrows(IOException.class, () -> file.get(1));
+	        assertThrows(IOException.class, file::getSongs);
+	    }
+	    
+	    // A string's end offset points past the end of the file
+	    byte[] badOffset = valid.clone();
+	    java.nio.ByteBuffer.wrap(badOffset).putInt(24 + 2 * 32 + 4, Integer.MAX_VALUE);
+	    Files.write(path, badOffset);
+	    try (SongFile file = SongFile.open(path)) {
+	        assertThrows(IOException.class, file::getSongs);
+	    }
+	    
+	    // Loading reports the corrupt file and starts with an empty list
+	    MusicList list = new MusicList();
+	    list.loadFromFile(path.toFile(), dir.resolve("legacy.txt").toFile());
+	    assertEquals(0, list.size());
+	}
+	
+	@Test
+	public void testSongFileRoundTrip(@TempDir Path dir) throws IOException {
+	    Song untitled = new Song(null, null, "Spotify", null, null, date1);
+	    ArrayList<Song> songs = new ArrayList<>(List.of(song1, song2, song3, untitled, song4));
+	    Path path = dir.resolve("songs.bin");
+	    SongFile.write(path, songs);
+	    
+	    try (SongFile file = SongFile.open(path)) {
+	        assertEquals(5, file.size());
+	        assertEquals(song3.getId(), file.getId(2));
+	        ArrayList<Song> loaded = file.getSongs();
+	        assertEquals(songs, loaded);
+	        for (int i = 0; i < songs.size(); i++) {
+	            assertEquals(songs.get(i).getAsSaveString(), loaded.get(i).getAsSaveString());
+	        }
+	        assertSame(loaded.get(0).getPlatform(), loaded.get(4).getPlatform());
+	    }
+	    
+	    Files.write(path, new byte[] {1, 2, 3});
+	    assertThrows(IOException.class, () -> SongFile.open(path));
+	}
+	
+	@Test
+	public void testMusicListMigratesTextSaveFile(@TempDir Path dir) throws IOException {
+	    File binary = dir.resolve("musiclist_data.bin").toFile();
+	    File text = dir.resolve("musiclist_data.txt").toFile();
+	    Files.write(text.toPath(), List.of(song1.getAsSaveString(), song2.getAsSaveString(), song3.getAsSaveString()));
+	    
+	    MusicList migrated = new MusicList();
+	    migrated.loadFromFile(binary, text);
+	    assertTrue(binary.exists());
+	    assertEquals(List.of(song1, song2, song3), migrated.getSongs());
+	    
+	    migrated.removeSong(song2);
+	    migrated.saveToFile(binary);
+	    MusicList reloaded = new MusicList();
+	    reloaded.loadFromFile(binary, text);
+	    assertEquals(List.of(song1, song3), reloaded.getSongs());
+	    assertEquals("Hotel California", reloaded.getSongById(song3.getId()).getTitle());
+	}
+	
+	@Test
+	public void testMusicListBuildsSearchIndexAfterLoad(@TempDir Path dir) {
+	    File binary = dir.resolve("musiclist_data.bin").toFile();
+	    MusicList saved = new MusicList();
+	    saved.addSong(song1);
+	    saved.addSong(song2);
+	    saved.addSong(song3);
+	    saved.saveToFile(binary);
+	    
+	    // Edits before the first search are seen by the index it builds
+	    MusicList loaded = new MusicList();
+	    loaded.loadFromFile(binary, dir.resolve("musiclist_data.txt").toFile());
+	    loaded.removeSong(song2);
+	    loaded.addAt(0, song4);
+	    loaded.sortByDateAdded();
+	    
+	    assertEquals(List.of(song3), loaded.searchSongs("hotel"));
+	    assertTrue(loaded.searchSongs("heaven").isEmpty());
+	    assertEquals(List.of("another"), loaded.getCompletions("an", 10));
+	    assertEquals(List.of(song1), loaded.searchByPrefix("queen", 10));
+	    
+	    // And kept up to date afterwards
+	    loaded.addSong(song2);
+	    assertEquals(List.of(song2), loaded.searchSongs("heaven"));
+	}
+	
+	@Test
+	public void testSongParserMatchesSaveFormat() {
+	    song1.setPriorityQueued(true);
+	    song1.setQueueSequence(42);
+	    SongParser parser = new SongParser();
+	    Song parsed = parser.parse(song1.getAsSaveStringForPriorityQueue());
+	    assertEquals(song1.getId(), parsed.getId());
+	    assertEquals(song1.getAsSaveStringForPriorityQueue(), parsed.getAsSaveStringForPriorityQueue());
+	    
+	    byte[] bytes = ("x|" + song2.getAsSaveString() + "|").getBytes(StandardCharsets.UTF_8);
+	    assertEquals(song2.getAsSaveString(), parser.parse(bytes, 2, bytes.length).getAsSaveString());
+	    
+	    Song legacy = parser.parse("Old|Artist|Spotify|link|2020-02-29|null|false|7");
+	    assertEquals(LocalDate.of(2020, 2, 29), legacy.getReleaseDate());
+	    assertNull(legacy.getDateAdded());
+	    assertFalse(legacy.getPriorityQueued());
+	    assertEquals(7, legacy.getQueueSequence());
+	    assertNotEquals(0, legacy.getId());
+	    
+	    assertNull(parser.parse("   "));
+	    assertNull(parser.parse("Bad|Artist|Spotify|link|2021-02-29|2021-01-01"));
+	    assertNull(parser.parse("Bad|Artist|Spotify|link|2021-01-01|2021/01/01"));
+	    assertNull(parser.parse("Bad|Artist|Spotify|link|2021-01-01|2021-01-01|true|x1"));
+	    assertEquals(7, parser.getLineCount());
+	    assertEquals(3, parser.getMalformedCount());
+	    assertEquals(List.of("line 5: bad release date", "line 6: bad date added", "line 7: bad queue sequence"),
+	            parser.getProblems());
+	    assertThrows(IllegalArgumentException.class, () -> new Song("only|three|fields"));
+	}
+	
+	@Test
+	public void testParallelSongLoaderKeepsFileOrder(@TempDir Path dir) throws IOException {
+	    ArrayList<Song> expected = new ArrayList<>();
+	    StringBuilder text = new StringBuilder();
+	    for (int i = 0; i < 3000; i++) {
+	        Song song = new Song("Song " + i + " \u00e9", "Artist " + (i % 13), "Spotify", "link" + i, date1, date2);
+	        expected.add(song);
+	        text.append(song.getAsSaveString()).append(i % 3 == 0 ? "\r\n" : "\n");
+	        if (i == 1500) {
+	            text.append("not a song\n");
+	        }
+	    }
+	    text.setLength(text.length() - 1); // last line has no newline
+	    Path path = dir.resolve("songs.txt");
+	    Files.write(path, text.toString().getBytes(StandardCharsets.UTF_8));
+	    
+	    ForkJoinPool pool = new ForkJoinPool(4);
+	    try {
+	        SongParser parser = new SongParser();
+	        ArrayList<Song> loaded = ParallelSongLoader.load(path, pool, 1024, parser);
+	        assertEquals(expected, loaded);
+	        assertEquals(3001, parser.getLineCount());
+	        assertEquals(1, parser.getMalformedCount());
+	        assertEquals(List.of("line 1502: expected 6 fields, found 1"), parser.getProblems());
+	        for (int i = 0; i < expected.size(); i++) {
+	            assertEquals(expected.get(i).getAsSaveString(), loaded.get(i).getAsSaveString());
+	        }
+	    } finally {
+	        pool.shutdown();
+	    }
+	}
+	
+	@Test
+	public void testMusicListJournalReplaysOnSnapshot(@TempDir Path dir) throws IOException {
+	    File file = dir.resolve("library.bin").toFile();
+	    File legacy = dir.resolve("library.txt").toFile();
+	    MusicList list = new MusicList();
+	    list.loadFromFile(file, legacy);
+	    list.openJournal(file, MusicListJournal.DEFAULT_COMPACT_BYTES);
+	    list.addSong(song1);
+	    list.addSong(song2);
+	    list.addSong(song3);
+	    list.addAt(1, song4);
+	    list.removeSong(song2);
+	    list.updateList(list.getSongsAlphabetically());
+	    list.closeJournal();
+	    assertFalse(file.exists()); // nothing but the journal was written
+	    
+	    // A torn record at the end is dropped and the log continues from there
+	    Path log = dir.resolve("library.0.log");
+	    Files.write(log, new byte[] {0, 0, 0, 40, 1, 2}, StandardOpenOption.APPEND);
+	    MusicList reloaded = new MusicList();
+	    reloaded.loadFromFile(file, legacy);
+	    reloaded.openJournal(file, MusicListJournal.DEFAULT_COMPACT_BYTES);
+	    assertEquals(List.of(song4, song1, song3), reloaded.getSongs());
+	    assertEquals("Bohemian Rhapsody", reloaded.getSongById(song1.getId()).getTitle());
+	    reloaded.removeAt(0);
+	    reloaded.closeJournal();
+	    
+	    MusicList again = new MusicList();
+	    again.loadFromFile(file, legacy);
+	    again.openJournal(file, MusicListJournal.DEFAULT_COMPACT_BYTES);
+	    assertEquals(List.of(song1, song3), again.getSongs());
+	    again.clear();
+	    again.closeJournal();
+	    
+	    MusicList cleared = new MusicList();
+	    cleared.loadFromFile(file, legacy);
+	    cleared.openJournal(file, MusicListJournal.DEFAULT_COMPACT_BYTES);
+	    assertTrue(cleared.isEmpty());
+	    cleared.closeJournal();
+	}
+	
+	@Test
+	public void testMusicListJournalWritesBatchAsOneRecord(@TempDir Path dir) throws IOException {
+	    File file = dir.resolve("library.bin").toFile();
+	    File legacy = dir.resolve("library.txt").toFile();
+	    MusicList list = new MusicList();
+	    list.loadFromFile(file, legacy);
+	    list.openJournal(file, MusicListJournal.DEFAULT_COMPACT_BYTES);
+	    list.addSong(song1);
+	    list.addAll(List.of(song2, song3, song4));
+	    list.closeJournal();
+	    
+	    MusicList reloaded = new MusicList();
+	    reloaded.loadFromFile(file, legacy);
+	    reloaded.openJournal(file, MusicListJournal.DEFAULT_COMPACT_BYTES);
+	    assertEquals(List.of(song1, song2, song3, song4), reloaded.getSongs());
+	    reloaded.closeJournal();
+	    
+	    // A torn batch is dropped whole, never half applied
+	    Path log = dir.resolve("library.0.log");
+	    try (java.nio.channels.FileChannel channel = java.nio.channels.FileChannel.open(log, StandardOpenOption.WRITE)) {
+	        channel.truncate(channel.size() - 3);
+	    }
+	    MusicList torn = new MusicList();
+	    torn.loadFromFile(file, legacy);
+	    torn.openJournal(file, MusicListJournal.DEFAULT_COMPACT_BYTES);
+	    assertEquals(List.of(song1), torn.getSongs());
+	    torn.closeJournal();
+	}
+	
+	@Test
+	public void testMusicListJournalCompacts(@TempDir Path dir) throws IOException {
+	    File file = dir.resolve("library.bin").toFile();
+	    File legacy = dir.resolve("library.txt").toFile();
+	    MusicList list = new MusicList();
+	    list.loadFromFile(file, legacy);
+	    list.openJournal(file, 4096);
+	    for (int i = 0; i < 500; i++) {
+	        list.addAt(i / 2, new Song("Song " + i, "Artist", "Spotify", "link" + i, date1, date2));
+	        if (i % 10 == 9) {
+	            list.removeAt(0);
+	        }
+	    }
+	    list.closeJournal();
+	    
+	    int generation;
+	    try (SongFile snapshot = SongFile.open(file.toPath())) {
+	        generation = snapshot.getGeneration();
+	    }
+	    assertTrue(generation > 0);
+	    try (var logs = Files.list(dir)) {
+	        assertTrue(logs.map(path -> path.getFileName().toString())
+	                .filter(name -> name.endsWith(".log"))
+	                .allMatch(name -> Integer.parseInt(name.split("\\.")[1]) >= generation));
+	    }
+	    
+	    MusicList reloaded = new MusicList();
+	    reloaded.loadFromFile(file, legacy);
+	    reloaded.openJournal(file, 4096);
+	    assertEquals(list.getSongs(), reloaded.getSongs());
+	    reloaded.closeJournal();
+	}
+	
+	@Test
+	public void testMusicListJournalCompactsBetweenChanges(@TempDir Path dir) throws IOException {
+	    File file = dir.resolve("library.bin").toFile();
+	    File legacy = dir.resolve("library.txt").toFile();
+	    java.util.Random random = new java.util.Random(13);
+	    ArrayList<Song> batch = new ArrayList<>();
+	    for (int i = 0; i < 300; i++) {
+	        batch.add(new Song("Song " + random.nextInt(1000), "Artist", "Spotify", "link" + i,
+	                date1, date2.plusDays(random.nextInt(500))));
+	    }
+	    
+	    // Every change below is larger than the compaction size, so each one compacts
+	    MusicList list = reopenJournaled(file, legacy, null);
+	    list.addAll(batch);
+	    list = reopenJournaled(file, legacy, list);
+	    assertEquals(batch, list.getSongs());
+	    
+	    list.removeAll(song -> song.getSongLink().hashCode() % 2 == 0);
+	    list = reopenJournaled(file, legacy, list);
+	    assertEquals(150, list.size(), "removed songs came back");
+	    
+	    list.sortByDateAdded();
+	    list = reopenJournaled(file, legacy, list);
+	    list.updateList(list.getSongsAlphabetically());
+	    list = reopenJournaled(file, legacy, list);
+	    list.closeJournal();
+	}
+	
+	/**
+	 * Closes the list's journal, if any, and loads the list again with a journal that compacts at 256 bytes.
+	 * The reloaded list must hold the same songs in the same order.
+	 */
+	private static MusicList reopenJournaled(File file, File legacy, MusicList previous) {
+	    if (previous != null) {
+	        previous.closeJournal();
+	    }
+	    MusicList list = new MusicList();
+	    list.loadFromFile(file, legacy);
+	    list.openJournal(file, 256);
+	    if (previous != null) {
+	        assertEquals(previous.getSongs(), list.getSongs());
+	        for (int i = 0; i < list.size(); i++) {
+	            assertEquals(previous.getSong(i).getAsSaveString(), list.getSong(i).getAsSaveString());
+	        }
+	    }
+	    return list;
+	}
+	
+	@Test
+	public void testCheckpointSchedulerSkipsUnchangedState(@TempDir Path dir) throws IOException {
+	    File file = dir.resolve("library.bin").toFile();
+	    File legacy = dir.resolve("library.txt").toFile();
+	    MusicList list = new MusicList();
+	    list.loadFromFile(file, legacy);
+	    CheckpointScheduler scheduler = new CheckpointScheduler(Runnable::run, CheckpointScheduler.DEFAULT_INTERVAL_MS);
+	    CheckpointMetrics metrics = scheduler.register("list", list);
+	    
+	    scheduler.checkpointNow();
+	    assertEquals(1, metrics.getSkipped());
+	    assertFalse(file.exists());
+	    
+	    list.addSong(song1);
+	    list.addSong(song2);
+	    scheduler.checkpointNow();
+	    scheduler.checkpointNow();
+	    assertEquals(1, metrics.getCheckpoints());
+	    assertEquals(2, metrics.getSkipped());
+	    assertEquals(file.length(), metrics.getBytesWritten());
+	    assertTrue(metrics.getLastLatencyNanos() > 0);
+	    try (var files = Files.list(dir)) {
+	        assertEquals(List.of("library.bin"), files.map(path -> path.getFileName().toString()).toList());
+	    }
+	    
+	    // With a journal open, a checkpoint starts a new generation
+	    MusicList journaled = new MusicList();
+	    journaled.loadFromFile(file, legacy);
+	    journaled.openJournal(file, MusicListJournal.DEFAULT_COMPACT_BYTES);
+	    CheckpointMetrics journaledMetrics = scheduler.register("journaled", journaled);
+	    journaled.removeSong(song1);
+	    journaled.addSong(song3);
+	    scheduler.checkpointNow();
+	    assertEquals(1, journaledMetrics.getCheckpoints());
+	    journaled.addSong(song4);
+	    journaled.closeJournal();
+	    scheduler.close();
+	    
+	    MusicList reloaded = new MusicList();
+	    reloaded.loadFromFile(file, legacy);
+	    try (SongFile snapshot = SongFile.open(file.toPath())) {
+	        assertEquals(1, snapshot.getGeneration());
+	        assertEquals(List.of(song2, song3), snapshot.getSongs());
+	    }
+	    reloaded.openJournal(file, MusicListJournal.DEFAULT_COMPACT_BYTES);
+	    assertEquals(List.of(song2, song3, song4), reloaded.getSongs());
+	    reloaded.closeJournal();
+	}
+	
 	@Test
 	public void testMusicListRemoveSong() {
 	    MusicList list = new MusicList();
@@ -285,4 +948,791 @@ public class MusicManagerTest {
 	    assertTrue(first.getPriorityQueued());
 	    assertFalse(second.getPriorityQueued());
 	}
-}
\ No newline at end of file
+	
+	@Test
+	public void testMusicQueueIteratesInDequeueOrder() {
+	    MusicQueue queue = new MusicQueue();
+	    queue.enqueue(song1, false);
+	    queue.enqueue(song2, true);
+	    queue.enqueue(song3, false);
+	    queue.enqueue(song4, true);
+	    
+	    ArrayList<Song> iterated = new ArrayList<>();
+	    for (Song song : queue) {
+	        iterated.add(song);
+	    }
+	    assertEquals(List.of(song2, song4, song1, song3), iterated);
+	    assertEquals(iterated, queue.getAllSongs());
+	    assertEquals(4, queue.size());
+	    assertSame(iterated.get(0), queue.peek());
+	    
+	    for (Song expected : iterated) {
+	        assertSame(expected, queue.dequeue());
+	    }
+	    assertNull(queue.dequeue());
+	    assertTrue(queue.isEmpty());
+	}
+	
+	@Test
+	public void testMusicQueuePriorityLevels() {
+	    MusicQueue queue = new MusicQueue();
+	    queue.enqueue(song1, MusicQueue.BACKGROUND);
+	    queue.enqueue(song2, false);
+	    queue.enqueue(song3, MusicQueue.URGENT);
+	    queue.enqueue(song4, true);
+	    queue.enqueue(song1, MusicQueue.URGENT);
+	    assertThrows(IllegalArgumentException.class, () -> queue.enqueue(song1, MusicQueue.MAX_PRIORITY + 1));
+	    
+	    assertEquals(List.of(song3, song1, song4, song2, song1), queue.getAllSongs());
+	    Song urgent = queue.peek();
+	    assertEquals(MusicQueue.URGENT, urgent.getQueuePriority());
+	    assertTrue(urgent.getPriorityQueued());
+	    
+	    // The level survives the queue save format
+	    Song parsed = new SongParser().parse(urgent.getAsSaveStringForPriorityQueue());
+	    assertEquals(MusicQueue.URGENT, parsed.getQueuePriority());
+	    assertEquals(urgent.getQueueSequence(), parsed.getQueueSequence());
+	    assertTrue(parsed.compareTo(queue.getAllSongs().get(2)) < 0);
+	    
+	    assertEquals(5, queue.size());
+	    assertEquals(MusicQueue.BACKGROUND, queue.getAllSongs().get(4).getQueuePriority());
+	    for (int i = 0; i < 5; i++) {
+	        queue.dequeue();
+	    }
+	    assertTrue(queue.isEmpty());
+	    assertNull(queue.peek());
+	}
+	
+	@Test
+	public void testMusicQueueHandles() {
+	    MusicQueue queue = new MusicQueue();
+	    MusicQueue.Handle first = queue.enqueue(song1, false);
+	    MusicQueue.Handle second = queue.enqueue(song2, false);
+	    MusicQueue.Handle third = queue.enqueue(song3, true);
+	    MusicQueue.Handle fourth = queue.enqueue(song4, MusicQueue.BACKGROUND);
+	    assertEquals(0, queue.positionOf(third));
+	    assertEquals(2, queue.positionOf(second));
+	    assertEquals(3, queue.positionOf(fourth));
+	    
+	    // Promoted entries go behind the songs already at their new level
+	    assertTrue(queue.promote(second));
+	    assertEquals(MusicQueue.HIGH, second.getPriority());
+	    assertTrue(second.getSong().getPriorityQueued());
+	    assertTrue(queue.demote(third));
+	    assertTrue(queue.remove(first));
+	    assertFalse(queue.remove(first));
+	    assertFalse(first.isQueued());
+	    assertEquals(-1, queue.positionOf(first));
+	    assertEquals(List.of(song2, song3, song4), queue.getAllSongs());
+	    
+	    List<MusicQueue.Handle> handles = new ArrayList<>();
+	    queue.handles().forEach(handles::add);
+	    assertEquals(List.of(second, third, fourth), handles);
+	    assertTrue(queue.demote(fourth)); // already at the bottom
+	    assertEquals(2, queue.positionOf(fourth));
+	    
+	    assertSame(second.getSong(), queue.dequeue());
+	    assertFalse(second.isQueued());
+	    assertFalse(queue.promote(second));
+	    assertEquals(0, queue.positionOf(third));
+	    assertEquals(2, queue.size());
+	    assertFalse(new MusicQueue().remove(third));
+	}
+	
+	@Test
+	public void testMusicQueuePositionsMatchPlayOrder() {
+	    MusicQueue queue = new MusicQueue();
+	    // Mirror the queue from the event positions alone
+	    List<MusicQueue.Handle> mirror = new ArrayList<>();
+	    queue.addChangeListener(event -> {
+	        if (event.getType() == SongChangeEvent.Type.REMOVED) {
+	            mirror.subList(event.getFromIndex(), event.getToIndex()).clear();
+	        } else {
+	            for (int i = event.getFromIndex(); i < event.getToIndex(); i++) {
+	                mirror.add(i, queue.get(i));
+	            }
+	        }
+	    });
+	    
+	    // Enough churn to renumber the levels' slots many times over
+	    java.util.Random random = new java.util.Random(17);
+	    List<MusicQueue.Handle> live = new ArrayList<>();
+	    for (int i = 0; i < 5000; i++) {
+	        int action = random.nextInt(10);
+	        if (action < 5 || live.isEmpty()) {
+	            Song song = new Song("Song " + i, "Artist", "Spotify", "link", date1, date2);
+	            live.add(queue.enqueue(song, random.nextInt(4)));
+	        } else if (action < 7) {
+	            assertTrue(queue.remove(live.remove(random.nextInt(live.size()))));
+	        } else if (action < 9) {
+	            assertTrue(queue.reprioritize(live.get(random.nextInt(live.size())), random.nextInt(4)));
+	        } else {
+	            live.remove(queue.get(0));
+	            queue.dequeue();
+	        }
+	        
+	        if (i % 100 == 0) {
+	            List<MusicQueue.Handle> order = new ArrayList<>();
+	            queue.handles().forEach(order::add);
+	            assertEquals(order, mirror);
+	            for (int position = 0; position < order.size(); position++) {
+	                assertEquals(position, queue.positionOf(order.get(position)));
+	            }
+	        }
+	    }
+	}
+	
+	@Test
+	public void testConcurrentMusicQueueStress() throws InterruptedException {
+	    int producers = 4;
+	    int songsPerProducer = 20_000;
+	    ConcurrentMusicQueue queue = new ConcurrentMusicQueue();
+	    AtomicBoolean done = new AtomicBoolean();
+	    List<Thread> threads = new ArrayList<>();
+	    for (int p = 0; p < producers; p++) {
+	        int producer = p;
+	        Thread thread = new Thread(() -> {
+	            for (int i = 0; i < songsPerProducer; i++) {
+	                // The artist names the producer and the title counts its songs
+	                Song song = new Song(Integer.toString(i), "p" + producer, "", "", null, null);
+	                queue.enqueue(song, i % 3 == 0 ? MusicQueue.URGENT : i % 3 == 1 ? MusicQueue.HIGH : MusicQueue.NORMAL);
+	            }
+	        });
+	        threads.add(thread);
+	        thread.start();
+	    }
+	    Thread closer = new Thread(() -> {
+	        threads.forEach(thread -> {
+	            try {
+	                thread.join();
+	            } catch (InterruptedException e) {
+	                Thread.currentThread().interrupt();
+	            }
+	        });
+	        done.set(true);
+	    });
+	    closer.start();
+	    
+	    // Within one producer and level, songs must come out in the order they went in
+	    int[][] last = new int[producers][MusicQueue.MAX_PRIORITY + 1];
+	    for (int[] levels : last) {
+	        Arrays.fill(levels, -1);
+	    }
+	    int received = 0;
+	    int previousLevel = Integer.MAX_VALUE;
+	    while (received < producers * songsPerProducer) {
+	        boolean finished = done.get();
+	        Song song = queue.dequeue();
+	        if (song == null) {
+	            assertFalse(finished && received < producers * songsPerProducer, "songs were lost");
+	            Thread.onSpinWait();
+	            continue;
+	        }
+	        if (finished) {
+	            // Nothing is being added, so levels must only go down
+	            assertTrue(song.getQueuePriority() <= previousLevel);
+	            previousLevel = song.getQueuePriority();
+	        }
+	        int producer = Integer.parseInt(song.getArtist().substring(1));
+	        int index = Integer.parseInt(song.getTitle());
+	        assertTrue(index > last[producer][song.getQueuePriority()]);
+	        last[producer][song.getQueuePriority()] = index;
+	        received++;
+	    }
+	    closer.join();
+	    assertNull(queue.dequeue());
+	    assertTrue(queue.isEmpty());
+	}
+	
+	@Test
+	public void testConcurrentMusicListSnapshots() throws InterruptedException {
+	    MusicList list = new MusicList(true);
+	    list.addSong(song1);
+	    MusicList.Snapshot first = list.getSnapshot();
+	    assertEquals(List.of(song1), first.getSongs());
+	    assertThrows(UnsupportedOperationException.class, () -> first.getSongs().add(song2));
+	    
+	    int adds = 5_000;
+	    Thread writer = new Thread(() -> {
+	        for (int i = 0; i < adds; i++) {
+	            list.addSong(new Song("Track " + i, "Writer", "", "", null, null));
+	        }
+	    });
+	    writer.start();
+	    // Readers never see a half-made change: every snapshot is a prefix of the final list
+	    long lastVersion = first.getVersion();
+	    while (writer.isAlive()) {
+	        MusicList.Snapshot snapshot = list.getSnapshot();
+	        assertTrue(snapshot.getVersion() >= lastVersion);
+	        assertEquals(snapshot.getVersion(), snapshot.size());
+	        lastVersion = snapshot.getVersion();
+	        // Songs are only added, so later reads find at least as many tracks
+	        assertTrue(list.searchSongs("track").size() >= snapshot.size() - 1);
+	        assertTrue(list.getSongsByDateAdded().size() >= snapshot.size());
+	    }
+	    writer.join();
+	    
+	    assertEquals(adds + 1, list.size());
+	    assertEquals(adds + 1, list.getSnapshot().getVersion());
+	    assertEquals(1, first.size()); // old snapshots do not change
+	    assertEquals("Track 4999", list.getSongs().get(adds).getTitle());
+	}
+	
+	@Test
+	public void testMusicServerEndpoints() throws IOException {
+	    MusicList list = new MusicList(true);
+	    list.addSong(song1);
+	    MusicServer server = new MusicServer(list, new MusicQueue());
+	    server.start(0);
+	    try {
+	        String base = "http://127.0.0.1:" + server.getPort();
+	        String added = request("POST", base + "/songs", "{\"title\":\"Say \\\"Hi\\\"\",\"artist\":\"Tester\","
+	                + "\"platform\":\"Spotify\",\"link\":\"https://x\",\"releaseDate\":\"2020-01-02\"}", 201);
+	        assertTrue(added.contains("\"title\":\"Say \\\"Hi\\\"\""));
+	        assertEquals(2, list.size());
+	        String id = Long.toHexString(list.getSong(1).getId());
+	        
+	        assertTrue(request("GET", base + "/songs?q=tester", null, 200).startsWith("{\"total\":1,"));
+	        assertTrue(request("GET", base + "/songs?sort=title&limit=1", null, 200)
+	                .contains("\"total\":2,\"songs\":[{\"id\":\"" + Long.toHexString(song1.getId())));
+	        request("POST", base + "/songs", "{\"title\":\"No artist\"}", 400);
+	        
+	        request("POST", base + "/queue", "{\"id\":\"" + Long.toHexString(song1.getId()) + "\"}", 201);
+	        assertTrue(request("POST", base + "/queue", "{\"id\":\"" + id + "\",\"priority\":3}", 201)
+	                .endsWith("\"position\":0}"));
+	        assertTrue(request("GET", base + "/queue", null, 200).startsWith("{\"total\":2,"));
+	        assertTrue(request("POST", base + "/queue/dequeue", null, 200).contains("\"priority\":3"));
+	        request("POST", base + "/queue/dequeue", null, 200);
+	        request("POST", base + "/queue/dequeue", null, 204);
+	        
+	        request("DELETE", base + "/songs/" + id, null, 200);
+	        request("DELETE", base + "/songs/" + id, null, 404);
+	        assertEquals(List.of(song1), list.getSongs());
+	    } finally {
+	        server.stop();
+	    }
+	}
+	
+	private static String request(String method, String url, String body, int expectedStatus) throws IOException {
+	    HttpURLConnection connection = (HttpURLConnection) new URL(url).openConnection();
+	    connection.setRequestMethod(method);
+	    if (body != null) {
+	        connection.setDoOutput(true);
+	        try (OutputStream out = connection.getOutputStream()) {
+	            out.write(body.getBytes(StandardCharsets.UTF_8));
+	        }
+	    }
+	    assertEquals(expectedStatus, connection.getResponseCode());
+	    InputStream in = expectedStatus < 400 ? connection.getInputStream() : connection.getErrorStream();
+	    if (in == null) {
+	        return "";
+	    }
+	    try (in) {
+	        return new String(in.readAllBytes(), StandardCharsets.UTF_8);
+	    }
+	}
+	
+	@Test
+	public void testBulkOperationsNotifyOnce() {
+	    MusicList list = new MusicList();
+	    List<SongChangeEvent> listEvents = new ArrayList<>();
+	    list.addChangeListener(listEvents::add);
+	    list.addSong(song1);
+	    assertEquals(3, list.addAll(List.of(song2, song3, song4)));
+	    assertEquals(List.of(song1, song2, song3, song4), list.getSongs());
+	    assertEquals("ADDED [1, 4)", listEvents.get(1).toString());
+	    assertEquals(2, listEvents.size());
+	    assertEquals(List.of(song3), list.searchSongs("hotel"));
+	    
+	    assertEquals(2, list.removeAll(song -> song == song2 || song == song4));
+	    assertEquals(List.of(song1, song3), list.getSongs());
+	    assertFalse(list.contains(song2));
+	    assertEquals("REPLACED [0, 2)", listEvents.get(2).toString());
+	    assertEquals(0, list.removeAll(song -> false));
+	    assertEquals(3, listEvents.size());
+	    
+	    MusicQueue queue = new MusicQueue();
+	    List<SongChangeEvent> queueEvents = new ArrayList<>();
+	    queue.addChangeListener(queueEvents::add);
+	    queue.enqueue(song1, MusicQueue.URGENT);
+	    queue.enqueue(song2, MusicQueue.BACKGROUND);
+	    List<MusicQueue.Handle> handles = queue.enqueueAll(List.of(song3, song4), MusicQueue.NORMAL);
+	    assertEquals(2, handles.size());
+	    assertEquals("ADDED [1, 3)", queueEvents.get(2).toString());
+	    assertEquals(1, queue.positionOf(handles.get(0)));
+	    
+	    assertEquals(List.of(song1, song3, song4), queue.dequeueBatch(3));
+	    assertEquals("REMOVED [0, 3)", queueEvents.get(3).toString());
+	    assertEquals(List.of(song2), queue.dequeueBatch(10));
+	    assertTrue(queue.dequeueBatch(1).isEmpty());
+	    assertEquals(5, queueEvents.size());
+	}
+	
+	@Test
+	public void testSongTableModelFollowsList() throws Exception {
+	    MusicList list = new MusicList();
+	    list.addSong(song1);
+	    SongTableModel model = new SongTableModel(list);
+	    List<String> tableEvents = new ArrayList<>();
+	    model.addTableModelListener(e -> tableEvents.add(e.getType() + " " + e.getFirstRow() + "-" + e.getLastRow()));
+	    
+	    // Row events are only passed on fine-grained on the event dispatch thread
+	    SwingUtilities.invokeAndWait(() -> {
+	        list.addAll(List.of(song2, song3));
+	        list.removeAt(0);
+	    });
+	    assertEquals(List.of(TableModelEvent.INSERT + " 1-2", TableModelEvent.DELETE + " 0-0"), tableEvents);
+	    assertEquals(2, model.getRowCount());
+	    assertSame(song2, model.getSongAt(0));
+	    assertEquals(song3.getTitle(), model.getValueAt(1, SongTableModel.TITLE_COLUMN));
+	    assertEquals("Delete", model.getValueAt(1, SongTableModel.DELETE_COLUMN));
+	    assertFalse(model.isCellEditable(0, SongTableModel.TITLE_COLUMN));
+	    
+	    model.showResults(List.of(song4));
+	    assertEquals(1, model.getRowCount());
+	    SwingUtilities.invokeAndWait(() -> list.addSong(song4));
+	    assertEquals(1, model.getRowCount());
+	    model.showAll();
+	    assertEquals(3, model.getRowCount());
+	}
+	
+	@Test
+	public void testQueueListModelIncrementalUpdates() throws Exception {
+	    MusicQueue queue = new MusicQueue();
+	    MusicQueue.Handle normal1 = queue.enqueue(song1, MusicQueue.NORMAL);
+	    MusicQueue.Handle urgent = queue.enqueue(song2, MusicQueue.URGENT);
+	    MusicQueue.Handle normal2 = queue.enqueue(song3, MusicQueue.NORMAL);
+	    MusicQueue.Handle background = queue.enqueue(song4, MusicQueue.BACKGROUND);
+	    List<MusicQueue.Handle> order = List.of(urgent, normal1, normal2, background);
+	    for (int i = 0; i < order.size(); i++) {
+	        assertSame(order.get(i), queue.get(i));
+	    }
+	    assertSame(normal1, queue.next(urgent));
+	    assertSame(background, queue.next(normal2));
+	    assertNull(queue.next(background));
+	    assertThrows(IndexOutOfBoundsException.class, () -> queue.get(4));
+	    
+	    QueueListModel model = new QueueListModel(queue);
+	    List<String> listEvents = new ArrayList<>();
+	    model.addListDataListener(new ListDataListener() {
+	        public void intervalAdded(ListDataEvent e) { listEvents.add("added " + e.getIndex0() + "-" + e.getIndex1()); }
+	        public void intervalRemoved(ListDataEvent e) { listEvents.add("removed " + e.getIndex0() + "-" + e.getIndex1()); }
+	        public void contentsChanged(ListDataEvent e) { listEvents.add("changed"); }
+	    });
+	    for (int i = 0; i < order.size(); i++) {
+	        assertSame(order.get(i), model.getElementAt(i));
+	    }
+	    SwingUtilities.invokeAndWait(() -> {
+	        queue.dequeue();
+	        queue.promote(normal2);
+	    });
+	    assertEquals(List.of("removed 0-0", "removed 1-1", "added 0-0"), listEvents);
+	    assertEquals(3, model.getSize());
+	    assertSame(normal2, model.getElementAt(0));
+	    assertSame(normal1, model.getElementAt(1));
+	    assertSame(background, model.getElementAt(2));
+	}
+	
+	@Test
+	public void testBackgroundTasksCancelOlderOnSameLane() throws Exception {
+	    JProgressBar progressBar = new JProgressBar();
+	    List<Exception> errors = Collections.synchronizedList(new ArrayList<>());
+	    CountDownLatch finished = new CountDownLatch(2);
+	    BackgroundTasks tasks = new BackgroundTasks(progressBar, e -> {
+	        errors.add(e);
+	        finished.countDown();
+	    });
+	    List<String> delivered = Collections.synchronizedList(new ArrayList<>());
+	    CountDownLatch started = new CountDownLatch(1);
+	    CountDownLatch release = new CountDownLatch(1);
+	    AtomicBoolean firstSawCancel = new AtomicBoolean();
+	    
+	    SwingUtilities.invokeAndWait(() -> tasks.submit("search", progress -> {
+	        progress.report(-1, "Searching...");
+	        started.countDown();
+	        release.await();
+	        firstSawCancel.set(progress.isCancelled());
+	        return "first";
+	    }, delivered::add));
+	    assertTrue(started.await(5, TimeUnit.SECONDS));
+	    
+	    // Replaces the running search; the queued one is dropped before it starts
+	    SwingUtilities.invokeAndWait(() -> {
+	        tasks.submit("search", progress -> "second", delivered::add);
+	        tasks.submit("search", progress -> "third", result -> {
+	            delivered.add(result);
+	            finished.countDown();
+	        });
+	        tasks.<String>submit(null, progress -> {
+	            throw new IOException("disk full");
+	        }, delivered::add);
+	    });
+	    release.countDown();
+	    
+	    // Results come back on the event thread
+	    assertTrue(finished.await(5, TimeUnit.SECONDS));
+	    SwingUtilities.invokeAndWait(() -> { });
+	    assertTrue(firstSawCancel.get());
+	    assertEquals(List.of("third"), delivered);
+	    assertEquals(1, errors.size());
+	    assertEquals("disk full", errors.get(0).getMessage());
+	    assertFalse(progressBar.isVisible());
+	}
+	
+	@Test
+	public void testDateIndexesFollowEdits() {
+	    MusicList list = new MusicList();
+	    Song sameDay = new Song("Same Day", "Artist", "Spotify", "spotify.com/same", date3, date1);
+	    list.addAll(List.of(song1, song2, song3, song4, sameDay));
+	    
+	    // song3 and sameDay were both added on date1, ties are ordered by id
+	    List<Song> firstTwo = song3.getId() < sameDay.getId() ? List.of(song3, sameDay) : List.of(sameDay, song3);
+	    ArrayList<Song> byAdded = list.getSongsByDateAdded();
+	    assertEquals(firstTwo, byAdded.subList(0, 2));
+	    assertEquals(List.of(song1, song2, song4), byAdded.subList(2, 5));
+	    assertEquals(List.of(song1, song2), list.getSongsByDateAdded(2, 2));
+	    assertEquals(List.of(song4), list.getSongsByDateAdded(4, 10));
+	    assertTrue(list.getSongsByDateAdded(7, 10).isEmpty());
+	    assertThrows(IllegalArgumentException.class, () -> list.getSongsByDateAdded(-1, 10));
+	    
+	    // Edits of every kind keep the indexes in step with the list
+	    list.removeSong(song2);
+	    list.addAt(0, song1);
+	    list.removeAll(song -> song == sameDay);
+	    assertEquals(List.of(song3, song1, song1, song4), list.getSongsByDateAdded());
+	    assertEquals(List.of(song1, song1, song3, song4), list.getSongsByDateCreated());
+	    list.updateList(new ArrayList<>(List.of(song4, song2)));
+	    assertEquals(List.of(song2, song4), list.getSongsByDateCreated());
+	    list.clear();
+	    assertTrue(list.getSongsByDateAdded().isEmpty());
+	    
+	    // Sorting in place reorders the list from the index
+	    list.addAll(List.of(song4, song2, song1, song3));
+	    List<SongChangeEvent> events = new ArrayList<>();
+	    list.addChangeListener(events::add);
+	    list.sortByDateCreated();
+	    assertEquals(List.of(song1, song2, song3, song4), list.getSongs());
+	    list.sortByDateAdded();
+	    assertEquals(List.of(song3, song1, song2, song4), list.getSongs());
+	    assertEquals("REPLACED [0, 4)", events.get(1).toString());
+	    assertEquals(List.of(song2), list.searchSongs("stairway"));
+	}
+	
+	@Test
+	public void testQueueListModelWalksFromCursor() {
+	    AtomicInteger lookups = new AtomicInteger();
+	    MusicQueue queue = new MusicQueue() {
+	        @Override
+	        public Handle get(int index) {
+	            lookups.incrementAndGet();
+	            return super.get(index);
+	        }
+	    };
+	    for (int i = 0; i < 300; i++) {
+	        queue.enqueue(new Song("Song " + i, "Artist", "YouTube", "link", null, null), i % 3 == 0 ? MusicQueue.HIGH : MusicQueue.NORMAL);
+	    }
+	    List<Song> order = queue.getAllSongs();
+	    QueueListModel model = new QueueListModel(queue);
+	    
+	    // Painting top to bottom looks up the first row and walks to the rest
+	    for (int i = 0; i < order.size(); i++) {
+	        assertSame(order.get(i), model.getElementAt(i).getSong());
+	    }
+	    assertEquals(1, lookups.get());
+	    
+	    // Rows above the cursor or far below it are looked up
+	    assertSame(order.get(0), model.getElementAt(0).getSong());
+	    assertSame(order.get(250), model.getElementAt(250).getSong());
+	    assertEquals(3, lookups.get());
+	    assertSame(order.get(260), model.getElementAt(260).getSong());
+	    assertEquals(3, lookups.get());
+	}
+	
+	@Test
+	public void testCheckpointWritersNeverShareTempFiles(@TempDir Path dir) throws Exception {
+	    Path path = dir.resolve("library.bin");
+	    List<List<Song>> versions = List.of(List.of(song1), List.of(song2, song3), List.of(song4, song1, song2));
+	    List<Thread> writers = new ArrayList<>();
+	    List<Exception> errors = Collections.synchronizedList(new ArrayList<>());
+	    for (List<Song> songs : versions) {
+	        writers.add(new Thread(() -> {
+	            try {
+	                for (int i = 0; i < 20; i++) {
+	                    SongFile.write(path, songs);
+	                }
+	            } catch (IOException e) {
+	                errors.add(e);
+	            }
+	        }));
+	    }
+	    writers.forEach(Thread::start);
+	    for (Thread writer : writers) {
+	        writer.join();
+	    }
+	    assertEquals(List.of(), errors);
+	    try (SongFile songFile = SongFile.open(path)) {
+	        assertTrue(versions.contains(songFile.getSongs()));
+	    }
+	    try (var files = Files.list(dir)) {
+	        assertEquals(List.of("library.bin"), files.map(file -> file.getFileName().toString()).toList());
+	    }
+	    
+	    // Closing the scheduler waits for the checkpoint being written
+	    CountDownLatch writing = new CountDownLatch(1);
+	    AtomicBoolean written = new AtomicBoolean();
+	    Checkpointable slow = new Checkpointable() {
+	        private long modCount;
+	        
+	        @Override
+	        public long getModCount() {
+	            return ++modCount;
+	        }
+	        
+	        @Override
+	        public Checkpointable.Writer captureCheckpoint() {
+	            return () -> {
+	                writing.countDown();
+	                LockSupport.parkNanos(TimeUnit.MILLISECONDS.toNanos(200));
+	                long bytes = SongFile.write(path, List.of(song3));
+	                written.set(true);
+	                return bytes;
+	            };
+	        }
+	    };
+	    CheckpointScheduler scheduler = new CheckpointScheduler(Runnable::run, 10);
+	    scheduler.register("slow", slow);
+	    scheduler.start();
+	    assertTrue(writing.await(5, TimeUnit.SECONDS));
+	    scheduler.close();
+	    assertTrue(written.get());
+	}
+	
+	@Test
+	public void testConcurrentMusicListPublishesFinishedWrites() throws Exception {
+	    MusicList list = new MusicList(true);
+	    for (int i = 0; i < 3000; i++) {
+	        list.addSong(new Song("Filler " + i, "Artist", "", "", null, null));
+	    }
+	    CountDownLatch writing = new CountDownLatch(1);
+	    CountDownLatch release = new CountDownLatch(1);
+	    list.addChangeListener(event -> {
+	        if (event.getFromIndex() == 0 && event.getType() == SongChangeEvent.Type.ADDED) {
+	            writing.countDown();
+	            try {
+	                release.await();
+	            } catch (InterruptedException e) {
+	                Thread.currentThread().interrupt();
+	            }
+	        }
+	    });
+	    
+	    // The first write finishes with nobody reading, then a second one holds the lock
+	    Thread first = new Thread(() -> list.addAt(1500, song1));
+	    first.start();
+	    first.join();
+	    Thread second = new Thread(() -> list.addFirst(song2));
+	    second.start();
+	    assertTrue(writing.await(5, TimeUnit.SECONDS));
+	    
+	    MusicList.Snapshot snapshot = list.getSnapshot();
+	    assertEquals(3001, snapshot.size());
+	    assertSame(song1, snapshot.getSongs().get(1500));
+	    assertEquals("Filler 1500", snapshot.getSongs().get(1501).getTitle());
+	    assertEquals(3001, list.size());
+	    assertSame(song1, list.getSong(1500));
+	    assertTrue(list.getSongs().contains(song1));
+	    assertFalse(list.getSongs().contains(song2));
+	    
+	    release.countDown();
+	    second.join();
+	    assertSame(song2, list.getSong(0));
+	    assertSame(song1, list.getSong(1501));
+	    assertEquals(3001, snapshot.size()); // old snapshots do not change
+	    assertSame(song1, snapshot.getSongs().get(1500));
+	    assertEquals(list.getSongs(), new ArrayList<>(list.getSnapshot().getSongs()));
+	}
+	
+	@Test
+	public void testRemoveSongWithIndexHint() {
+	    MusicList list = new MusicList();
+	    list.addAll(List.of(song1, song2, song3, song4));
+	    assertTrue(list.removeSong(song3, 2));
+	    assertEquals(List.of(song1, song2, song4), list.getSongs());
+	    // A stale hint falls back to finding the song
+	    assertTrue(list.removeSong(song1, 2));
+	    assertEquals(List.of(song2, song4), list.getSongs());
+	    assertTrue(list.removeSong(song4, 99));
+	    assertFalse(list.removeSong(song4, 1));
+	    assertEquals(List.of(song2), list.getSongs());
+	}
+	
+	@Test
+	public void testRemoveAllJournalsRemovedPositions(@TempDir Path dir) throws IOException {
+	    File file = dir.resolve("library.bin").toFile();
+	    File legacy = dir.resolve("library.txt").toFile();
+	    MusicList list = new MusicList();
+	    list.loadFromFile(file, legacy);
+	    List<Song> songs = new ArrayList<>();
+	    for (int i = 0; i < 1000; i++) {
+	        songs.add(new Song("Song " + i, "Artist " + i, "Spotify", "link" + i, date1, date2));
+	    }
+	    list.addAll(songs);
+	    list.addSong(songs.get(10)); // listed twice, both go
+	    list.saveToFile(file);
+	    list.openJournal(file, MusicListJournal.DEFAULT_COMPACT_BYTES);
+	    Path log = dir.resolve("library.0.log");
+	    long before = Files.size(log);
+	    
+	    assertEquals(11, list.removeAll(song -> song.getTitle().endsWith("0") && song.getTitle().length() < 8));
+	    list.closeJournal();
+	    // Eleven positions, not the nine hundred and ninety songs left
+	    assertTrue(Files.size(log) - before < 100);
+	    
+	    MusicList reloaded = new MusicList();
+	    reloaded.loadFromFile(file, legacy);
+	    reloaded.openJournal(file, MusicListJournal.DEFAULT_COMPACT_BYTES);
+	    assertEquals(990, reloaded.size());
+	    assertEquals(list.getSongs(), reloaded.getSongs());
+	    assertNull(reloaded.getSongById(songs.get(10).getId()));
+	    reloaded.closeJournal();
+	}
+	
+	@Test
+	public void testSearchKeepsListOrderAfterSortAndEdits() {
+	    MusicList list = new MusicList();
+	    List<Song> songs = new ArrayList<>();
+	    for (int i = 0; i < 50; i++) {
+	        songs.add(new Song("Track " + (char) ('z' - i % 26) + i, "Band", "Spotify", "link", date1, date2));
+	    }
+	    list.addAll(songs);
+	    list.updateList(list.getSongsAlphabetically());
+	    Song middle = new Song("Track inserted", "Band", "Spotify", "link", date1, date2);
+	    Song front = new Song("Track front", "Band", "Spotify", "link", date1, date2);
+	    list.addAt(20, middle);
+	    list.addFirst(front);
+	    list.removeAt(5);
+	    list.addAt(list.size() - 1, song1);
+	    
+	    List<Song> expected = new ArrayList<>();
+	    for (Song song : list.getSongs()) {
+	        if (song.getTitle().startsWith("Track")) {
+	            expected.add(song);
+	        }
+	    }
+	    assertEquals(expected, list.searchSongs("track"));
+	    assertSame(front, list.searchSongs("track").get(0));
+	    assertSame(middle, list.searchSongs("track").get(20));
+	}
+	
+	@Test
+	public void testMusicListPrefixSearchAfterPruning() {
+	    MusicList list = new MusicList();
+	    Song hot = new Song("Hot", "Band", "Spotify", "link", date1, date2);
+	    Song hotel = new Song("Hotel", "Band", "Spotify", "link", date1, date2);
+	    Song house = new Song("House", "Band", "Spotify", "link", date1, date2);
+	    list.addSong(hot);
+	    list.addSong(hotel);
+	    list.addSong(house);
+	    
+	    // Removing "hot" leaves its node without a word, merged into "hotel"
+	    list.removeSong(hot);
+	    assertEquals(java.util.List.of("hotel", "house"), list.getCompletions("ho", 10));
+	    assertEquals(java.util.List.of("hotel"), list.getCompletions("hot", 10));
+	    
+	    // Removing every word empties the trie, and it fills again the same way
+	    list.removeSong(hotel);
+	    list.removeSong(house);
+	    assertTrue(list.getCompletions("", 10).isEmpty());
+	    list.addSong(hot);
+	    list.addSong(house);
+	    assertEquals(java.util.List.of("band", "hot", "house"), list.getCompletions("", 10));
+	    assertEquals(java.util.List.of(hot), list.searchByPrefix("hot", 10));
+	}
+	
+	@Test
+	public void testMusicListEditSongUpdatesIndexes(@TempDir Path dir) {
+	    MusicList list = new MusicList();
+	    list.addSong(song1);
+	    list.addSong(song2);
+	    list.addSong(song3);
+	    
+	    list.editSong(0, song -> {
+	        song.setTitle("Hotel Bohemia");
+	        song.setDateAdded(LocalDate.of(2025, 1, 1));
+	    });
+	    assertTrue(list.searchSongs("rhapsody").isEmpty());
+	    assertEquals(List.of(song1), list.searchSongs("bohemia"));
+	    // Still found in list order, before the song it was before
+	    assertEquals(List.of(song1, song3), list.searchSongs("hotel"));
+	    assertEquals(song1, list.getSongsByDateAdded().get(2));
+	    
+	    // The edit is journaled and replayed
+	    File file = dir.resolve("library.bin").toFile();
+	    File legacy = dir.resolve("library.txt").toFile();
+	    MusicList journaled = reopenJournaled(file, legacy, null);
+	    journaled.addAll(List.of(song1.clone(), song2.clone(), song3.clone()));
+	    journaled.editSong(2, song -> song.setArtist("The Eagles"));
+	    MusicList reloaded = reopenJournaled(file, legacy, journaled);
+	    assertEquals("The Eagles", reloaded.getSong(2).getArtist());
+	    assertEquals(List.of(reloaded.getSong(2)), reloaded.searchSongs("the eagles"));
+	    reloaded.closeJournal();
+	}
+	
+	@Test
+	public void testMusicListCompletionsAfterTitleEdit() {
+	    MusicList list = new MusicList();
+	    Song song = new Song("Yesterday", "Beatles", "Spotify", "link", date1, date2);
+	    list.addSong(song);
+	    list.addSong(new Song("Yellow", "Coldplay", "Spotify", "link", date1, date2));
+	    assertEquals(List.of("yellow", "yesterday"), list.getCompletions("ye", 10));
+	    
+	    list.editSong(0, edited -> edited.setTitle("Let It Be"));
+	    assertEquals(List.of("yellow"), list.getCompletions("ye", 10));
+	    assertEquals(List.of("let"), list.getCompletions("le", 10));
+	    assertEquals(List.of(song), list.searchByPrefix("let", 10));
+	    assertTrue(list.searchByPrefix("yesterday", 10).isEmpty());
+	    
+	    // The old words are gone, so removing the song leaves only the other song's words
+	    list.removeAt(0);
+	    assertEquals(List.of("coldplay", "yellow"), list.getCompletions("", 10));
+	}
+	
+	@Test
+	public void testStringDictionarySharesParsedStrings() {
+	    String line = song1.getAsSaveString();
+	    Song fromText = new Song(line);
+	    Song fromParser = new SongParser().parse(line);
+	    byte[] bytes = line.getBytes(StandardCharsets.UTF_8);
+	    Song fromBytes = new SongParser().parse(bytes, 0, bytes.length);
+	    
+	    // Each parse cuts its own strings from the line, the dictionary keeps one of them
+	    assertSame(song1.getArtist(), fromText.getArtist());
+	    assertSame(song1.getArtist(), fromParser.getArtist());
+	    assertSame(song1.getArtist(), fromBytes.getArtist());
+	    assertSame(song1.getPlatform(), fromBytes.getPlatform());
+	    assertSame(song1.getNormalizedArtist(), fromBytes.getNormalizedArtist());
+	    assertSame(StringDictionary.ARTISTS.intern(new String("Queen")), song1.getArtist());
+	}
+	
+	@Test
+	public void testStringDictionaryNullAndEmpty() {
+	    StringDictionary dictionary = new StringDictionary();
+	    assertNull(dictionary.intern(null));
+	    assertEquals("", dictionary.normalized(null));
+	    assertEquals(0, dictionary.size()); // null is never added
+	    
+	    String empty = dictionary.intern(new String(""));
+	    assertEquals("", empty);
+	    assertSame(empty, dictionary.intern(new String("")));
+	    assertEquals(1, dictionary.size());
+	    int code = dictionary.encode("");
+	    assertSame(empty, dictionary.decode(code));
+	    assertEquals("", dictionary.normalized(""));
+	    assertThrows(IndexOutOfBoundsException.class, () -> dictionary.decode(1));
+	    
+	    Song untitled = new Song(null, null, "", null, null, null);
+	    assertNull(untitled.getArtist());
+	    assertEquals("", untitled.getNormalizedArtist());
+	    assertSame(StringDictionary.PLATFORMS.intern(""), untitled.getPlatform());
+	}
+}